@@ -0,0 +1,228 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Gauge;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Tracks progress of asynchronous API operations (so called Actions).
+ * <p>
+ * Instead of every waiting party polling state of its own resource, IDs of all in-flight actions are collected
+ * and resolved using single batched <code>GET /actions?id=..&amp;id=..</code> call per tick.
+ * Ticks are scheduled only while there is anything to track, and run on executor given to tracker. Deadlines
+ * of actions are enforced on every tick, even if their state can't be fetched.
+ * Futures are completed on tracker's thread, so any blocking work that depends on them
+ * must be chained asynchronously.
+ */
+@Slf4j
+final class ActionTracker {
+    static final long TICK_MILLIS = SystemProperties.getLong(ActionTracker.class.getName() + ".tickMillis", 2000L);
+    /**
+     * Maximum number of action IDs in single request, which matches maximal page size of API.
+     */
+    private static final int MAX_IDS_PER_REQUEST = 50;
+    private static final Counter REQUESTS = PluginMetrics.counter("actions.requests");
+    private static final Gauge PENDING = PluginMetrics.gauge("actions.pending");
+
+    /**
+     * State of action as reported by API.
+     *
+     * @param id           action ID
+     * @param status       one of <code>running</code>, <code>success</code> or <code>error</code>
+     * @param errorCode    error code if action failed
+     * @param errorMessage error message if action failed
+     */
+    record ActionStatus(long id, String status, String errorCode, String errorMessage) {
+    }
+
+    /**
+     * Fetches state of multiple actions at once.
+     */
+    interface Fetcher {
+        List<ActionStatus> fetch(Collection<Long> actionIds) throws IOException;
+    }
+
+    private record Pending(CompletableFuture<Void> future, long deadlineNanos) {
+    }
+
+    private final Fetcher fetcher;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final long tickMillis;
+    private final ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * @param fetcher    fetches state of actions
+     * @param scheduler  schedules ticks
+     * @param executor   runs ticks, which call API
+     * @param tickMillis interval between ticks
+     */
+    ActionTracker(Fetcher fetcher, ScheduledExecutorService scheduler, Executor executor, long tickMillis) {
+        this.fetcher = fetcher;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Create fetcher which uses <code>GET /actions</code> endpoint.
+     *
+     * @param client supplier of HTTP client
+     * @return fetcher
+     */
+    static Fetcher httpFetcher(Supplier<ApiHttpClient> client) {
+        return actionIds -> {
+            final ListMultimap<String, String> query = ArrayListMultimap.create();
+            actionIds.forEach(id -> query.put("id", String.valueOf(id)));
+            query.put("per_page", String.valueOf(MAX_IDS_PER_REQUEST));
+            final List<ActionStatus> result = new ArrayList<>();
+            final JsonObject response = client.get().get(ApiPriority.POLL, "actions", query);
+            for (JsonElement element : response.getAsJsonArray("actions")) {
+                final JsonObject action = element.getAsJsonObject();
+                final JsonObject error = action.has("error") && action.get("error").isJsonObject()
+                        ? action.getAsJsonObject("error") : null;
+                result.add(new ActionStatus(action.get("id").getAsLong(), action.get("status").getAsString(),
+                        error != null ? error.get("code").getAsString() : null,
+                        error != null ? error.get("message").getAsString() : null));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Extract ID of action from body of API response, such as response to create or power off server.
+     *
+     * @param body response body
+     * @return action ID, or <code>null</code> if response doesn't refer to action
+     */
+    static Long extractActionId(Object body) {
+        if (body == null) {
+            return null;
+        }
+        final JsonElement tree = SharedApiClient.GSON.toJsonTree(body);
+        if (tree.isJsonObject() && tree.getAsJsonObject().has("action")) {
+            final JsonElement action = tree.getAsJsonObject().get("action");
+            if (action.isJsonObject() && action.getAsJsonObject().has("id")) {
+                return action.getAsJsonObject().get("id").getAsLong();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start tracking of action.
+     *
+     * @param actionId ID of action
+     * @param timeout  maximum time to wait for action to finish
+     * @return future which is completed once action succeeds, or completed exceptionally if action fails
+     * or doesn't finish in time
+     */
+    CompletableFuture<Void> track(long actionId, Duration timeout) {
+        final Pending created = new Pending(new CompletableFuture<>(), System.nanoTime() + timeout.toNanos());
+        final Pending existing = pending.putIfAbsent(actionId, created);
+        if (existing != null) {
+            return existing.future();
+        }
+        PENDING.inc();
+        ensureScheduled();
+        return created.future();
+    }
+
+    int getPending() {
+        return pending.size();
+    }
+
+    private void ensureScheduled() {
+        if (scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> executor.execute(this::tick), tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void tick() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Unable to fetch state of actions", e);
+        } finally {
+            expire();
+            scheduled.set(false);
+            if (!pending.isEmpty()) {
+                ensureScheduled();
+            }
+        }
+    }
+
+    private void poll() throws IOException {
+        for (List<Long> batch : Lists.partition(new ArrayList<>(pending.keySet()), MAX_IDS_PER_REQUEST)) {
+            REQUESTS.inc();
+            for (ActionStatus status : fetcher.fetch(batch)) {
+                if ("success".equals(status.status())) {
+                    complete(status.id(), null);
+                } else if ("error".equals(status.status())) {
+                    complete(status.id(), new IllegalStateException(String.format("Action %d failed: %s (%s)",
+                            status.id(), status.errorMessage(), status.errorCode())));
+                }
+            }
+        }
+    }
+
+    private void expire() {
+        final long now = System.nanoTime();
+        pending.forEach((id, p) -> {
+            if (now - p.deadlineNanos() > 0) {
+                complete(id, new TimeoutException("Action " + id + " didn't finish in time"));
+            }
+        });
+    }
+
+    private void complete(long actionId, Exception error) {
+        final Pending p = pending.remove(actionId);
+        if (p == null) {
+            return;
+        }
+        PENDING.dec();
+        if (error == null) {
+            p.future().complete(null);
+        } else {
+            p.future().completeExceptionally(error);
+        }
+    }
+}
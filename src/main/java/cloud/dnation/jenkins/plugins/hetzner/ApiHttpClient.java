@@ -0,0 +1,147 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.google.common.collect.ListMultimap;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+
+/**
+ * Minimal HTTP client for API endpoints which are not covered by {@link cloud.dnation.hetznerclient.HetznerApi}.
+ * Calls are subject to same {@link ApiScheduler} as all other calls made using the same API token
+ * and are recorded in {@link ApiMetrics}. Calls rejected due to rate limit are retried the same way as calls
+ * of {@link cloud.dnation.hetznerclient.HetznerApi} (see {@link ApiScheduler#execute}).
+ */
+final class ApiHttpClient {
+    private final OkHttpClient httpClient;
+    private final HttpUrl baseUrl;
+    private final ApiScheduler scheduler;
+
+    /**
+     * @param httpClient HTTP client which authenticates calls, see {@link SharedApiClient#createHttpClient}
+     * @param baseUrl    base URL of API
+     * @param scheduler  scheduler of API calls
+     */
+    ApiHttpClient(OkHttpClient httpClient, String baseUrl, ApiScheduler scheduler) {
+        this.httpClient = httpClient;
+        this.baseUrl = HttpUrl.get(baseUrl);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Reads response body incrementally.
+     *
+     * @param <T> type of result
+     */
+    interface BodyReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Perform GET request and parse response body as JSON object.
+     *
+     * @param priority priority of call
+     * @param path     path of resource relative to base URL, e.g. <code>actions</code>
+     * @param query    query parameters, single parameter can be repeated
+     * @return parsed response body
+     * @throws IOException if call fails or API responds with error
+     */
+    JsonObject get(ApiPriority priority, String path, ListMultimap<String, String> query) throws IOException {
+        return get(priority, path, query, reader -> JsonParser.parseReader(reader).getAsJsonObject());
+    }
+
+    /**
+     * Perform GET request and read response body as it arrives, without building JSON tree of it.
+     *
+     * @param priority priority of call
+     * @param path     path of resource relative to base URL, e.g. <code>servers</code>
+     * @param query    query parameters, single parameter can be repeated
+     * @param reader   reader of response body
+     * @param <T>      type of result
+     * @return result of reader
+     * @throws IOException if call fails or API responds with error
+     */
+    <T> T get(ApiPriority priority, String path, ListMultimap<String, String> query, BodyReader<T> reader)
+            throws IOException {
+        final HttpUrl.Builder url = baseUrl.newBuilder().addPathSegments(path);
+        query.forEach(url::addQueryParameter);
+        return execute(priority, path, new Request.Builder().url(url.build()).get(), reader);
+    }
+
+    /**
+     * Perform POST request without body and parse response body as JSON object.
+     *
+     * @param priority priority of call
+     * @param path     path of resource relative to base URL, e.g. <code>servers/1/actions/shutdown</code>
+     * @return parsed response body
+     * @throws IOException if call fails or API responds with error
+     */
+    JsonObject post(ApiPriority priority, String path) throws IOException {
+        return execute(priority, path, new Request.Builder()
+                        .url(baseUrl.newBuilder().addPathSegments(path).build())
+                        .post(RequestBody.create(new byte[0])),
+                reader -> JsonParser.parseReader(reader).getAsJsonObject());
+    }
+
+    private <T> T execute(ApiPriority priority, String path, Request.Builder builder, BodyReader<T> reader)
+            throws IOException {
+        final Request request = builder.build();
+        try (Response response = scheduler.execute(priority, ApiMetrics.endpointForPath(path),
+                attempt -> httpClient.newCall(request).execute(), OkHttpView.INSTANCE)) {
+            final ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Invalid API response: HTTP " + response.code());
+            }
+            try (JsonReader jsonReader = new JsonReader(body.charStream())) {
+                return reader.read(jsonReader);
+            }
+        }
+    }
+
+    private enum OkHttpView implements ApiScheduler.ResponseView<Response> {
+        INSTANCE;
+
+        @Override
+        public Headers headers(Response response) {
+            return response.headers();
+        }
+
+        @Override
+        public int code(Response response) {
+            return response.code();
+        }
+
+        @Override
+        public ResponseBody errorBody(Response response) {
+            return response.isSuccessful() ? null : response.body();
+        }
+
+        @Override
+        public void discard(Response response) {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.LatencyRecorder;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import lombok.experimental.UtilityClass;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Per-endpoint metrics of calls made to Hetzner API.
+ * <p>
+ * Every call made through {@link SharedApiClient} (both {@link cloud.dnation.hetznerclient.HetznerApi} and
+ * {@link ApiHttpClient}) is recorded under name of endpoint, which is name of
+ * {@link cloud.dnation.hetznerclient.HetznerApi} method (e.g. <code>getServer</code>) or path of resource with
+ * IDs omitted (e.g. <code>servers.actions.shutdown</code>). Following metrics are maintained:
+ * <ul>
+ *     <li><code>api.latency.&lt;endpoint&gt;</code> - duration of calls, including those which failed</li>
+ *     <li><code>api.status.&lt;endpoint&gt;.&lt;status&gt;</code> - HTTP status codes, <code>io</code>
+ *     if there was no response</li>
+ *     <li><code>api.errors.&lt;endpoint&gt;.&lt;code&gt;</code> - Hetzner error codes
+ *     (see {@link Helper#parseHetznerErrorCode(String)})</li>
+ *     <li><code>api.retries.&lt;endpoint&gt;</code> - calls sent again after being rejected by rate limit</li>
+ * </ul>
+ * Remaining rate limit budget of each API token is exposed by {@link SharedApiClient}.
+ */
+@UtilityClass
+class ApiMetrics {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final ConcurrentMap<String, Endpoint> ENDPOINTS = new ConcurrentHashMap<>();
+
+    /**
+     * Recorders of single endpoint, cached so that call on hot path doesn't need to build metric names.
+     */
+    static final class Endpoint {
+        private final String name;
+        private final LatencyRecorder latency;
+        private final Counter retries;
+        private final ConcurrentMap<Integer, Counter> statuses = new ConcurrentHashMap<>();
+
+        private Endpoint(String name) {
+            this.name = name;
+            this.latency = PluginMetrics.latency("api.latency." + name);
+            this.retries = PluginMetrics.counter("api.retries." + name);
+        }
+
+        /**
+         * Record completed call.
+         *
+         * @param startNanos value of {@link System#nanoTime()} when call started
+         * @param status     HTTP status code or <code>-1</code> if call failed without response
+         * @param errorBody  body of error response, might be <code>null</code>
+         */
+        void record(long startNanos, int status, ResponseBody errorBody) {
+            latency.recordSince(startNanos);
+            statuses.computeIfAbsent(status, s -> PluginMetrics.counter(
+                    "api.status." + name + "." + (s < 0 ? "io" : String.valueOf(s)))).inc();
+            if (errorBody != null) {
+                final String code = Helper.parseHetznerErrorCode(peek(errorBody));
+                if (code != null) {
+                    PluginMetrics.counter("api.errors." + name + "." + code).inc();
+                }
+            }
+        }
+
+        void retried() {
+            retries.inc();
+        }
+    }
+
+    /**
+     * Get recorders of {@link cloud.dnation.hetznerclient.HetznerApi} method.
+     *
+     * @param method name of method
+     * @return recorders
+     */
+    static Endpoint endpoint(String method) {
+        return ENDPOINTS.computeIfAbsent(method, Endpoint::new);
+    }
+
+    /**
+     * Get recorders of resource accessed by {@link ApiHttpClient}.
+     *
+     * @param path path of resource, e.g. <code>servers/1/actions/shutdown</code>
+     * @return recorders
+     */
+    static Endpoint endpointForPath(String path) {
+        return endpoint(ID_SEGMENT.matcher("/" + path).replaceAll("").substring(1).replace('/', '.'));
+    }
+
+    /**
+     * Read error body without consuming it, so that caller can still read it.
+     */
+    private static String peek(ResponseBody body) {
+        try {
+            return body.source().peek().readUtf8();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
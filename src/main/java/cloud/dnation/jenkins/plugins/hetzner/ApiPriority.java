@@ -0,0 +1,50 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Priority of API call, used by {@link ApiScheduler} to decide which call goes first once rate limit budget
+ * is scarce. Constants are ordered from highest to lowest priority.
+ */
+@RequiredArgsConstructor
+public enum ApiPriority {
+    /**
+     * Calls needed to create server (including resolution of referenced resources).
+     */
+    CREATE(0.0),
+    /**
+     * Calls needed to power off and delete server.
+     */
+    DELETE(0.0),
+    /**
+     * Polling of server state.
+     */
+    POLL(0.05),
+    /**
+     * Background cleanup and validation of configuration.
+     */
+    CLEANUP(0.2);
+
+    /**
+     * Fraction of rate limit that must remain available for call of this priority to proceed,
+     * so that higher priorities are not starved by bursts of lower priority calls.
+     */
+    @Getter
+    private final double reserve;
+}
@@ -0,0 +1,291 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Longs;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for API calls made with single API token.
+ * <p>
+ * Hetzner API allows limited number of requests per hour for each project, budget is refilled continuously
+ * and reported in every response using <code>RateLimit-*</code> headers. This class keeps local token bucket
+ * which is synchronized with those headers, and admits waiting calls strictly by {@link ApiPriority}.
+ * Lower priorities additionally need part of budget to remain untouched (see {@link ApiPriority#getReserve()}),
+ * so that polling and cleanup degrade first once budget runs low.
+ * Number of calls in flight is bounded as well.
+ * <p>
+ * Calls rejected by API due to rate limit (HTTP 429) are retried by {@link #execute}, which is used
+ * by both {@link ScheduledCall} and {@link ApiHttpClient}.
+ */
+@Slf4j
+final class ApiScheduler {
+    static final String HEADER_LIMIT = "RateLimit-Limit";
+    static final String HEADER_REMAINING = "RateLimit-Remaining";
+    static final String HEADER_RESET = "RateLimit-Reset";
+    /**
+     * Hetzner default, used until first response tells otherwise.
+     */
+    static final long DEFAULT_LIMIT_PER_HOUR = 3600;
+    /**
+     * How many times call is attempted when API responds with HTTP 429.
+     */
+    static final int MAX_ATTEMPTS = 3;
+    private static final Counter THROTTLED = PluginMetrics.counter("api.ratelimit.throttled");
+
+    /**
+     * Single attempt of API call. Every attempt must send new request.
+     *
+     * @param <R> type of response
+     */
+    interface Attempt<R> {
+        /**
+         * @param attempt number of attempt, starting with 1
+         * @return response
+         * @throws IOException if call fails without response
+         */
+        R execute(int attempt) throws IOException;
+    }
+
+    /**
+     * Access to parts of response needed for admission control and metrics, so that both Retrofit
+     * and OkHttp responses can be handled.
+     *
+     * @param <R> type of response
+     */
+    interface ResponseView<R> {
+        Headers headers(R response);
+
+        int code(R response);
+
+        /**
+         * @return body of error response, <code>null</code> if call succeeded
+         */
+        ResponseBody errorBody(R response);
+
+        /**
+         * Release resources of response which is not returned to caller.
+         */
+        void discard(R response);
+    }
+
+    private record Waiter(ApiPriority priority, long seq) {
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::seq));
+    private final int maxConcurrent;
+    private final LongSupplier nanoClock;
+    private long seq;
+    private int inFlight;
+    private long limit = DEFAULT_LIMIT_PER_HOUR;
+    private double tokens = DEFAULT_LIMIT_PER_HOUR;
+    private long lastRefill;
+    private double refillPerNano = (double) DEFAULT_LIMIT_PER_HOUR / TimeUnit.HOURS.toNanos(1);
+
+    ApiScheduler(int maxConcurrent) {
+        this(maxConcurrent, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    ApiScheduler(int maxConcurrent, LongSupplier nanoClock) {
+        this.maxConcurrent = maxConcurrent;
+        this.nanoClock = nanoClock;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Wait until call of given priority can be made.
+     * Every successful invocation must be followed by {@link #release(Headers, int)}.
+     *
+     * @param priority priority of call
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void acquire(ApiPriority priority) throws InterruptedException {
+        final long start = System.nanoTime();
+        lock.lock();
+        try {
+            final Waiter waiter = new Waiter(priority, seq++);
+            waiters.add(waiter);
+            try {
+                while (true) {
+                    refill();
+                    final double required = 1 + limit * priority.getReserve();
+                    final boolean first = waiters.peek() == waiter;
+                    if (first && inFlight < maxConcurrent && tokens >= required) {
+                        waiters.poll();
+                        tokens -= 1;
+                        inFlight++;
+                        // let next waiter re-evaluate its position
+                        changed.signalAll();
+                        break;
+                    }
+                    if (first && inFlight < maxConcurrent) {
+                        // wait for bucket to refill enough
+                        changed.awaitNanos(Math.max(1, (long) ((required - tokens) / refillPerNano)));
+                    } else {
+                        changed.await();
+                    }
+                }
+            } catch (InterruptedException e) {
+                waiters.remove(waiter);
+                changed.signalAll();
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+        PluginMetrics.latency("api.wait." + priority.name().toLowerCase(Locale.ROOT)).recordSince(start);
+    }
+
+    /**
+     * Release slot acquired by {@link #acquire(ApiPriority)} and update local budget using response headers.
+     *
+     * @param headers    response headers, might be <code>null</code> if call failed without response
+     * @param statusCode HTTP status code of response, or <code>-1</code> if there was no response
+     */
+    void release(Headers headers, int statusCode) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (headers != null) {
+                update(headers);
+            }
+            if (statusCode == 429) {
+                log.warn("API rate limit exceeded, postponing further calls");
+                THROTTLED.inc();
+                tokens = Math.min(tokens, 0);
+                lastRefill = nanoClock.getAsLong();
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Make API call once it's admitted, retrying it once budget allows if it's rejected due to rate limit.
+     * Every attempt is recorded in given metrics.
+     *
+     * @param priority priority of call
+     * @param metrics  metrics of endpoint
+     * @param attempt  makes single attempt of call
+     * @param view     access to response
+     * @param <R>      type of response
+     * @return response of last attempt
+     * @throws IOException if call fails without response or is interrupted while waiting for permit
+     */
+    <R> R execute(ApiPriority priority, ApiMetrics.Endpoint metrics, Attempt<R> attempt, ResponseView<R> view)
+            throws IOException {
+        for (int n = 1; ; n++) {
+            try {
+                acquire(priority);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for API call permit");
+            }
+            final long start = System.nanoTime();
+            R response = null;
+            try {
+                response = attempt.execute(n);
+            } finally {
+                release(response != null ? view.headers(response) : null,
+                        response != null ? view.code(response) : -1);
+                metrics.record(start, response != null ? view.code(response) : -1,
+                        response != null ? view.errorBody(response) : null);
+            }
+            if (view.code(response) != 429 || n >= MAX_ATTEMPTS) {
+                return response;
+            }
+            metrics.retried();
+            // rejected request was not processed by API, so it's safe to send it again
+            view.discard(response);
+        }
+    }
+
+    /**
+     * Get number of calls that could currently be made without exceeding rate limit.
+     *
+     * @return estimated remaining budget
+     */
+    long getRemaining() {
+        lock.lock();
+        try {
+            refill();
+            return (long) tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @VisibleForTesting
+    int getWaiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(Headers headers) {
+        final Long newLimit = parseLong(headers.get(HEADER_LIMIT));
+        if (newLimit != null && newLimit > 0) {
+            limit = newLimit;
+            refillPerNano = (double) limit / TimeUnit.HOURS.toNanos(1);
+        }
+        final Long remaining = parseLong(headers.get(HEADER_REMAINING));
+        if (remaining != null) {
+            // API is authoritative, it also accounts for calls made by other clients using same project
+            tokens = Math.min(remaining, limit);
+            lastRefill = nanoClock.getAsLong();
+            // reset is UNIX timestamp when budget is fully refilled, which gives actual refill rate
+            final Long reset = parseLong(headers.get(HEADER_RESET));
+            final long secondsToReset = reset == null ? 0 : reset - TimeUnit.MILLISECONDS.toSeconds(
+                    System.currentTimeMillis());
+            if (secondsToReset > 0 && remaining < limit) {
+                refillPerNano = (double) (limit - remaining) / TimeUnit.SECONDS.toNanos(secondsToReset);
+            }
+        }
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        tokens = Math.min(limit, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+
+    private static Long parseLong(String value) {
+        return value == null ? null : Longs.tryParse(value.trim());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.ServerDetail;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Gauge;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Book of capacity used by single cloud.
+ * <p>
+ * Ledger counts servers which are running, servers which are booting and slots reserved by provisioning
+ * which didn't create server yet. Capacity is granted only through {@link #tryReserve(int)}, which checks
+ * instance cap and takes slot atomically, so concurrent provisioning can't exceed the cap.
+ * Counts of servers are reconciled against {@link ServerInventory}, which itself is periodically refreshed
+ * from API. Decision itself doesn't call API unless inventory is stale.
+ */
+final class CapacityLedger {
+    private static final Gauge RESERVED = PluginMetrics.gauge("capacity.reserved");
+
+    private final ServerInventory inventory;
+    private int running;
+    private int booting;
+    private int reserved;
+
+    CapacityLedger(ServerInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Slot reserved for server which is about to be created.
+     * Once server is created, reservation must be {@link #commit() committed}.
+     * Closing reservation which was not committed releases slot.
+     */
+    final class Reservation implements AutoCloseable {
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Reservation() {
+        }
+
+        /**
+         * Turn reservation into booting server.
+         */
+        void commit() {
+            if (done.compareAndSet(false, true)) {
+                synchronized (CapacityLedger.this) {
+                    reserved--;
+                    booting++;
+                }
+                RESERVED.dec();
+            }
+        }
+
+        /**
+         * Release reservation, unless it was already committed.
+         */
+        @Override
+        public void close() {
+            if (done.compareAndSet(false, true)) {
+                synchronized (CapacityLedger.this) {
+                    reserved--;
+                }
+                RESERVED.dec();
+            }
+        }
+    }
+
+    /**
+     * Try to reserve slot for new server.
+     *
+     * @param instanceCap maximum number of servers in cloud
+     * @return reservation, or <code>null</code> if cloud is at capacity
+     * @throws IOException if inventory was stale and refresh failed
+     */
+    Reservation tryReserve(int instanceCap) throws IOException {
+        if (!inventory.isFresh()) {
+            reconcile();
+        }
+        synchronized (this) {
+            if (running + booting + reserved >= instanceCap) {
+                return null;
+            }
+            reserved++;
+        }
+        RESERVED.inc();
+        return new Reservation();
+    }
+
+    /**
+     * Refresh inventory if needed and recount servers.
+     *
+     * @throws IOException if inventory refresh failed
+     */
+    void reconcile() throws IOException {
+        inventory.ensureFresh();
+        recount();
+    }
+
+    /**
+     * Recount servers using current content of inventory, without calling API.
+     */
+    void recount() {
+        final List<ServerDetail> servers = inventory.snapshot();
+        final int newRunning = (int) servers.stream().filter(s -> "running".equals(s.getStatus())).count();
+        final int newBooting = (int) servers.stream()
+                .filter(s -> HetznerConstants.RUNNABLE_STATE_SET.contains(s.getStatus()))
+                .count() - newRunning;
+        synchronized (this) {
+            running = newRunning;
+            booting = newBooting;
+        }
+    }
+
+    synchronized int getRunning() {
+        return running;
+    }
+
+    synchronized int getBooting() {
+        return booting;
+    }
+
+    synchronized int getReserved() {
+        return reserved;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "running=" + running + ", booting=" + booting + ", reserved=" + reserved;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Servers of single cloud, kept per name of cloud.
+ * <p>
+ * Jenkins creates new instance of {@link HetznerCloud} every time configuration is saved, while provisioning
+ * started by previous instance is still in flight. Inventory and capacity ledger therefore live here rather than
+ * in cloud itself, so that outstanding reservations keep counting against instance cap.
+ */
+@Slf4j
+final class CloudServers {
+    private static final ConcurrentMap<String, CloudServers> REGISTRY = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.PACKAGE)
+    private final ServerInventory inventory;
+    @Getter(AccessLevel.PACKAGE)
+    private final CapacityLedger capacityLedger;
+    /**
+     * Resource manager of most recent instance of cloud, credentials might have changed.
+     */
+    private volatile HetznerCloudResourceManager resourceManager;
+
+    private CloudServers(String cloudName) {
+        this.inventory = new ServerInventory(() -> resourceManager.fetchAllServers(cloudName));
+        this.capacityLedger = new CapacityLedger(inventory);
+    }
+
+    /**
+     * Get servers of given cloud, creating them on first use.
+     *
+     * @param cloudName       name of cloud
+     * @param resourceManager resource manager used to list servers of cloud from now on
+     * @return servers of cloud
+     */
+    static CloudServers forCloud(String cloudName, HetznerCloudResourceManager resourceManager) {
+        final CloudServers servers = REGISTRY.computeIfAbsent(cloudName, CloudServers::new);
+        servers.resourceManager = resourceManager;
+        return servers;
+    }
+
+    /**
+     * Drop servers of clouds which are no longer configured.
+     *
+     * @param cloudNames names of configured clouds
+     */
+    static void retainAll(Collection<String> cloudNames) {
+        REGISTRY.keySet().removeIf(name -> {
+            if (cloudNames.contains(name)) {
+                return false;
+            }
+            log.info("Dropping server inventory of removed cloud '{}'", name);
+            return true;
+        });
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        REGISTRY.clear();
+    }
+}
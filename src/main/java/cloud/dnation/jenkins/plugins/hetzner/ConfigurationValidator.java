@@ -15,8 +15,6 @@
  */
 package cloud.dnation.jenkins.plugins.hetzner;
 
-import cloud.dnation.hetznerclient.ClientFactory;
-
 import cloud.dnation.hetznerclient.GetFirewallByIdResponse;
 import cloud.dnation.hetznerclient.GetFirewallsBySelectorResponse;
 import cloud.dnation.hetznerclient.GetImageByIdResponse;
@@ -56,16 +54,15 @@ public class ConfigurationValidator {
     }
 
     /**
-     * Perform given {@link ValidationAction} using {@link HetznerApi} created from <code>credentialsId</code>.
+     * Perform given {@link ValidationAction} using shared {@link HetznerApi} client for <code>credentialsId</code>.
      *
      * @param action        action to perform
      * @param credentialsId credentials for API client
      * @return ValidationResult
      */
     private static ValidationResult validateWithClient(ValidationAction action, String credentialsId) {
-        final HetznerApi client = ClientFactory.create(JenkinsSecretTokenProvider.forCredentialsId(credentialsId));
         try {
-            return action.validate(client);
+            return action.validate(SharedApiClient.forCredentialsId(credentialsId).getApi(ApiPriority.CLEANUP));
         } catch (Exception e) {
             return ValidationResult.fromException(e);
         }
@@ -226,12 +223,21 @@ public class ConfigurationValidator {
     }
 
     public static FormValidation doCheckPositiveInt(String value, String name) {
-        if (Ints.tryParse(value) == null) {
+        final Integer parsed = Ints.tryParse(value);
+        if (parsed == null || parsed <= 0) {
             return FormValidation.error(name + " must be positive integer : " + value);
         }
         return FormValidation.ok();
     }
 
+    public static FormValidation doCheckNonNegativeInt(String value, String name) {
+        final Integer parsed = Ints.tryParse(value);
+        if (parsed == null || parsed < 0) {
+            return FormValidation.error(name + " must be non-negative integer : " + value);
+        }
+        return FormValidation.ok();
+    }
+
     public static FormValidation doCheckNonEmpty(String value, String name) {
         if (Strings.isNullOrEmpty(value)) {
             return FormValidation.error(name + " must be specified");
@@ -15,29 +15,56 @@
  */
 package cloud.dnation.jenkins.plugins.hetzner;
 
+import cloud.dnation.hetznerclient.ServerDetail;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.XmlFile;
 import hudson.model.Computer;
 import hudson.model.TaskListener;
 import hudson.slaves.ComputerListener;
 import hudson.slaves.OfflineCause;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * {@link ComputerListener} that is responsible to perform cleanup tasks when Jenkins' controller node
  * comes online or offline.
+ * <p>
+ * When controller goes offline, servers of all Hetzner agents are deleted concurrently (number of deletions
+ * in flight is bounded by {@link ServerDestroyer}) and controller waits for them at most
+ * {@link #SHUTDOWN_DEADLINE_SECONDS}. Servers which weren't deleted by then are remembered
+ * in {@link PendingTeardowns} and their deletion is resumed when controller comes online again.
  */
 @Slf4j
 @Extension
 public class ControllerListener extends ComputerListener {
+    /**
+     * How long to wait for servers to be destroyed when controller goes offline.
+     */
+    static final long SHUTDOWN_DEADLINE_SECONDS = SystemProperties.getLong(
+            ControllerListener.class.getName() + ".shutdownDeadlineSeconds", 60L);
+    private static final long PROGRESS_INTERVAL_SECONDS = 5;
+
     @Override
     public void onOnline(Computer c, TaskListener listener) throws IOException, InterruptedException {
-        //on controller startup, check for any orphan VMs in cloud
+        //on controller startup, finish teardown interrupted by previous shutdown and check for any orphan VMs in cloud
         if (c.getName().isEmpty()) {
+            resumePendingTeardowns();
             OrphanedNodesCleaner.doCleanup();
         }
         super.onOnline(c, listener);
@@ -47,7 +74,23 @@ public class ControllerListener extends ComputerListener {
     public void onOffline(@NonNull Computer c, OfflineCause cause) {
         //on controller shutdown, terminate any existing Hetzner agent and computer
         if (c.getName().isEmpty()) {
-            Helper.getHetznerAgents().forEach(this::terminateAgent);
+            final List<HetznerServerAgent> agents = Helper.getHetznerAgents();
+            final List<HetznerServerAgent> withServer = agents.stream()
+                    .filter(agent -> agent.getCloud() != null && agent.getServerInstance() != null
+                            && agent.getServerInstance().getServerDetail() != null)
+                    .toList();
+            final Set<PendingTeardowns.Entry> remaining = ConcurrentHashMap.newKeySet();
+            withServer.forEach(agent -> remaining.add(entryOf(agent)));
+            // persist list first, so that nothing is lost if controller doesn't get to the end
+            savePendingTeardowns(remaining);
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (HetznerServerAgent agent : withServer) {
+                final PendingTeardowns.Entry entry = entryOf(agent);
+                futures.add(startTeardown(agent).thenRun(() -> remaining.remove(entry)));
+            }
+            agents.forEach(this::terminateAgent);
+            awaitTeardowns(futures, remaining);
+            savePendingTeardowns(remaining);
             Arrays.stream(Jenkins.get().getComputers())
                     .filter(HetznerServerComputer.class::isInstance)
                     .forEach(this::deleteComputer);
@@ -55,6 +98,101 @@ public class ControllerListener extends ComputerListener {
         super.onOffline(c, cause);
     }
 
+    private static PendingTeardowns.Entry entryOf(HetznerServerAgent agent) {
+        final ServerDetail server = agent.getServerInstance().getServerDetail();
+        return new PendingTeardowns.Entry(agent.getCloudName(), server.getId(), server.getName());
+    }
+
+    private static CompletableFuture<Void> startTeardown(HetznerServerAgent agent) {
+        try {
+            // there is no time for graceful shutdown once controller is going down
+            return agent.destroyServer(TeardownMode.DELETE_IMMEDIATELY);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void awaitTeardowns(List<CompletableFuture<Void>> futures, Set<PendingTeardowns.Entry> remaining) {
+        final List<CompletableFuture<?>> all = new ArrayList<>(futures);
+        // include destructions started earlier, e.g. by retention strategy
+        OrphanedNodesCleaner.getHetznerClouds().forEach(cloud -> all.add(cloud.getResourceManager().pendingDestroys()));
+        final CompletableFuture<Void> done = CompletableFuture.allOf(all.stream()
+                .map(f -> f.exceptionally(e -> null))
+                .toArray(CompletableFuture[]::new));
+        final int total = futures.size();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_DEADLINE_SECONDS);
+        try {
+            while (true) {
+                final long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    log.warn("{} of {} servers were not destroyed in {}s, destruction will be resumed on next "
+                            + "startup", remaining.size(), total, SHUTDOWN_DEADLINE_SECONDS);
+                    return;
+                }
+                try {
+                    done.get(Math.min(left, TimeUnit.SECONDS.toNanos(PROGRESS_INTERVAL_SECONDS)),
+                            TimeUnit.NANOSECONDS);
+                    log.info("Destroyed {} of {} servers", total - remaining.size(), total);
+                    return;
+                } catch (TimeoutException e) {
+                    log.info("Destroyed {} of {} servers, waiting for the rest...", total - remaining.size(), total);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for servers to be destroyed");
+        } catch (ExecutionException e) {
+            log.warn("Not all servers were destroyed", e);
+        }
+    }
+
+    private static void savePendingTeardowns(Set<PendingTeardowns.Entry> remaining) {
+        try {
+            PendingTeardowns.save(PendingTeardowns.getFile(), remaining);
+        } catch (IOException e) {
+            log.error("Unable to persist list of servers to destroy, they will be cleaned up by "
+                    + "OrphanedNodesCleaner", e);
+        }
+    }
+
+    private static void resumePendingTeardowns() {
+        final XmlFile file = PendingTeardowns.getFile();
+        final List<PendingTeardowns.Entry> pending;
+        try {
+            pending = PendingTeardowns.load(file);
+        } catch (IOException e) {
+            log.error("Unable to read list of servers to destroy", e);
+            return;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.info("Resuming destruction of {} servers left over from previous shutdown", pending.size());
+        final Map<String, HetznerCloud> clouds = OrphanedNodesCleaner.getHetznerClouds().stream()
+                .collect(Collectors.toMap(cloud -> cloud.name, Function.identity(), (a, b) -> a));
+        final Set<PendingTeardowns.Entry> remaining = ConcurrentHashMap.newKeySet();
+        remaining.addAll(pending);
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (PendingTeardowns.Entry entry : pending) {
+            final HetznerCloud cloud = clouds.get(entry.getCloudName());
+            if (cloud == null) {
+                log.warn("Cloud '{}' no longer exists, server {} (id={}) won't be destroyed",
+                        entry.getCloudName(), entry.getServerName(), entry.getServerId());
+                remaining.remove(entry);
+                continue;
+            }
+            final ServerDetail server = new ServerDetail();
+            server.setId(entry.getServerId());
+            server.setName(entry.getServerName());
+            futures.add(cloud.destroyServer(server, TeardownMode.DELETE_IMMEDIATELY)
+                    .thenRun(() -> remaining.remove(entry)));
+        }
+        CompletableFuture.allOf(futures.stream()
+                        .map(f -> f.exceptionally(e -> null))
+                        .toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, error) -> savePendingTeardowns(remaining));
+    }
+
     private void deleteComputer(Computer computer) {
         try {
             log.info("Deleting computer {}", computer);
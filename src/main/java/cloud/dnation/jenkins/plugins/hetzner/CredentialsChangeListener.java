@@ -0,0 +1,39 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drops everything that was derived from global credentials whenever credentials store is saved.
+ */
+@Slf4j
+@Extension
+public class CredentialsChangeListener extends SaveableListener {
+    @Override
+    public void onChange(Saveable o, XmlFile file) {
+        if (o instanceof SystemCredentialsProvider) {
+            log.debug("Global credentials changed, invalidating cached API tokens and clients");
+            JenkinsSecretTokenProvider.invalidateAll();
+            SharedApiClient.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.PeriodicWork;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+import hudson.util.XStream2;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.jenkinsci.Symbol;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provisions agents ahead of predicted demand for clouds with {@link HetznerCloud#isPredictiveProvisioning()}.
+ * <p>
+ * Every minute, length of build queue is sampled for every label that Hetzner templates can serve, and together
+ * with build starts (see {@link StartListener}) is recorded in {@link DemandHistory} of label. Demand expected
+ * once newly created server would be online (measured boot time of template, see
+ * {@link #recordBootTime(String, String, long)}) is then compared with idle executors, queued items (which are
+ * already being provisioned for by {@link hudson.slaves.NodeProvisioner}) and agents provisioned ahead earlier,
+ * and shortfall is provisioned using {@link HetznerCloud#provisionAhead(HetznerServerTemplate, int)}.
+ * <p>
+ * Histories are persisted in <code>JENKINS_HOME</code>, so that weekly patterns survive restarts.
+ * Accuracy is reported as <code>forecast.hits</code>, <code>forecast.overshoot</code>
+ * and <code>forecast.undershoot</code> counters (in executors).
+ */
+@Extension
+@Symbol("DemandForecaster")
+@Slf4j
+public class DemandForecaster extends PeriodicWork {
+    private static final String PREFIX = DemandForecaster.class.getName();
+    private static final long PERIOD_MILLIS = SystemProperties.getLong(PREFIX + ".periodMillis", 60_000L);
+    /**
+     * Lookahead is measured boot time of template multiplied by this factor.
+     */
+    private static final double LOOKAHEAD_FACTOR = Double.parseDouble(
+            SystemProperties.getString(PREFIX + ".lookaheadFactor", "1.0"));
+    /**
+     * Boot time assumed until first agent of template comes online.
+     */
+    private static final long DEFAULT_BOOT_MILLIS = SystemProperties.getLong(PREFIX + ".defaultBootMillis",
+            TimeUnit.MINUTES.toMillis(2));
+    private static final int MAX_LABELS = SystemProperties.getInteger(PREFIX + ".maxLabels", 100);
+    private static final int MAX_AGENTS_PER_RUN = SystemProperties.getInteger(PREFIX + ".maxAgentsPerRun", 10);
+    private static final long SAVE_PERIOD_MILLIS = DemandHistory.SLOT_MILLIS;
+    private static final XStream2 XSTREAM = new XStream2();
+    private static final Counter HITS = PluginMetrics.counter("forecast.hits");
+    private static final Counter OVERSHOOT = PluginMetrics.counter("forecast.overshoot");
+    private static final Counter UNDERSHOOT = PluginMetrics.counter("forecast.undershoot");
+    private static final Counter PROVISIONED = PluginMetrics.counter("forecast.provisioned");
+
+    static {
+        XSTREAM.alias("demandHistory", DemandHistory.class);
+    }
+
+    /**
+     * Histories keyed by label expression, empty string stands for jobs without label.
+     */
+    private static final Map<String, DemandHistory> HISTORIES = new HashMap<>();
+    private static final ConcurrentMap<String, Long> BOOT_MILLIS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, AtomicInteger> PENDING_EXECUTORS = new ConcurrentHashMap<>();
+    private static boolean loaded;
+    private static long lastSaveMillis;
+
+    static {
+        PluginMetrics.probe("forecast.labels", () -> {
+            synchronized (HISTORIES) {
+                return HISTORIES.size();
+            }
+        });
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return PERIOD_MILLIS;
+    }
+
+    @Override
+    protected void doRun() {
+        final List<HetznerCloud> clouds = List.copyOf(OrphanedNodesCleaner.getHetznerClouds());
+        if (clouds.isEmpty()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final Map<String, Integer> queued = new HashMap<>();
+        for (Queue.BuildableItem item : Queue.getInstance().getBuildableItems()) {
+            queued.merge(key(item.getAssignedLabel()), 1, Integer::sum);
+        }
+        final Map<String, DemandHistory> snapshot;
+        synchronized (HISTORIES) {
+            load();
+            for (String key : queued.keySet()) {
+                if (!HISTORIES.containsKey(key) && HISTORIES.size() < MAX_LABELS
+                        && clouds.stream().anyMatch(cloud -> !templates(cloud, key).isEmpty())) {
+                    HISTORIES.put(key, new DemandHistory(ZoneId.systemDefault()));
+                }
+            }
+            for (Map.Entry<String, DemandHistory> entry : HISTORIES.entrySet()) {
+                report(entry.getValue().observeQueue(now, queued.getOrDefault(entry.getKey(), 0)));
+            }
+            snapshot = Map.copyOf(HISTORIES);
+            if (now - lastSaveMillis > SAVE_PERIOD_MILLIS) {
+                save();
+                lastSaveMillis = now;
+            }
+        }
+        if (Jenkins.get().isQuietingDown() || Jenkins.get().isTerminating()) {
+            return;
+        }
+        for (HetznerCloud cloud : clouds) {
+            if (!cloud.isPredictiveProvisioning()) {
+                continue;
+            }
+            snapshot.forEach((key, history) -> {
+                try {
+                    provisionAhead(cloud, key, history, queued.getOrDefault(key, 0), now);
+                } catch (Exception e) {
+                    // Catch-all to prevent killing this PeriodicWork timer.
+                    log.warn("Unable to provision ahead of demand for label '{}' in cloud '{}'", key, cloud.name, e);
+                }
+            });
+        }
+    }
+
+    private static void provisionAhead(HetznerCloud cloud, String key, DemandHistory history, int queued, long now) {
+        final List<HetznerServerTemplate> templates = templates(cloud, key);
+        if (templates.isEmpty()) {
+            return;
+        }
+        final HetznerServerTemplate template = HetznerCloud.pickTemplate(templates);
+        final long at = now + lookahead(cloud.name, template.getName());
+        final int predicted;
+        synchronized (HISTORIES) {
+            predicted = history.forecast(at);
+            history.recordPrediction(at, predicted);
+        }
+        final AtomicInteger pending = PENDING_EXECUTORS.computeIfAbsent(key, k -> new AtomicInteger());
+        final int agents = agentsToProvision(predicted, idleExecutors(label(key)), queued, pending.get(),
+                template.getNumExecutors());
+        if (agents <= 0) {
+            return;
+        }
+        log.info("Predicted demand for label '{}' is {} executors, provisioning {} agents of template '{}' ahead",
+                key, predicted, agents, template.getName());
+        cloud.provisionAhead(template, agents).forEach(future -> {
+            pending.addAndGet(template.getNumExecutors());
+            PROVISIONED.inc();
+            future.whenComplete((node, error) -> {
+                pending.addAndGet(-template.getNumExecutors());
+                if (error != null) {
+                    log.warn("Unable to provision agent of template '{}' ahead of demand", template.getName(), error);
+                }
+            });
+        });
+    }
+
+    /**
+     * Compute number of agents to provision ahead of demand.
+     *
+     * @param predicted         predicted number of executors needed
+     * @param idle              idle executors that can serve label
+     * @param queued            items waiting in queue, {@link hudson.slaves.NodeProvisioner} provisions for them
+     * @param pending           executors of agents provisioned ahead earlier, which are not online yet
+     * @param executorsPerAgent number of executors of each agent
+     * @return number of agents
+     */
+    @VisibleForTesting
+    static int agentsToProvision(int predicted, int idle, int queued, int pending, int executorsPerAgent) {
+        final int missing = predicted - idle - queued - pending;
+        if (missing <= 0) {
+            return 0;
+        }
+        final int perAgent = Math.max(1, executorsPerAgent);
+        return Math.min(MAX_AGENTS_PER_RUN, (missing + perAgent - 1) / perAgent);
+    }
+
+    /**
+     * Record how long it took for agent of template to come online, exponentially weighted with previous values.
+     *
+     * @param cloudName    name of cloud
+     * @param templateName name of template
+     * @param millis       time from start of provisioning until agent connected
+     */
+    static void recordBootTime(String cloudName, String templateName, long millis) {
+        BOOT_MILLIS.merge(WarmPool.key(cloudName, templateName), millis,
+                (previous, current) -> (long) (previous + DemandHistory.ALPHA * (current - previous)));
+    }
+
+    @VisibleForTesting
+    static long lookahead(String cloudName, String templateName) {
+        return (long) (BOOT_MILLIS.getOrDefault(WarmPool.key(cloudName, templateName), DEFAULT_BOOT_MILLIS)
+                * LOOKAHEAD_FACTOR);
+    }
+
+    private static List<HetznerServerTemplate> templates(HetznerCloud cloud, String key) {
+        return HetznerCloud.getTemplates(cloud.getServerTemplates(), label(key));
+    }
+
+    private static int idleExecutors(Label label) {
+        int idle = 0;
+        for (Computer computer : Jenkins.get().getComputers()) {
+            final Node node = computer.getNode();
+            if (node != null && computer.isOnline() && !computer.isTemporarilyOffline()
+                    && (label == null ? node.getMode() == Node.Mode.NORMAL : label.contains(node))) {
+                idle += computer.countIdle();
+            }
+        }
+        return idle;
+    }
+
+    private static String key(Label label) {
+        return label == null ? "" : label.getExpression();
+    }
+
+    private static Label label(String key) {
+        return key.isEmpty() ? null : Jenkins.get().getLabel(key);
+    }
+
+    private static void report(DemandHistory.Outcome outcome) {
+        if (outcome != null) {
+            HITS.add(outcome.hits());
+            OVERSHOOT.add(outcome.overshoot());
+            UNDERSHOOT.add(outcome.undershoot());
+        }
+    }
+
+    private static XmlFile getFile() {
+        return new XmlFile(XSTREAM, new File(Jenkins.get().getRootDir(), PREFIX + ".xml"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        final XmlFile file = getFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            HISTORIES.putAll((Map<String, DemandHistory>) file.read());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to load demand history from {}", file, e);
+        }
+    }
+
+    private static void save() {
+        try {
+            getFile().write(new HashMap<>(HISTORIES));
+        } catch (IOException e) {
+            log.warn("Unable to save demand history", e);
+        }
+    }
+
+    /**
+     * Counts build starts of tracked labels.
+     */
+    @Extension
+    public static final class StartListener extends QueueListener {
+        @Override
+        public void onLeft(Queue.LeftItem li) {
+            if (li.isCancelled()) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            synchronized (HISTORIES) {
+                final DemandHistory history = HISTORIES.get(key(li.getAssignedLabel()));
+                if (history != null) {
+                    report(history.observeStart(now));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact time series of demand for executors of single label, used by {@link DemandForecaster}.
+ * <p>
+ * Time is divided into 15-minute slots. Demand observed in slot (peak of queue length or number of builds started,
+ * whichever is higher) is folded into exponentially weighted averages kept for every slot of day and every slot
+ * of week, so that history of label takes just few kilobytes regardless of how long it has been observed.
+ * Weekly average is preferred once it has seen enough samples, daily average is used until then.
+ * <p>
+ * Instances are not thread-safe, {@link DemandForecaster} guards them.
+ */
+final class DemandHistory {
+    static final long SLOT_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    static final int DAY_SLOTS = (int) (TimeUnit.DAYS.toMillis(1) / SLOT_MILLIS);
+    static final int WEEK_SLOTS = 7 * DAY_SLOTS;
+    /**
+     * Weight of newest sample in averages.
+     */
+    static final float ALPHA = 0.3f;
+    /**
+     * Number of samples that slot needs before its average is trusted.
+     */
+    static final int MIN_SAMPLES = 2;
+
+    /**
+     * Comparison of what was predicted for slot with what was observed.
+     *
+     * @param hits       executors predicted and actually needed
+     * @param overshoot  executors predicted, but not needed
+     * @param undershoot executors needed, but not predicted
+     */
+    record Outcome(int hits, int overshoot, int undershoot) {
+    }
+
+    private final float[] daily = new float[DAY_SLOTS];
+    private final short[] dailySamples = new short[DAY_SLOTS];
+    private final float[] weekly = new float[WEEK_SLOTS];
+    private final short[] weeklySamples = new short[WEEK_SLOTS];
+    private transient ZoneId zone;
+    private transient long currentSlot = -1;
+    private transient int peakQueue;
+    private transient int starts;
+    /**
+     * Predictions made for upcoming slots, keyed by absolute slot number.
+     */
+    private transient TreeMap<Long, Integer> predictions;
+
+    DemandHistory(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    private Object readResolve() {
+        zone = ZoneId.systemDefault();
+        currentSlot = -1;
+        return this;
+    }
+
+    /**
+     * Record length of queue for label.
+     *
+     * @param nowMillis   current time
+     * @param queueLength number of buildable items waiting for label
+     * @return outcome of prediction for slot which has just ended, or <code>null</code>
+     */
+    Outcome observeQueue(long nowMillis, int queueLength) {
+        final Outcome outcome = roll(nowMillis);
+        peakQueue = Math.max(peakQueue, queueLength);
+        return outcome;
+    }
+
+    /**
+     * Record start of build for label.
+     *
+     * @param nowMillis current time
+     * @return outcome of prediction for slot which has just ended, or <code>null</code>
+     */
+    Outcome observeStart(long nowMillis) {
+        final Outcome outcome = roll(nowMillis);
+        starts++;
+        return outcome;
+    }
+
+    /**
+     * Forecast demand at given time.
+     *
+     * @param atMillis time of interest
+     * @return expected number of executors needed, <code>0</code> if history is not conclusive yet
+     */
+    int forecast(long atMillis) {
+        final int weekSlot = slotOfWeek(atMillis);
+        if (weeklySamples[weekSlot] >= MIN_SAMPLES) {
+            return Math.round(weekly[weekSlot]);
+        }
+        final int daySlot = weekSlot % DAY_SLOTS;
+        if (dailySamples[daySlot] >= MIN_SAMPLES) {
+            return Math.round(daily[daySlot]);
+        }
+        return 0;
+    }
+
+    /**
+     * Remember prediction, so that it can be compared with reality once its slot is over.
+     * Repeated predictions for the same slot keep the highest value.
+     *
+     * @param atMillis  time prediction is made for
+     * @param executors predicted number of executors
+     */
+    void recordPrediction(long atMillis, int executors) {
+        if (predictions == null) {
+            predictions = new TreeMap<>();
+        }
+        predictions.merge(atMillis / SLOT_MILLIS, executors, Math::max);
+    }
+
+    private Outcome roll(long nowMillis) {
+        final long slot = nowMillis / SLOT_MILLIS;
+        if (slot == currentSlot) {
+            return null;
+        }
+        Outcome outcome = null;
+        if (currentSlot >= 0) {
+            final int demand = Math.max(peakQueue, starts);
+            fold(currentSlot * SLOT_MILLIS, demand);
+            final Integer predicted = predictions == null ? null : predictions.remove(currentSlot);
+            if (predicted != null) {
+                final int hits = Math.min(predicted, demand);
+                outcome = new Outcome(hits, predicted - hits, demand - hits);
+            }
+        }
+        if (predictions != null) {
+            // predictions for slots which were never observed (e.g. Jenkins was down) can't be evaluated
+            predictions.headMap(slot).clear();
+        }
+        currentSlot = slot;
+        peakQueue = 0;
+        starts = 0;
+        return outcome;
+    }
+
+    private void fold(long slotMillis, int demand) {
+        final int weekSlot = slotOfWeek(slotMillis);
+        final int daySlot = weekSlot % DAY_SLOTS;
+        daily[daySlot] = average(daily[daySlot], dailySamples[daySlot], demand);
+        dailySamples[daySlot] = (short) Math.min(Short.MAX_VALUE, dailySamples[daySlot] + 1);
+        weekly[weekSlot] = average(weekly[weekSlot], weeklySamples[weekSlot], demand);
+        weeklySamples[weekSlot] = (short) Math.min(Short.MAX_VALUE, weeklySamples[weekSlot] + 1);
+    }
+
+    private static float average(float current, int samples, int value) {
+        return samples == 0 ? value : current + ALPHA * (value - current);
+    }
+
+    private int slotOfWeek(long millis) {
+        final ZonedDateTime time = Instant.ofEpochMilli(millis).atZone(zone);
+        final int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        return (time.getDayOfWeek().getValue() - 1) * DAY_SLOTS
+                + (int) (TimeUnit.MINUTES.toMillis(minuteOfDay) / SLOT_MILLIS);
+    }
+}
@@ -18,11 +18,19 @@ package cloud.dnation.jenkins.plugins.hetzner;
 import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.trilead.ssh2.crypto.PEMDecoder;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
+import hudson.model.Node;
 import hudson.security.ACL;
 import jenkins.model.Jenkins;
 import lombok.Getter;
@@ -47,9 +55,12 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -207,8 +218,12 @@ public class Helper {
      * @return list of all {@link HetznerServerAgent} nodes
      */
     public static List<HetznerServerAgent> getHetznerAgents() {
-        return Jenkins.get().getNodes()
-                .stream()
+        return getHetznerAgents(Jenkins.get().getNodes());
+    }
+
+    @VisibleForTesting
+    static List<HetznerServerAgent> getHetznerAgents(Collection<? extends Node> nodes) {
+        return nodes.stream()
                 .filter(HetznerServerAgent.class::isInstance)
                 .map(HetznerServerAgent.class::cast)
                 .collect(Collectors.toList());
@@ -232,6 +247,51 @@ public class Helper {
         return null;
     }
 
+    /**
+     * Parse names of request fields which failed validation from an API error response body.
+     * Expected format: {"error":{"code":"invalid_input","details":{"fields":[{"name":"image","messages":[...]}]}}}
+     *
+     * @param errorBody raw response body string (may be null)
+     * @return names of fields, empty if there are none or body is unparseable
+     */
+    public static Set<String> parseHetznerErrorFields(String errorBody) {
+        final JsonObject error = parseHetznerError(errorBody);
+        if (error == null || !(error.get("details") instanceof JsonObject details)
+                || !(details.get("fields") instanceof JsonArray fields)) {
+            return Set.of();
+        }
+        final Set<String> result = new HashSet<>();
+        for (JsonElement field : fields) {
+            if (field instanceof JsonObject object && object.get("name") instanceof JsonPrimitive name) {
+                result.add(name.getAsString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parse the error message from an API error response body.
+     *
+     * @param errorBody raw response body string (may be null)
+     * @return the error message, or null if unparseable
+     */
+    public static String parseHetznerErrorMessage(String errorBody) {
+        final JsonObject error = parseHetznerError(errorBody);
+        return error != null && error.get("message") instanceof JsonPrimitive message ? message.getAsString() : null;
+    }
+
+    private static JsonObject parseHetznerError(String errorBody) {
+        if (Strings.isNullOrEmpty(errorBody)) {
+            return null;
+        }
+        try {
+            return JsonParser.parseString(errorBody) instanceof JsonObject body
+                    && body.get("error") instanceof JsonObject error ? error : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
     private static final Pattern HETZNER_ERROR_CODE_RE =
             Pattern.compile("\"error\"\\s*:\\s*\\{[^}]*\"code\"\\s*:\\s*\"([^\"]+)\"");
 
@@ -15,13 +15,13 @@
  */
 package cloud.dnation.jenkins.plugins.hetzner;
 
+import cloud.dnation.hetznerclient.ServerDetail;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
-import com.google.common.primitives.Ints;
+import com.google.common.annotations.VisibleForTesting;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
-import hudson.model.Computer;
 import hudson.model.Descriptor;
 import hudson.model.Item;
 import hudson.model.Label;
@@ -35,7 +35,7 @@ import hudson.util.ListBoxModel;
 import java.util.Objects;
 import jenkins.model.Jenkins;
 import lombok.Getter;
-import lombok.SneakyThrows;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.RandomStringUtils;
 import org.jenkinsci.plugins.cloudstats.ProvisioningActivity;
@@ -55,6 +55,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -65,6 +66,17 @@ public class HetznerCloud extends AbstractCloudImpl {
     private List<HetznerServerTemplate> serverTemplates;
     @Getter
     private transient HetznerCloudResourceManager resourceManager;
+    /**
+     * Shared by all instances of cloud with same name, see {@link CloudServers}.
+     */
+    private transient CloudServers servers;
+
+    /**
+     * Whether agents are provisioned ahead of demand predicted by {@link DemandForecaster}.
+     */
+    @Getter
+    @Setter(onMethod = @__({@DataBoundSetter}))
+    private boolean predictiveProvisioning;
 
     @DataBoundConstructor
     public HetznerCloud(String name, String credentialsId, String instanceCapStr,
@@ -81,7 +93,8 @@ public class HetznerCloud extends AbstractCloudImpl {
      * @param matchingTemplates List of all matching templates.
      * @return picked template
      */
-    private static HetznerServerTemplate pickTemplate(List<HetznerServerTemplate> matchingTemplates) {
+    @VisibleForTesting
+    static HetznerServerTemplate pickTemplate(List<HetznerServerTemplate> matchingTemplates) {
         if (matchingTemplates.size() == 1) {
             return matchingTemplates.get(0);
         }
@@ -98,6 +111,7 @@ public class HetznerCloud extends AbstractCloudImpl {
 
     protected Object readResolve() {
         resourceManager = HetznerCloudResourceManager.create(credentialsId);
+        servers = CloudServers.forCloud(name, resourceManager);
         if (serverTemplates == null) {
             setServerTemplates(Collections.emptyList());
         }
@@ -108,12 +122,28 @@ public class HetznerCloud extends AbstractCloudImpl {
         return this;
     }
 
-    @SneakyThrows
-    private int runningNodeCount() {
-        return Ints.checkedCast(resourceManager.fetchAllServers(name)
-                .stream()
-                .filter(sd -> HetznerConstants.RUNNABLE_STATE_SET.contains(sd.getStatus()))
-                .count());
+    ServerInventory getInventory() {
+        return servers.getInventory();
+    }
+
+    CapacityLedger getCapacityLedger() {
+        return servers.getCapacityLedger();
+    }
+
+    /**
+     * Destroy server and remove it from inventory once it's gone.
+     *
+     * @param server server to destroy
+     * @param mode   how server is torn down
+     * @return future completed once server is deleted
+     */
+    CompletableFuture<Void> destroyServer(ServerDetail server, TeardownMode mode) {
+        return resourceManager.destroyServer(server, mode).whenComplete((ignored, error) -> {
+            if (error == null) {
+                getInventory().remove(server.getId());
+                getCapacityLedger().recount();
+            }
+        });
     }
 
     @Override
@@ -123,51 +153,108 @@ public class HetznerCloud extends AbstractCloudImpl {
         final Label label = state.getLabel();
         final List<HetznerServerTemplate> matchingTemplates = getTemplates(label);
         final Jenkins jenkinsInstance = Jenkins.get();
+        final ProvisioningBatch batch = new ProvisioningBatch();
         try {
             while (excessWorkload > 0) {
                 if (jenkinsInstance.isQuietingDown() || jenkinsInstance.isTerminating()) {
                     log.warn("Jenkins is going down, no new nodes will be provisioned");
                     break;
                 }
-                int running = runningNodeCount();
-                int instanceCap = getInstanceCap();
-                int available = instanceCap - running;
-                final HetznerServerTemplate template = pickTemplate(matchingTemplates);
-                log.info("Creating new agent with {} executors, have {} running VMs", template.getNumExecutors(), running);
-                if (available <= 0) {
-                    log.warn("Cloud capacity reached ({}). Has {} VMs running, but want {} more executors",
-                            instanceCap, running , excessWorkload);
+                final int instanceCap = getInstanceCap();
+                final CapacityLedger.Reservation reservation = getCapacityLedger().tryReserve(instanceCap);
+                if (reservation == null) {
+                    log.warn("Cloud capacity reached ({}). Has {}, but want {} more executors",
+                            instanceCap, getCapacityLedger(), excessWorkload);
                     break;
-                } else {
-                    final String serverName = template.generateNodeName();
-                    final ProvisioningActivity.Id provisioningId = new ProvisioningActivity.Id(name, template.getName(),
-                            serverName);
-                    final HetznerServerAgent agent = template.createAgent(provisioningId, serverName);
-                    agent.setMode(template.getMode());
+                }
+                final HetznerServerTemplate template = pickTemplate(matchingTemplates);
+                log.info("Creating new agent with {} executors, have {}", template.getNumExecutors(), getCapacityLedger());
+                try {
+                    final HetznerServerAgent agent = newAgent(template);
+                    batch.add();
                     plannedNodes.add(new TrackedPlannedNode(
-                                    provisioningId,
+                                    agent.getId(),
                                     agent.getNumExecutors(),
-                                    Computer.threadPoolForRemoting.submit(new NodeCallable(agent, this)
-                                    )
+                                    new ProvisioningPipeline(agent, this, reservation, batch).start()
                             )
                     );
                     excessWorkload -= agent.getNumExecutors();
+                } catch (IOException | Descriptor.FormException | RuntimeException e) {
+                    reservation.close();
+                    throw e;
                 }
             }
 
         } catch (IOException | Descriptor.FormException e) {
             log.error("Unable to provision node", e);
+        } finally {
+            batch.seal();
         }
         return plannedNodes;
     }
 
+    /**
+     * Provision agents ahead of demand, e.g. for warm pool or predicted workload. Unlike
+     * {@link #provision(CloudState, int)}, this happens outside of {@link hudson.slaves.NodeProvisioner},
+     * there is no pending workload to account agents against.
+     *
+     * @param template template to provision agents from
+     * @param count    number of agents to provision
+     * @return futures of agents being provisioned, fewer than requested if capacity of cloud is reached
+     */
+    List<CompletableFuture<Node>> provisionAhead(HetznerServerTemplate template, int count) {
+        final List<CompletableFuture<Node>> result = new ArrayList<>();
+        final ProvisioningBatch batch = new ProvisioningBatch();
+        for (int i = 0; i < count; i++) {
+            final CapacityLedger.Reservation reservation = getCapacityLedger().tryReserve(getInstanceCap());
+            if (reservation == null) {
+                log.info("Cloud capacity reached ({}), {} agents of template '{}' not provisioned ahead of demand",
+                        getInstanceCap(), count - i, template.getName());
+                break;
+            }
+            try {
+                final ProvisioningPipeline pipeline = new ProvisioningPipeline(newAgent(template), this, reservation,
+                        batch);
+                batch.add();
+                result.add(pipeline.start());
+            } catch (IOException | Descriptor.FormException | RuntimeException e) {
+                reservation.close();
+                log.error("Unable to provision agent of template '{}' ahead of demand", template.getName(), e);
+                break;
+            }
+        }
+        batch.seal();
+        return result;
+    }
+
+    private HetznerServerAgent newAgent(HetznerServerTemplate template) throws IOException, Descriptor.FormException {
+        final String serverName = template.generateNodeName();
+        final ProvisioningActivity.Id provisioningId = new ProvisioningActivity.Id(name, template.getName(),
+                serverName);
+        final HetznerServerAgent agent = template.createAgent(provisioningId, serverName);
+        agent.setMode(template.getMode());
+        return agent;
+    }
+
     @Override
     public boolean canProvision(CloudState state) {
         return !getTemplates(state.getLabel()).isEmpty();
     }
 
     private List<HetznerServerTemplate> getTemplates(Label label) {
-        return serverTemplates.stream().filter(t -> {
+        return getTemplates(serverTemplates, label);
+    }
+
+    /**
+     * Get templates which can be used to provision agent for given label.
+     *
+     * @param templates all templates of cloud
+     * @param label     requested label, might be <code>null</code>
+     * @return matching templates
+     */
+    @VisibleForTesting
+    static List<HetznerServerTemplate> getTemplates(List<HetznerServerTemplate> templates, Label label) {
+        return templates.stream().filter(t -> {
                     //no labels has been provided in template
                     if (t.getLabels().isEmpty()) {
                         return Node.Mode.NORMAL.equals(t.getMode());
@@ -16,8 +16,6 @@
 package cloud.dnation.jenkins.plugins.hetzner;
 
 import cloud.dnation.hetznerclient.AbstractSearchResponse;
-import cloud.dnation.hetznerclient.ClientFactory;
-import cloud.dnation.hetznerclient.CreateServerFirewallsRequest;
 import cloud.dnation.hetznerclient.CreateServerRequest;
 import cloud.dnation.hetznerclient.CreateServerResponse;
 import cloud.dnation.hetznerclient.CreateSshKeyRequest;
@@ -30,33 +28,34 @@ import cloud.dnation.hetznerclient.GetServerByIdResponse;
 import cloud.dnation.hetznerclient.GetSshKeysBySelectorResponse;
 import cloud.dnation.hetznerclient.HetznerApi;
 import cloud.dnation.hetznerclient.IdentifiableResource;
-import cloud.dnation.hetznerclient.PagedResourceHelper;
 import cloud.dnation.hetznerclient.PublicNetRequest;
 import cloud.dnation.hetznerclient.ServerDetail;
 import cloud.dnation.hetznerclient.SshKeyDetail;
+import cloud.dnation.jenkins.plugins.hetzner.LabelResolutionCache.ResourceType;
 import cloud.dnation.jenkins.plugins.hetzner.connect.ConnectivityType;
+import cloud.dnation.jenkins.plugins.hetzner.primaryip.PrimaryIpReservations;
 import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.util.Secret;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import retrofit2.Call;
 import retrofit2.Response;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -70,15 +69,20 @@ import static cloud.dnation.jenkins.plugins.hetzner.HetznerConstants.LABEL_VALUE
 @RequiredArgsConstructor
 @Slf4j
 public class HetznerCloudResourceManager {
+    /**
+     * Fields of create request which refer to resources whose IDs are cached. Validation error of any other field
+     * (e.g. unknown server type) is error in configuration, which can't be fixed by retry.
+     */
+    private static final Set<String> REFERENCE_FIELDS = Set.of("image", "ssh_keys", "networks", "firewalls",
+            "placement_group");
     @NonNull
     private final String credentialsId;
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     public static HetznerCloudResourceManager create(String credentialsId) {
         return new HetznerCloudResourceManager(credentialsId);
     }
 
-    private static Map<String, String> createLabelsForServer(String cloudName) {
+    static Map<String, String> createLabelsForServer(String cloudName) {
         final LinkedHashMap<String, String> ret = new LinkedHashMap<>();
         ret.put(HetznerConstants.LABEL_MANAGED_BY, LABEL_VALUE_PLUGIN);
         ret.put(HetznerConstants.LABEL_CLOUD_NAME, cloudName);
@@ -105,22 +109,27 @@ public class HetznerCloudResourceManager {
                 .collect(Collectors.joining(","));
     }
 
-    private HetznerApi proxy() {
-        return ClientFactory.create(JenkinsSecretTokenProvider.forCredentialsId(credentialsId));
+    private SharedApiClient client() {
+        return SharedApiClient.forCredentialsId(credentialsId);
+    }
+
+    private HetznerApi proxy(ApiPriority priority) {
+        return client().getApi(priority);
     }
 
     /**
      * Attempt to obtain image ID based on label expression.
      * It's expected that provided label expression resolves to single image.
      *
+     * @param priority        priority of API call
      * @param labelExpression label expression used to filter image
      * @return image ID
      * @throws IOException              if fails to make API call
      * @throws IllegalStateException    if there was invalid response from API server
      * @throws IllegalArgumentException if label expression didn't yield single image
      */
-    private long getImageIdForLabelExpression(String labelExpression) throws IOException {
-        return searchResourceByLabelExpression(labelExpression, proxy()::getImagesBySelector,
+    private long getImageIdForLabelExpression(ApiPriority priority, String labelExpression) throws IOException {
+        return searchResourceByLabelExpression(labelExpression, proxy(priority)::getImagesBySelector,
                 GetImagesBySelectorResponse::getImages);
     }
 
@@ -128,14 +137,15 @@ public class HetznerCloudResourceManager {
      * Attempt to obtain network ID based on label expression.
      * It's expected that provided label expression resolves to single network.
      *
+     * @param priority        priority of API call
      * @param labelExpression label expression used to filter network
      * @return network ID
      * @throws IOException              if fails to make API call
      * @throws IllegalStateException    if there was invalid response from API server
      * @throws IllegalArgumentException if label expression didn't yield single network
      */
-    private long getNetworkIdForLabelExpression(String labelExpression) throws IOException {
-        return searchResourceByLabelExpression(labelExpression, proxy()::getNetworkBySelector,
+    private long getNetworkIdForLabelExpression(ApiPriority priority, String labelExpression) throws IOException {
+        return searchResourceByLabelExpression(labelExpression, proxy(priority)::getNetworkBySelector,
                 GetNetworksBySelectorResponse::getNetworks);
     }
 
@@ -143,14 +153,15 @@ public class HetznerCloudResourceManager {
      * Attempt to obtain firewall ID based on label expression.
      * It's expected that provided label expression resolves to single firewall.
      *
+     * @param priority        priority of API call
      * @param labelExpression label expression used to filter firewall
      * @return firewall ID
      * @throws IOException              if fails to make API call
      * @throws IllegalStateException    if there was invalid response from API server
      * @throws IllegalArgumentException if label expression didn't yield single firewall
      */
-    private long getFirewallIdForLabelExpression(String labelExpression) throws IOException {
-        return searchResourceByLabelExpression(labelExpression, proxy()::getFirewallsBySelector,
+    private long getFirewallIdForLabelExpression(ApiPriority priority, String labelExpression) throws IOException {
+        return searchResourceByLabelExpression(labelExpression, proxy(priority)::getFirewallsBySelector,
                 GetFirewallsBySelectorResponse::getFirewalls);
     }
 
@@ -158,17 +169,149 @@ public class HetznerCloudResourceManager {
      * Attempt to obtain placement group based on label expression.
      * It's expected that provided label expression resolves to single placement group.
      *
+     * @param priority        priority of API call
      * @param labelExpression label expression used to filter placement group
      * @return placement group ID
      * @throws IOException              if fails to make API call
      * @throws IllegalStateException    if there was invalid response from API server
      * @throws IllegalArgumentException if label expression didn't yield single placement group
      */
-    private long getPlacementGroupForLabelExpression(String labelExpression) throws IOException {
-        return searchResourceByLabelExpression(labelExpression, proxy()::getPlacementGroups,
+    private long getPlacementGroupForLabelExpression(ApiPriority priority, String labelExpression) throws IOException {
+        return searchResourceByLabelExpression(labelExpression, proxy(priority)::getPlacementGroups,
                 GetPlacementGroupsResponse::getPlacementGroups);
     }
 
+    /**
+     * Resolve label expression into resource ID using API, without consulting cache.
+     *
+     * @param priority        priority of API call
+     * @param type            type of resource
+     * @param labelExpression label expression used to filter resource
+     * @return resource ID
+     * @throws IOException if fails to make API call
+     */
+    private long resolveLabelExpression(ApiPriority priority, ResourceType type, String labelExpression)
+            throws IOException {
+        switch (type) {
+            case IMAGE:
+                return getImageIdForLabelExpression(priority, labelExpression);
+            case NETWORK:
+                return getNetworkIdForLabelExpression(priority, labelExpression);
+            case FIREWALL:
+                return getFirewallIdForLabelExpression(priority, labelExpression);
+            case PLACEMENT_GROUP:
+                return getPlacementGroupForLabelExpression(priority, labelExpression);
+            default:
+                throw new IllegalArgumentException("Unknown resource type: " + type);
+        }
+    }
+
+    /**
+     * Resolve label expression into resource ID, using cached value if there is one.
+     *
+     * @param type            type of resource
+     * @param labelExpression label expression used to filter resource
+     * @return resource ID
+     * @throws IOException if fails to make API call
+     */
+    private long resolveCached(ResourceType type, String labelExpression) throws IOException {
+        return client().getLabelCache().get(type, labelExpression,
+                (t, e) -> resolveLabelExpression(ApiPriority.CREATE, t, e), this::resolveInBackground);
+    }
+
+    /**
+     * Resolve label expression ahead of create call, with lower priority than create calls.
+     */
+    private long resolveInBackground(ResourceType type, String labelExpression) throws IOException {
+        return resolveLabelExpression(ApiPriority.POLL, type, labelExpression);
+    }
+
+    /**
+     * Resolve all label expressions used by template in background, so that they are already cached
+     * when first server is created.
+     *
+     * @param template server template
+     */
+    public void prewarm(HetznerServerTemplate template) {
+        final LabelResolutionCache cache = client().getLabelCache();
+        if (Helper.isLabelExpression(Strings.nullToEmpty(template.getImage()))) {
+            cache.prewarm(ResourceType.IMAGE, template.getImage(), this::resolveInBackground);
+        }
+        if (isLabelReference(template.getNetwork())) {
+            cache.prewarm(ResourceType.NETWORK, template.getNetwork(), this::resolveInBackground);
+        }
+        if (isLabelReference(template.getFirewall())) {
+            cache.prewarm(ResourceType.FIREWALL, template.getFirewall(), this::resolveInBackground);
+        }
+        if (isLabelReference(template.getPlacementGroup())) {
+            cache.prewarm(ResourceType.PLACEMENT_GROUP, template.getPlacementGroup(), this::resolveInBackground);
+        }
+    }
+
+    /**
+     * Forget cached references of template which are named by failed create call.
+     *
+     * @param template   server template
+     * @param references fields of create request which refer to missing resources, see {@link #staleReferences}
+     * @return <code>true</code> if anything was removed from cache
+     */
+    private boolean invalidateCachedReferences(HetznerServerTemplate template, Set<String> references) {
+        final LabelResolutionCache cache = client().getLabelCache();
+        boolean removed = false;
+        if (references.contains("image")) {
+            removed |= cache.invalidate(ResourceType.IMAGE, template.getImage());
+        }
+        if (references.contains("networks")) {
+            removed |= isLabelReference(template.getNetwork())
+                    && cache.invalidate(ResourceType.NETWORK, template.getNetwork());
+        }
+        if (references.contains("firewalls")) {
+            removed |= isLabelReference(template.getFirewall())
+                    && cache.invalidate(ResourceType.FIREWALL, template.getFirewall());
+        }
+        if (references.contains("placement_group")) {
+            removed |= isLabelReference(template.getPlacementGroup())
+                    && cache.invalidate(ResourceType.PLACEMENT_GROUP, template.getPlacementGroup());
+        }
+        if (references.contains("ssh_keys")) {
+            removed |= SshKeyRegistry.invalidate(credentialsId, template.getConnector().getSshCredentialsId());
+        }
+        return removed;
+    }
+
+    /**
+     * Find references to resources that no longer exist, which might have caused failure of create call.
+     * Validation errors name such fields in details, <code>not_found</code> errors name resource in message.
+     *
+     * @param errorCode Hetzner error code
+     * @param errorBody raw response body
+     * @return fields of create request (see {@link #REFERENCE_FIELDS}) which refer to missing resources
+     */
+    @VisibleForTesting
+    static Set<String> staleReferences(String errorCode, String errorBody) {
+        if (!"not_found".equals(errorCode) && !"invalid_input".equals(errorCode)) {
+            return Set.of();
+        }
+        final Set<String> result = new HashSet<>(Helper.parseHetznerErrorFields(errorBody));
+        result.retainAll(REFERENCE_FIELDS);
+        if (result.isEmpty() && "not_found".equals(errorCode)) {
+            final String message = Strings.nullToEmpty(Helper.parseHetznerErrorMessage(errorBody))
+                    .toLowerCase(Locale.ROOT).replace('_', ' ');
+            for (String field : REFERENCE_FIELDS) {
+                // e.g. "ssh_keys" is called "SSH key" in message
+                final String name = field.replace('_', ' ').replaceAll("s$", "");
+                if (message.contains(name)) {
+                    result.add(field);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isLabelReference(String value) {
+        return !Strings.isNullOrEmpty(value) && !Helper.isPossiblyLong(value);
+    }
+
     private <R extends AbstractSearchResponse, I extends IdentifiableResource> long searchResourceByLabelExpression(
             String labelExpression,
             Function<String, Call<R>> searchFunction,
@@ -183,83 +326,69 @@ public class HetznerCloudResourceManager {
         return Iterables.getOnlyElement(items).getId();
     }
 
+    /**
+     * Destroy server using {@link HetznerConstants#DEFAULT_TEARDOWN_MODE}.
+     *
+     * @param server server instance to remove from cloud
+     * @return future which is completed once server is deleted
+     * @see #destroyServer(ServerDetail, TeardownMode)
+     */
+    public CompletableFuture<Void> destroyServer(ServerDetail server) {
+        return destroyServer(server, HetznerConstants.DEFAULT_TEARDOWN_MODE);
+    }
+
     /**
      * Destroy server.
+     * <p>
+     * Server is torn down and deleted asynchronously, so this method returns immediately.
+     * Failures are logged, server is then left to {@link OrphanedNodesCleaner}.
      *
      * @param server server instance to remove from cloud
+     * @param mode   how server is torn down
+     * @return future which is completed once server is deleted
      */
-    public void destroyServer(ServerDetail server) {
-        final long serverId = server.getId();
-        final HetznerApi client = proxy();
-        try {
-            // Initiate server power off
-            assertValidResponse(client.powerOffServer(serverId).execute());
-            log.info("Power off initiated for server with ID = {}, waiting for shutdown...", serverId);
-
-            // Wait for server to be fully powered off
-            boolean isShutdown = false;
-            int attempts = 0;
-            final int maxAttempts = 60; // Maximum wait time: 60 * 5s = 300s (5 minutes)
-
-            while (!isShutdown && attempts < maxAttempts) {
-                attempts++;
-                try {
-                    Thread.sleep(5000); // Wait 5 seconds between checks
-
-                    Response<GetServerByIdResponse> response = client.getServer(serverId).execute();
-                    if (response.isSuccessful() && response.body() != null
-                            && response.body().getServer() != null) {
-                        ServerDetail currentState = response.body().getServer();
-                        if ("off".equals(currentState.getStatus())) {
-                            isShutdown = true;
-                            log.info("Server with ID = {} is now powered off, proceeding with deletion", serverId);
-                        } else {
-                            log.debug("Server with ID = {} is still in '{}' status, waiting...",
-                                    serverId, currentState.getStatus());
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("Interrupted while waiting for server shutdown", e);
-                    break;
-                }
-            }
+    public CompletableFuture<Void> destroyServer(ServerDetail server, TeardownMode mode) {
+        return client().getDestroyer().destroy(server, mode);
+    }
 
-            if (!isShutdown) {
-                log.warn("Server with ID = {} did not power off within expected time, proceeding with deletion anyway", serverId);
-            }
+    /**
+     * Wait for action to finish. State of action is resolved together with all other tracked actions
+     * (see {@link ActionTracker}).
+     *
+     * @param actionId ID of action
+     * @param timeout  maximum time to wait
+     * @return future which is completed once action succeeds
+     */
+    public CompletableFuture<Void> awaitAction(long actionId, Duration timeout) {
+        return client().getActionTracker().track(actionId, timeout);
+    }
 
-            // Delete the server
-            assertValidResponse(client.deleteServer(serverId).execute());
-            log.info("Server with ID = {} successfully deleted", serverId);
-        } catch (Exception e) {
-            // Catch ALL exceptions (IOException, IllegalStateException from
-            // assertValidResponse on HTTP 429/412, and any other RuntimeException).
-            // This method is called from _terminate() and OrphanedNodesCleaner,
-            // both running inside periodic timers. An unchecked exception here
-            // kills the timer thread permanently, disabling idle cleanup for
-            // ALL nodes on this Jenkins instance.
-            // The OrphanedNodesCleaner will retry deletion on its next hourly run.
-            log.error("Unable to destroy server with ID = {} (name={}). "
-                    + "Server may become orphaned and will be retried by OrphanedNodesCleaner.",
-                    serverId, server.getName(), e);
-        }
+    /**
+     * Get future which is completed once all servers which are currently being destroyed are deleted.
+     *
+     * @return future
+     */
+    public CompletableFuture<Void> pendingDestroys() {
+        return client().getDestroyer().allPending();
     }
 
     /**
      * Get or create SSH key in cloud for given credentialsId derived from server template.
+     * Result is remembered in {@link SshKeyRegistry}, so API is consulted only on first use.
      *
      * @param template instance of {@link HetznerServerTemplate} to get credentialsId from
      * @return SshKeyDetail
      */
     private SshKeyDetail getOrCreateSshKey(HetznerServerTemplate template) throws IOException {
-        final HetznerApi client = proxy();
-        final String credentialsId = template.getConnector().getSshCredentialsId();
+        final BasicSSHUserPrivateKey privateKey = assertSshKey(template.getConnector().getSshCredentialsId());
+        return SshKeyRegistry.getOrRegister(credentialsId, privateKey, () -> lookupOrCreateSshKey(privateKey));
+    }
 
-        final BasicSSHUserPrivateKey privateKey = assertSshKey(credentialsId);
-        final Response<GetSshKeysBySelectorResponse> searchResponse = client.getSshKeysBySelector(
-                        buildLabelExpressionForSshKey(credentialsId))
-                .execute();
+    private SshKeyDetail lookupOrCreateSshKey(BasicSSHUserPrivateKey privateKey) throws IOException {
+        final HetznerApi api = proxy(ApiPriority.CREATE);
+        final String credentialsId = privateKey.getId();
+        final Response<GetSshKeysBySelectorResponse> searchResponse = api
+                .getSshKeysBySelector(buildLabelExpressionForSshKey(credentialsId)).execute();
         assertValidResponse(searchResponse);
         final List<SshKeyDetail> sshKeys = getPayload(searchResponse, GetSshKeysBySelectorResponse::getSshKeys);
         if (!sshKeys.isEmpty()) {
@@ -267,11 +396,11 @@ public class HetznerCloudResourceManager {
         }
         final String publicKey = getSSHPublicKeyFromPrivate(privateKey.getPrivateKey(),
                 Secret.toString(privateKey.getPassphrase()));
-        final Response<CreateSshKeyResponse> createResponse = proxy().createSshKey(new CreateSshKeyRequest()
+        final Response<CreateSshKeyResponse> createResponse = api
+                .createSshKey(new CreateSshKeyRequest()
                         .labels(createLabelsForSshKey(credentialsId))
-                        .name(template.getConnector().getSshCredentialsId())
-                        .publicKey(publicKey))
-                .execute();
+                        .name(credentialsId)
+                        .publicKey(publicKey)).execute();
         return assertValidResponse(createResponse, CreateSshKeyResponse::getSshKey);
     }
 
@@ -284,25 +413,12 @@ public class HetznerCloudResourceManager {
      * @throws IllegalStateException    if API call fails
      */
     public HetznerServerInfo refreshServerInfo(HetznerServerInfo info) throws IOException {
-        final Response<GetServerByIdResponse> response = proxy().getServer(info.getServerDetail().getId())
-                .execute();
+        final Response<GetServerByIdResponse> response = proxy(ApiPriority.POLL)
+                .getServer(info.getServerDetail().getId()).execute();
         info.setServerDetail(assertValidResponse(response, GetServerByIdResponse::getServer));
         return info;
     }
 
-    @SneakyThrows
-    private void configurePrivateNetwork(CreateServerRequest req, String network) {
-        if (!Strings.isNullOrEmpty(network)) {
-            final long networkId;
-            if (Helper.isPossiblyLong(network)) {
-                networkId = Long.parseLong(network);
-            } else {
-                networkId = getNetworkIdForLabelExpression(network);
-            }
-            req.setNetworks(Lists.newArrayList(networkId));
-        }
-    }
-
     @VisibleForTesting
     static void customizeNetworking(ConnectivityType ct, CreateServerRequest req, String network,
                              BiConsumer<CreateServerRequest, String> privateNetConfig) throws IOException {
@@ -339,95 +455,109 @@ public class HetznerCloudResourceManager {
         }
     }
 
+    private static String readErrorBody(Response<?> response) {
+        try {
+            if (response.errorBody() != null) {
+                return response.errorBody().string();
+            }
+        } catch (IOException ignored) {
+            // best effort
+        }
+        return null;
+    }
+
+    private CreateServerRequest buildCreateServerRequest(HetznerServerAgent agent, SshKeyDetail sshKey)
+            throws IOException {
+        final HetznerServerTemplate template = agent.getTemplate();
+        final ServerBlueprint blueprint = template.getBlueprint();
+        final CreateServerRequest createServerRequest = blueprint.newRequest(agent.getNodeName(), sshKey.getName(),
+                this::resolveCached);
+        if (blueprint.isPrimaryIpApplicable()) {
+            template.getPrimaryIp().apply(proxy(ApiPriority.CREATE), client().getListingApi(ApiPriority.CREATE),
+                    createServerRequest);
+        }
+        createServerRequest.setUserData(PhoneHome.withHook(createServerRequest.getUserData(), agent.getNodeName()));
+        return createServerRequest;
+    }
+
+    private Response<CreateServerResponse> requestServer(HetznerServerAgent agent, SshKeyDetail sshKey)
+            throws IOException {
+        final CreateServerRequest createServerRequest = buildCreateServerRequest(agent, sshKey);
+        log.debug("Calling API to create server resource : {}", createServerRequest);
+        try {
+            return proxy(ApiPriority.CREATE).createServer(createServerRequest).execute();
+        } finally {
+            // once create call returns, primary IP is either assigned or free again
+            if (createServerRequest.getPublicNet() != null && createServerRequest.getPublicNet().getIpv4() != null) {
+                PrimaryIpReservations.release(createServerRequest.getPublicNet().getIpv4());
+            }
+        }
+    }
+
     /**
      * Create new server instance.
+     * <p>
+     * This method is safe to be called concurrently. Only sections that can really conflict are guarded,
+     * that is registration of SSH key (see {@link SshKeyRegistry}) and choice of primary IP
+     * (see {@link PrimaryIpReservations}).
      *
      * @param agent agent instance
      * @return instance of {@link CreateServerResponse}
      */
     public HetznerServerInfo createServer(HetznerServerAgent agent) {
         try {
-            lock.writeLock().lock();
-            final SshKeyDetail sshKey = getOrCreateSshKey(agent.getTemplate());
-            final String imageId;
-            //check if image is label expression
-            if (agent.getTemplate().getImage().contains("=")) {
-                //if so, query image ID
-                imageId = String.valueOf(getImageIdForLabelExpression(agent.getTemplate().getImage()));
-            } else {
-                imageId = agent.getTemplate().getImage();
-            }
-
-            final CreateServerRequest createServerRequest = new CreateServerRequest();
-            if (agent.getTemplate().isAutomountVolumes()) {
-                createServerRequest.setAutomount(true);
-            }
-            if (!Strings.isNullOrEmpty(agent.getTemplate().getVolumeIds())) {
-                createServerRequest.setVolumes(Helper.idList(agent.getTemplate().getVolumeIds()));
-            }
-            final ConnectivityType ct = agent.getTemplate().getConnectivity().getType();
-            customizeNetworking(ct, createServerRequest, agent.getTemplate().getNetwork(),
-                    this::configurePrivateNetwork);
-            final String placementGroup = agent.getTemplate().getPlacementGroup();
-            if (!Strings.isNullOrEmpty(placementGroup)) {
-                if(Helper.isPossiblyLong(placementGroup)) {
-                    createServerRequest.setPlacementGroup(Long.parseLong(placementGroup));
-                } else {
-                    createServerRequest.setPlacementGroup(getPlacementGroupForLabelExpression(placementGroup));
-                }
-            }
-            final String firewall = agent.getTemplate().getFirewall();
-            if (!Strings.isNullOrEmpty(agent.getTemplate().getFirewall())) {
-                if(Helper.isPossiblyLong(firewall)) {
-                    createServerRequest.setFirewalls(List.of(new CreateServerFirewallsRequest().
-                            firewall(Long.parseLong(firewall))));
-                } else {
-                    createServerRequest.setFirewalls(List.of(new CreateServerFirewallsRequest().
-                            firewall(getFirewallIdForLabelExpression(firewall))));
-                }
-            }
-            if (!Strings.isNullOrEmpty(agent.getTemplate().getUserData())) {
-                createServerRequest.setUserData(agent.getTemplate().getUserData());
-            }
-            createServerRequest.setServerType(agent.getTemplate().getServerType());
-            createServerRequest.setImage(imageId);
-            createServerRequest.setName(agent.getNodeName());
-            createServerRequest.setSshKeys(Collections.singletonList(sshKey.getName()));
-            createServerRequest.setLocation(agent.getTemplate().getLocation());
-            createServerRequest.setLabels(createLabelsForServer(agent.getTemplate().getCloud().name));
-            if (ct == ConnectivityType.BOTH || ct == ConnectivityType.PUBLIC_V6 || ct == ConnectivityType.PUBLIC) {
-                Optional.of(agent.getTemplate().getPrimaryIp()).ifPresent(ip -> ip.apply(proxy(), createServerRequest));
-            }
-            log.debug("Calling API to create server resource : {}", createServerRequest);
-            final Response<CreateServerResponse> createServerResponse = proxy().createServer(createServerRequest)
-                    .execute();
+            SshKeyDetail sshKey = getOrCreateSshKey(agent.getTemplate());
+            Response<CreateServerResponse> createServerResponse = requestServer(agent, sshKey);
             if (!createServerResponse.isSuccessful()) {
-                String errorBody = null;
-                try {
-                    if (createServerResponse.errorBody() != null) {
-                        errorBody = createServerResponse.errorBody().string();
+                String errorBody = readErrorBody(createServerResponse);
+                String errorCode = Helper.parseHetznerErrorCode(errorBody);
+                // cached ID might be stale (e.g. image expression now resolves to newer snapshot
+                // or SSH key was removed from project), so refresh cached data once and try again
+                if (invalidateCachedReferences(agent.getTemplate(), staleReferences(errorCode, errorBody))) {
+                    log.warn("Server creation failed with code '{}', retrying with refreshed cached references",
+                            errorCode);
+                    sshKey = getOrCreateSshKey(agent.getTemplate());
+                    createServerResponse = requestServer(agent, sshKey);
+                    if (!createServerResponse.isSuccessful()) {
+                        errorBody = readErrorBody(createServerResponse);
+                        errorCode = Helper.parseHetznerErrorCode(errorBody);
                     }
-                } catch (IOException ignored) {
-                    // best effort
                 }
-                String errorCode = Helper.parseHetznerErrorCode(errorBody);
-                throw new IllegalStateException(
-                        String.format("Hetzner API error creating server: HTTP %d, code=%s, body=%s",
-                                createServerResponse.code(), errorCode, errorBody));
+                if (!createServerResponse.isSuccessful()) {
+                    throw new IllegalStateException(
+                            String.format("Hetzner API error creating server: HTTP %d, code=%s, body=%s",
+                                    createServerResponse.code(), errorCode, errorBody));
+                }
             }
             final HetznerServerInfo info = new HetznerServerInfo(sshKey);
             info.setServerDetail(assertValidResponse(createServerResponse, CreateServerResponse::getServer));
+            info.setCreateActionId(ActionTracker.extractActionId(createServerResponse.body()));
             return info;
         } catch (IOException e) {
             throw new IllegalStateException(e);
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
     public List<ServerDetail> fetchAllServers(String cloudName) throws IOException {
-        final String selector = createLabelsForServer(cloudName).entrySet().stream().map(e -> e.getKey() + "=" + e.getValue())
+        return fetchAllServers(cloudName, ApiPriority.POLL);
+    }
+
+    /**
+     * Fetch all servers that belong to given cloud. Pages are fetched concurrently.
+     *
+     * @param cloudName name of cloud
+     * @param priority  priority of API calls
+     * @return list of servers, only fields listed in {@link PagedListing#SERVER_FIELDS} are populated
+     * @throws IOException if API call fails
+     */
+    public List<ServerDetail> fetchAllServers(String cloudName, ApiPriority priority) throws IOException {
+        return client().fetchAll(priority, "servers", serverSelector(cloudName), ServerDetail.class,
+                PagedListing.SERVER_FIELDS);
+    }
+
+    private static String serverSelector(String cloudName) {
+        return createLabelsForServer(cloudName).entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
                 .collect(Collectors.joining(","));
-        return PagedResourceHelper.getAllServers(proxy(), selector);
     }
 }
@@ -54,6 +54,11 @@ public class HetznerConstants {
      */
     public static final String LABEL_VALUE_PLUGIN = "hetzner-jenkins-plugin";
 
+    /**
+     * Base URL of Hetzner Cloud API.
+     */
+    public static final String API_BASE_URL = "https://api.hetzner.cloud/v1/";
+
     /**
      * Default remote working directory.
      */
@@ -93,4 +98,14 @@ public class HetznerConstants {
      * Default networking setup.
      */
     public static final AbstractConnectivity DEFAULT_CONNECTIVITY = new Both();
+
+    /**
+     * Default teardown mode, also used for orphaned servers which don't belong to any template.
+     */
+    public static final TeardownMode DEFAULT_TEARDOWN_MODE = TeardownMode.POWER_OFF_AND_WAIT;
+
+    /**
+     * Default number of minutes without any build after which warm pool is drained.
+     */
+    public static final int DEFAULT_WARM_POOL_QUIET_MINUTES = 60;
 }
@@ -15,6 +15,7 @@
  */
 package cloud.dnation.jenkins.plugins.hetzner;
 
+import cloud.dnation.hetznerclient.ServerDetail;
 import cloud.dnation.jenkins.plugins.hetzner.launcher.HetznerServerComputerLauncher;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
@@ -37,6 +38,7 @@ import org.jenkinsci.plugins.cloudstats.TrackedItem;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 public class HetznerServerAgent extends AbstractCloudSlave implements EphemeralNode, TrackedItem {
@@ -59,6 +61,7 @@ public class HetznerServerAgent extends AbstractCloudSlave implements EphemeralN
     @Getter(AccessLevel.PUBLIC)
     @Setter(AccessLevel.PACKAGE)
     private transient volatile HetznerServerInfo serverInstance;
+    private transient CompletableFuture<Void> destruction;
 
     public HetznerServerAgent(@NonNull ProvisioningActivity.Id provisioningId,
                               @NonNull String name, String remoteFS, ComputerLauncher launcher,
@@ -72,7 +75,11 @@ public class HetznerServerAgent extends AbstractCloudSlave implements EphemeralN
         setLabelString(template.getLabelStr());
         setNumExecutors(template.getNumExecutors());
         setMode(template.getMode() == null ? Mode.EXCLUSIVE : template.getMode());
-        setRetentionStrategy(template.getShutdownPolicy().getRetentionStrategy());
+        if (template.getWarmPoolSize() > 0) {
+            setRetentionStrategy(new WarmPool.Retention(template.getShutdownPolicy().getRetentionStrategy()));
+        } else {
+            setRetentionStrategy(template.getShutdownPolicy().getRetentionStrategy());
+        }
         readResolve();
     }
 
@@ -121,7 +128,10 @@ public class HetznerServerAgent extends AbstractCloudSlave implements EphemeralN
                         + "(transient field lost after Jenkins restart). "
                         + "Server will be cleaned up by OrphanedNodesCleaner.", getNodeName());
             } else {
-                cloud.getResourceManager().destroyServer(serverInstance.getServerDetail());
+                // template is transient as well, fall back to default teardown after restart
+                final TeardownMode mode = template != null && template.getTeardownMode() != null
+                        ? template.getTeardownMode() : HetznerConstants.DEFAULT_TEARDOWN_MODE;
+                destroyServer(mode);
             }
         } catch (Exception e) {
             // Log but do NOT propagate. An unchecked exception here kills
@@ -143,6 +153,19 @@ public class HetznerServerAgent extends AbstractCloudSlave implements EphemeralN
         }
     }
 
+    /**
+     * Start destruction of server backing this agent, unless it was already started.
+     *
+     * @param mode how server is torn down, ignored if destruction was already started
+     * @return future completed once server is deleted
+     */
+    synchronized CompletableFuture<Void> destroyServer(TeardownMode mode) {
+        if (destruction == null) {
+            destruction = cloud.destroyServer(serverInstance.getServerDetail(), mode);
+        }
+        return destruction;
+    }
+
     @Override
     public Node asNode() {
         return this;
@@ -170,7 +193,20 @@ public class HetznerServerAgent extends AbstractCloudSlave implements EphemeralN
                 log.warn("Cannot check liveness for node {}: serverInstance is null", getNodeName());
                 return false;
             }
+            final ServerInventory inventory = cloud.getInventory();
+            if (inventory != null && inventory.isFresh() && serverInstance.getServerDetail() != null) {
+                // running server doesn't need API call, servers which are still starting are checked directly
+                final Optional<ServerDetail> known = inventory.getById(serverInstance.getServerDetail().getId())
+                        .filter(server -> "running".equals(server.getStatus()));
+                if (known.isPresent()) {
+                    serverInstance.setServerDetail(known.get());
+                    return true;
+                }
+            }
             serverInstance = cloud.getResourceManager().refreshServerInfo(serverInstance);
+            if (inventory != null && serverInstance != null && serverInstance.getServerDetail() != null) {
+                inventory.put(serverInstance.getServerDetail());
+            }
             return serverInstance != null
                     && serverInstance.getServerDetail() != null
                     && "running".equals(serverInstance.getServerDetail().getStatus());
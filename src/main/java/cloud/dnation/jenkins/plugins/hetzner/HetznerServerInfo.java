@@ -23,4 +23,8 @@ import lombok.Data;
 public class HetznerServerInfo {
     private final SshKeyDetail sshKeyDetail;
     private ServerDetail serverDetail;
+    /**
+     * ID of action which creates server, if known.
+     */
+    private Long createActionId;
 }
@@ -51,6 +51,7 @@ import java.util.Set;
 import java.util.regex.Pattern;
 
 import static cloud.dnation.jenkins.plugins.hetzner.ConfigurationValidator.doCheckNonEmpty;
+import static cloud.dnation.jenkins.plugins.hetzner.ConfigurationValidator.doCheckNonNegativeInt;
 import static cloud.dnation.jenkins.plugins.hetzner.ConfigurationValidator.doCheckPositiveInt;
 import static cloud.dnation.jenkins.plugins.hetzner.ConfigurationValidator.verifyFirewall;
 import static cloud.dnation.jenkins.plugins.hetzner.ConfigurationValidator.verifyImage;
@@ -154,6 +155,27 @@ public class HetznerServerTemplate extends AbstractDescribableImpl<HetznerServer
     @Setter(onMethod = @__({@DataBoundSetter}))
     private String volumeIds;
 
+    @Getter
+    @Setter(onMethod = @__({@DataBoundSetter}))
+    private TeardownMode teardownMode;
+
+    /**
+     * Number of idle agents kept booted and connected ahead of demand, <code>0</code> disables warm pool.
+     */
+    @Getter
+    @Setter(onMethod = @__({@DataBoundSetter}))
+    private int warmPoolSize;
+
+    /**
+     * Warm pool is drained once none of agents of this template was busy for this many minutes.
+     */
+    @Getter
+    @Setter(onMethod = @__({@DataBoundSetter}))
+    private int warmPoolQuietMinutes;
+
+    @ToString.Exclude
+    private transient volatile ServerBlueprint blueprint;
+
     @DataBoundConstructor
     @SuppressFBWarnings("NP_NONNULL_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
     public HetznerServerTemplate(String name, String labelStr, String image,
@@ -187,6 +209,12 @@ public class HetznerServerTemplate extends AbstractDescribableImpl<HetznerServer
         if (connectivity == null ) {
             connectivity = HetznerConstants.DEFAULT_CONNECTIVITY;
         }
+        if (teardownMode == null) {
+            teardownMode = HetznerConstants.DEFAULT_TEARDOWN_MODE;
+        }
+        if (warmPoolQuietMinutes <= 0) {
+            warmPoolQuietMinutes = HetznerConstants.DEFAULT_WARM_POOL_QUIET_MINUTES;
+        }
         if (placementGroup == null) {
             placementGroup = "";
         }
@@ -200,9 +228,35 @@ public class HetznerServerTemplate extends AbstractDescribableImpl<HetznerServer
             prefix = "";
         }
         prefix = prefix.toLowerCase(Locale.ROOT);
+        if (cloud != null) {
+            try {
+                blueprint = ServerBlueprint.compile(this);
+            } catch (IllegalArgumentException e) {
+                // don't prevent configuration from being loaded, error will be reported once server is provisioned
+                log.warn("Unable to compile server template '{}'", name, e);
+                blueprint = null;
+            }
+            if (cloud.getResourceManager() != null) {
+                cloud.getResourceManager().prewarm(this);
+            }
+        }
         return this;
     }
 
+    /**
+     * Get compiled form of this template, which is used to create servers.
+     *
+     * @return compiled blueprint
+     */
+    ServerBlueprint getBlueprint() {
+        ServerBlueprint result = blueprint;
+        if (result == null) {
+            result = ServerBlueprint.compile(this);
+            blueprint = result;
+        }
+        return result;
+    }
+
     boolean isPrefixValid() {
         return checkPrefixValue(prefix);
     }
@@ -346,5 +400,17 @@ public class HetznerServerTemplate extends AbstractDescribableImpl<HetznerServer
         public FormValidation doCheckBootDeadline(@QueryParameter String bootDeadline) {
             return doCheckPositiveInt(bootDeadline, "Boot deadline");
         }
+
+        @Restricted(NoExternalUse.class)
+        @RequirePOST
+        public FormValidation doCheckWarmPoolSize(@QueryParameter String warmPoolSize) {
+            return doCheckNonNegativeInt(warmPoolSize, "Warm pool size");
+        }
+
+        @Restricted(NoExternalUse.class)
+        @RequirePOST
+        public FormValidation doCheckWarmPoolQuietMinutes(@QueryParameter String warmPoolQuietMinutes) {
+            return doCheckPositiveInt(warmPoolQuietMinutes, "Warm pool quiet period");
+        }
     }
 }
@@ -15,17 +15,48 @@
  */
 package cloud.dnation.jenkins.plugins.hetzner;
 
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.LatencyRecorder;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import hudson.security.ACL;
+import hudson.util.Secret;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+/**
+ * Supplies API token stored in Jenkins credentials.
+ * <p>
+ * Token is resolved from credentials store once per credentialsId and cached, since {@link #get()} is invoked
+ * for every API request. Cached token is dropped when credentials change, when API rejects it, and at latest
+ * after {@link #TTL_SECONDS}, so that token rotated in provider which doesn't notify about change is picked up.
+ */
+@Slf4j
 public class JenkinsSecretTokenProvider implements Supplier<String> {
+    /**
+     * How long token is cached.
+     */
+    static final long TTL_SECONDS = SystemProperties.getLong(
+            JenkinsSecretTokenProvider.class.getName() + ".ttlSeconds", 300L);
+    private static final ConcurrentMap<String, CachedToken> TOKENS = new ConcurrentHashMap<>();
+    private static final LatencyRecorder LOOKUP_LATENCY = PluginMetrics.latency("credentials.token.lookup");
+    private static final Counter CACHE_HITS = PluginMetrics.counter("credentials.token.cache.hits");
     private final String credentialsId;
 
+    private record CachedToken(Secret secret, long expiresAtNanos) {
+        boolean isValid(long now) {
+            return now - expiresAtNanos < 0;
+        }
+    }
+
     private JenkinsSecretTokenProvider(String credentialsId) {
         this.credentialsId = credentialsId;
     }
@@ -34,14 +65,50 @@ public class JenkinsSecretTokenProvider implements Supplier<String> {
         return new JenkinsSecretTokenProvider(credentialsId);
     }
 
+    /**
+     * Forget cached token, so that it's looked up again on next use.
+     *
+     * @param credentialsId ID of credentials
+     */
+    static void invalidate(String credentialsId) {
+        TOKENS.remove(credentialsId);
+    }
+
+    /**
+     * Forget all cached tokens, so that they are looked up again on next use.
+     */
+    static void invalidateAll() {
+        TOKENS.clear();
+    }
+
+    private static Secret lookup(String credentialsId) {
+        final long start = System.nanoTime();
+        try {
+            final StringCredentials secret = CredentialsMatchers.firstOrNull(
+                    CredentialsProvider.lookupCredentialsInItemGroup(StringCredentials.class, Jenkins.get(),
+                            ACL.SYSTEM2),
+                    CredentialsMatchers.withId(credentialsId));
+            if (secret == null) {
+                throw new IllegalStateException("Can't find credentials with ID '" + credentialsId + "'");
+            }
+            log.debug("Resolved API token for credentials '{}'", credentialsId);
+            return secret.getSecret();
+        } finally {
+            LOOKUP_LATENCY.recordSince(start);
+        }
+    }
+
     @Override
     public String get() {
-        final StringCredentials secret = CredentialsMatchers.firstOrNull(
-                CredentialsProvider.lookupCredentialsInItemGroup(StringCredentials.class, Jenkins.get(), ACL.SYSTEM2),
-                CredentialsMatchers.withId(credentialsId));
-        if (secret == null) {
-            throw new IllegalStateException("Can't find credentials with ID '" + credentialsId + "'");
+        final long now = System.nanoTime();
+        CachedToken cached = TOKENS.get(credentialsId);
+        if (cached != null && cached.isValid(now)) {
+            CACHE_HITS.inc();
+        } else {
+            cached = TOKENS.compute(credentialsId, (id, existing) -> existing != null && existing.isValid(now)
+                    ? existing
+                    : new CachedToken(lookup(id), System.nanoTime() + TimeUnit.SECONDS.toNanos(TTL_SECONDS)));
         }
-        return secret.getSecret().getPlainText();
+        return cached.secret().getPlainText();
     }
 }
@@ -0,0 +1,182 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of IDs resolved from label expressions of images, networks, firewalls and placement groups.
+ * <p>
+ * Entries expire after TTL specific to resource type. Entry which is older than 3/4 of its TTL is still served
+ * from cache, but it's refreshed in background, so that provisioning path does not need to wait for API.
+ * Background loads use separate resolver, so that they can be made with lower priority than create calls,
+ * and run on worker pool of {@link SharedApiClient}, since they block while waiting for rate limit budget.
+ */
+@Slf4j
+class LabelResolutionCache {
+    /**
+     * Upper bound of entries kept in cache, least recently used entries are evicted first.
+     */
+    private static final int MAX_ENTRIES = 256;
+    private static final Counter HITS = PluginMetrics.counter("labels.cache.hits");
+    private static final Counter MISSES = PluginMetrics.counter("labels.cache.misses");
+
+    @RequiredArgsConstructor
+    enum ResourceType {
+        // images are usually rebuilt often, so that expression can resolve to newer snapshot
+        IMAGE(Duration.ofMinutes(10)),
+        NETWORK(Duration.ofMinutes(30)),
+        FIREWALL(Duration.ofMinutes(30)),
+        PLACEMENT_GROUP(Duration.ofMinutes(30));
+
+        @Getter
+        private final Duration ttl;
+    }
+
+    /**
+     * Resolves label expression into resource ID using API.
+     */
+    interface Resolver {
+        long resolve(ResourceType type, String labelExpression) throws IOException;
+    }
+
+    record Key(ResourceType type, String labelExpression) {
+    }
+
+    private record Entry(long id, long resolvedAt, long lastAccess) {
+        Entry touch(long now) {
+            return new Entry(id, resolvedAt, now);
+        }
+    }
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, Boolean> refreshing = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final Executor executor;
+
+    LabelResolutionCache() {
+        this(System::currentTimeMillis, SharedApiClient.workers());
+    }
+
+    @VisibleForTesting
+    LabelResolutionCache(LongSupplier clock, Executor executor) {
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    /**
+     * Get ID of resource matching label expression, calling API only if there is no usable entry in cache.
+     *
+     * @param type            type of resource
+     * @param labelExpression label expression
+     * @param resolver        resolver to use on cache miss
+     * @param refresher       resolver to use when entry is refreshed in background
+     * @return resource ID
+     * @throws IOException if API call fails
+     */
+    long get(ResourceType type, String labelExpression, Resolver resolver, Resolver refresher) throws IOException {
+        final Key key = new Key(type, labelExpression);
+        final long now = clock.getAsLong();
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            final long age = now - entry.resolvedAt();
+            if (age < type.getTtl().toMillis()) {
+                HITS.inc();
+                entries.replace(key, entry, entry.touch(now));
+                if (age > type.getTtl().toMillis() * 3 / 4) {
+                    refreshAsync(key, refresher);
+                }
+                return entry.id();
+            }
+            entries.remove(key, entry);
+        }
+        MISSES.inc();
+        return load(key, resolver);
+    }
+
+    /**
+     * Resolve given label expression in background, unless it's already cached.
+     *
+     * @param type            type of resource
+     * @param labelExpression label expression
+     * @param resolver        resolver to use
+     */
+    void prewarm(ResourceType type, String labelExpression, Resolver resolver) {
+        final Key key = new Key(type, labelExpression);
+        if (!entries.containsKey(key)) {
+            refreshAsync(key, resolver);
+        }
+    }
+
+    /**
+     * Remove entry from cache.
+     *
+     * @param type            type of resource
+     * @param labelExpression label expression
+     * @return <code>true</code> if entry was present
+     */
+    boolean invalidate(ResourceType type, String labelExpression) {
+        return entries.remove(new Key(type, labelExpression)) != null;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private long load(Key key, Resolver resolver) throws IOException {
+        final long id = resolver.resolve(key.type(), key.labelExpression());
+        final long now = clock.getAsLong();
+        entries.put(key, new Entry(id, now, now));
+        evictIfNeeded();
+        return id;
+    }
+
+    private void refreshAsync(Key key, Resolver resolver) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                load(key, resolver);
+            } catch (Exception e) {
+                log.warn("Unable to resolve {} for label expression '{}'", key.type(), key.labelExpression(), e);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private void evictIfNeeded() {
+        while (entries.size() > MAX_ENTRIES) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().lastAccess()))
+                    .ifPresent(e -> entries.remove(e.getKey(), e.getValue()));
+        }
+    }
+}
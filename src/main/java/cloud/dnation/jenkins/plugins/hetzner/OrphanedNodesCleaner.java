@@ -16,6 +16,7 @@
 package cloud.dnation.jenkins.plugins.hetzner;
 
 import cloud.dnation.hetznerclient.ServerDetail;
+import com.google.common.annotations.VisibleForTesting;
 import hudson.Extension;
 import hudson.model.PeriodicWork;
 import jenkins.model.Jenkins;
@@ -39,7 +40,7 @@ public class OrphanedNodesCleaner extends PeriodicWork {
         return HOUR;
     }
 
-    private static Set<HetznerCloud> getHetznerClouds() {
+    static Set<HetznerCloud> getHetznerClouds() {
         return Jenkins.get().clouds.stream()
                 .filter(HetznerCloud.class::isInstance)
                 .map(HetznerCloud.class::cast)
@@ -62,38 +63,15 @@ public class OrphanedNodesCleaner extends PeriodicWork {
 
     private static void cleanCloud(HetznerCloud cloud) {
         try {
-            final List<ServerDetail> allInstances = cloud.getResourceManager()
-                    .fetchAllServers(cloud.name);
+            final ServerInventory inventory = cloud.getInventory();
             final List<HetznerServerAgent> hetznerAgents = Helper.getHetznerAgents();
-            final List<String> jenkinsNodeNames = hetznerAgents
-                    .stream()
-                    .map(HetznerServerAgent::getNodeName)
-                    .toList();
-            final Set<String> hetznerVmNames = allInstances.stream()
-                    .map(ServerDetail::getName)
-                    .collect(Collectors.toSet());
 
             // Direction 1: VMs without Jenkins nodes (orphan VMs) -- destroy them.
-            // Grace period: skip VMs younger than 15 minutes to avoid destroying
-            // servers that are actively being provisioned by NodeCallable (which
-            // creates the server before calling Jenkins.get().addNode()).
-            allInstances.stream()
-                    .filter(server -> !jenkinsNodeNames.contains(server.getName()))
-                    .filter(server -> isOlderThan(server, Duration.ofMinutes(15)))
+            findOrphanedServers(inventory.getAll(), hetznerAgents)
                     .forEach(serverDetail -> terminateOrphanedServer(serverDetail, cloud));
 
             // Direction 2: Jenkins nodes without VMs (ghost nodes) -- remove them.
-            // IMPORTANT: only consider agents that belong to THIS cloud.
-            // Helper.getHetznerAgents() returns agents from ALL Hetzner clouds,
-            // so without filtering, a cloud with 0 VMs would incorrectly remove
-            // every agent from every other cloud as a "ghost node".
-            //
-            // We use the persistent cloudName field (survives deserialization)
-            // to scope the check. Agents created before this field existed will
-            // have cloudName == null; we skip those to avoid false positives.
-            hetznerAgents.stream()
-                    .filter(agent -> cloud.name.equals(agent.getCloudName()))
-                    .filter(agent -> !hetznerVmNames.contains(agent.getNodeName()))
+            findGhostAgents(cloud.name, hetznerAgents, inventory)
                     .forEach(agent -> removeGhostNode(agent));
 
         } catch (IOException e) {
@@ -103,11 +81,60 @@ public class OrphanedNodesCleaner extends PeriodicWork {
         }
     }
 
+    /**
+     * Find servers which don't have corresponding Jenkins node.
+     * <p>
+     * Grace period: skip VMs younger than 15 minutes to avoid destroying
+     * servers that are actively being provisioned by ProvisioningPipeline (which
+     * creates the server before calling Jenkins.get().addNode()).
+     *
+     * @param servers servers of cloud
+     * @param agents  all Hetzner agents
+     * @return orphaned servers
+     */
+    @VisibleForTesting
+    static List<ServerDetail> findOrphanedServers(List<ServerDetail> servers, List<HetznerServerAgent> agents) {
+        final Set<String> jenkinsNodeNames = agents
+                .stream()
+                .map(HetznerServerAgent::getNodeName)
+                .collect(Collectors.toSet());
+        return servers.stream()
+                .filter(server -> !jenkinsNodeNames.contains(server.getName()))
+                .filter(server -> isOlderThan(server, Duration.ofMinutes(15)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find agents of given cloud whose server no longer exists.
+     * <p>
+     * IMPORTANT: only consider agents that belong to THIS cloud.
+     * Helper.getHetznerAgents() returns agents from ALL Hetzner clouds,
+     * so without filtering, a cloud with 0 VMs would incorrectly remove
+     * every agent from every other cloud as a "ghost node".
+     * <p>
+     * We use the persistent cloudName field (survives deserialization)
+     * to scope the check. Agents created before this field existed will
+     * have cloudName == null; we skip those to avoid false positives.
+     *
+     * @param cloudName name of cloud
+     * @param agents    all Hetzner agents
+     * @param inventory server inventory of cloud
+     * @return ghost agents
+     */
+    @VisibleForTesting
+    static List<HetznerServerAgent> findGhostAgents(String cloudName, List<HetznerServerAgent> agents,
+                                                    ServerInventory inventory) {
+        return agents.stream()
+                .filter(agent -> cloudName.equals(agent.getCloudName()))
+                .filter(agent -> inventory.getByName(agent.getNodeName()).isEmpty())
+                .collect(Collectors.toList());
+    }
+
     private static void terminateOrphanedServer(ServerDetail serverDetail, HetznerCloud cloud) {
         log.info("Terminating orphaned server {} (id={}) from cloud '{}'",
                 serverDetail.getName(), serverDetail.getId(), cloud.name);
         try {
-            cloud.getResourceManager().destroyServer(serverDetail);
+            cloud.destroyServer(serverDetail, HetznerConstants.DEFAULT_TEARDOWN_MODE);
         } catch (Exception e) {
             log.error("Failed to terminate orphaned server {} (id={}) from cloud '{}': {}",
                     serverDetail.getName(), serverDetail.getId(), cloud.name, e.getMessage(), e);
@@ -0,0 +1,215 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import jenkins.util.SystemProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Listing of paged API resources.
+ * <p>
+ * Each page is parsed incrementally from response body and only fields that plugin uses are kept
+ * from each item, so memory doesn't depend on size of item details. Listing is fetched using
+ * {@link #fetchAll(PageFetcher, Executor, int)}, where remaining pages are fetched concurrently once first page
+ * reveals their count.
+ */
+final class PagedListing {
+    static final int PAGE_SIZE = 50;
+    /**
+     * Maximum number of pages fetched concurrently by {@link #fetchAll(PageFetcher, Executor, int)}.
+     */
+    static final int MAX_PARALLEL_PAGES = SystemProperties.getInteger(
+            PagedListing.class.getName() + ".maxParallelPages", 4);
+    /**
+     * Fields of server which are retained, rest is skipped while parsing.
+     */
+    static final Set<String> SERVER_FIELDS = Set.of("id", "name", "status", "created", "labels", "location",
+            "datacenter", "server_type", "public_net", "private_net");
+    /**
+     * Fields of primary IP which are retained, rest is skipped while parsing.
+     */
+    static final Set<String> PRIMARY_IP_FIELDS = Set.of("id", "name", "ip", "type", "assignee_id",
+            "assignee_type", "location", "labels");
+
+    /**
+     * Single page of listing.
+     *
+     * @param items    items on page
+     * @param nextPage number of next page, <code>null</code> if this is last page
+     * @param lastPage number of last page, <code>null</code> if API didn't tell
+     * @param <T>      type of item
+     */
+    record Page<T>(List<T> items, Integer nextPage, Integer lastPage) {
+    }
+
+    /**
+     * Fetches page of listing.
+     *
+     * @param <T> type of item
+     */
+    interface PageFetcher<T> {
+        Page<T> fetch(int page) throws IOException;
+    }
+
+    private PagedListing() {
+    }
+
+    /**
+     * Create fetcher which lists resources using API.
+     *
+     * @param client         HTTP client
+     * @param priority       priority of API calls
+     * @param resource       name of resource, which is both path of endpoint and key of items in response,
+     *                       e.g. <code>servers</code>
+     * @param labelSelector  label selector of resources
+     * @param type           type of item
+     * @param retainedFields fields of item which are kept
+     * @param <T>            type of item
+     * @return page fetcher
+     */
+    static <T> PageFetcher<T> httpFetcher(ApiHttpClient client, ApiPriority priority, String resource,
+                                          String labelSelector, Class<T> type, Set<String> retainedFields) {
+        return page -> client.get(priority, resource, ImmutableListMultimap.of(
+                        "label_selector", labelSelector,
+                        "page", String.valueOf(page),
+                        "per_page", String.valueOf(PAGE_SIZE)),
+                reader -> parsePage(reader, resource, type, retainedFields));
+    }
+
+    /**
+     * Fetch all items. First page is fetched alone, remaining pages are then fetched concurrently
+     * by at most <code>parallelism</code> workers. Every page is still admitted by {@link ApiScheduler},
+     * so rate limit budget and limit of concurrent calls per API token are respected.
+     * If listing grew while it was fetched, pages past originally reported last page are fetched sequentially.
+     *
+     * @param fetcher     page fetcher
+     * @param executor    executor used to fetch pages, it should be able to run blocking tasks
+     * @param parallelism maximum number of pages fetched concurrently
+     * @param <T>         type of item
+     * @return all items, in order of pages
+     * @throws IOException if any API call fails
+     */
+    static <T> List<T> fetchAll(PageFetcher<T> fetcher, Executor executor, int parallelism) throws IOException {
+        final Page<T> first = fetcher.fetch(1);
+        final List<T> result = new ArrayList<>(first.items());
+        if (first.nextPage() == null) {
+            return result;
+        }
+        final int lastPage = Math.max(first.nextPage(), first.lastPage() != null ? first.lastPage() : 0);
+        final int remaining = lastPage - 1;
+        final AtomicReferenceArray<Page<T>> pages = new AtomicReferenceArray<>(remaining);
+        final AtomicInteger next = new AtomicInteger(2);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(Math.max(1, parallelism), remaining); i++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                int page;
+                while (!failed.get() && (page = next.getAndIncrement()) <= lastPage) {
+                    try {
+                        pages.set(page - 2, fetcher.fetch(page));
+                    } catch (IOException e) {
+                        failed.set(true);
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause() instanceof UncheckedIOException u ? u.getCause() : e.getCause();
+            Throwables.throwIfInstanceOf(cause, IOException.class);
+            Throwables.throwIfUnchecked(cause);
+            throw new IOException(cause);
+        }
+        Integer nextPage = null;
+        for (int i = 0; i < remaining; i++) {
+            result.addAll(pages.get(i).items());
+            nextPage = pages.get(i).nextPage();
+        }
+        while (nextPage != null) {
+            final Page<T> page = fetcher.fetch(nextPage);
+            result.addAll(page.items());
+            nextPage = page.nextPage();
+        }
+        return result;
+    }
+
+    static <T> Page<T> parsePage(JsonReader reader, String resource, Class<T> type, Set<String> retainedFields)
+            throws IOException {
+        final List<T> items = new ArrayList<>();
+        Integer nextPage = null;
+        Integer lastPage = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (resource.equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    items.add(SharedApiClient.GSON.fromJson(parseRetained(reader, retainedFields), type));
+                }
+                reader.endArray();
+            } else if ("meta".equals(name)) {
+                final JsonObject pagination = JsonParser.parseReader(reader).getAsJsonObject()
+                        .getAsJsonObject("pagination");
+                if (pagination != null) {
+                    nextPage = intOrNull(pagination, "next_page");
+                    lastPage = intOrNull(pagination, "last_page");
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Page<>(items, nextPage, lastPage);
+    }
+
+    private static JsonObject parseRetained(JsonReader reader, Set<String> retainedFields) throws IOException {
+        final JsonObject retained = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (retainedFields.contains(name) && reader.peek() != JsonToken.NULL) {
+                retained.add(name, JsonParser.parseReader(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return retained;
+    }
+
+    private static Integer intOrNull(JsonObject object, String member) {
+        return object.has(member) && !object.get(member).isJsonNull() ? object.get(member).getAsInt() : null;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.PrimaryIpDetail;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Listings of paged resources, obtained from {@link SharedApiClient#getListingApi(ApiPriority)}.
+ * Pages are fetched concurrently once count of pages is known, and only fields used by plugin are populated.
+ */
+@FunctionalInterface
+public interface PagedListingApi {
+    /**
+     * Fetch all primary IPs matching label selector.
+     *
+     * @param labelSelector label selector
+     * @return list of primary IPs
+     * @throws IOException if API call fails
+     */
+    List<PrimaryIpDetail> getAllPrimaryIps(String labelSelector) throws IOException;
+}
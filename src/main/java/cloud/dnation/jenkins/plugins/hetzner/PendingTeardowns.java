@@ -0,0 +1,102 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import hudson.XmlFile;
+import hudson.util.XStream2;
+import jenkins.model.Jenkins;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * List of servers whose destruction didn't finish before controller went offline.
+ * <p>
+ * List is persisted in <code>JENKINS_HOME</code>, so that destruction can be resumed once controller
+ * is back online (see {@link ControllerListener}). File is removed once list is empty.
+ */
+final class PendingTeardowns {
+    private static final XStream2 XSTREAM = new XStream2();
+
+    static {
+        XSTREAM.alias("pendingTeardowns", PendingTeardowns.class);
+        XSTREAM.alias("server", Entry.class);
+    }
+
+    /**
+     * Server to destroy.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    @ToString
+    static final class Entry {
+        private final String cloudName;
+        private final long serverId;
+        private final String serverName;
+    }
+
+    private final List<Entry> servers;
+
+    private PendingTeardowns(List<Entry> servers) {
+        this.servers = servers;
+    }
+
+    static XmlFile getFile() {
+        return getFile(Jenkins.get().getRootDir());
+    }
+
+    static XmlFile getFile(File rootDir) {
+        return new XmlFile(XSTREAM, new File(rootDir, PendingTeardowns.class.getName() + ".xml"));
+    }
+
+    /**
+     * Load list of servers.
+     *
+     * @param file file holding list
+     * @return servers, empty list if file doesn't exist
+     * @throws IOException if file can't be read
+     */
+    static List<Entry> load(XmlFile file) throws IOException {
+        if (!file.exists()) {
+            return List.of();
+        }
+        final PendingTeardowns pending = (PendingTeardowns) file.read();
+        return pending.servers == null ? List.of() : List.copyOf(pending.servers);
+    }
+
+    /**
+     * Save list of servers, replacing previous content of file.
+     *
+     * @param file    file holding list
+     * @param servers servers, file is removed if empty
+     * @throws IOException if file can't be written
+     */
+    static void save(XmlFile file, Collection<Entry> servers) throws IOException {
+        if (servers.isEmpty()) {
+            file.delete();
+        } else {
+            file.write(new PendingTeardowns(new ArrayList<>(servers)));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.base.Strings;
+import com.google.common.io.BaseEncoding;
+import jenkins.model.Jenkins;
+import jenkins.security.HMACConfidentialKey;
+import jenkins.util.SystemProperties;
+import lombok.Getter;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One-time callbacks by which newly created servers report that cloud-init has finished.
+ * <p>
+ * Before server is created, {@link ProvisioningPipeline} registers callback for agent, and cloud-init
+ * <code>phone_home</code> module pointing to {@link PhoneHomeAction} is appended to user data of server. Callback URL
+ * carries random nonce and its HMAC signature, so that endpoint doesn't need authentication: forged or replayed
+ * callbacks are rejected, and each registration can be used just once.
+ */
+final class PhoneHome {
+    static final boolean ENABLED = SystemProperties.getBoolean(PhoneHome.class.getName() + ".enabled", true);
+    private static final HMACConfidentialKey KEY = new HMACConfidentialKey(PhoneHome.class, "callback");
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ConcurrentMap<String, Registration> PENDING = new ConcurrentHashMap<>();
+    private static final Counter ACCEPTED = PluginMetrics.counter("phonehome.accepted");
+    private static final Counter REJECTED = PluginMetrics.counter("phonehome.rejected");
+
+    /**
+     * Callback expected from single server.
+     */
+    static final class Registration {
+        @Getter
+        private final String nodeName;
+        private final String nonce;
+        /**
+         * Completed with {@link System#nanoTime()} of callback arrival.
+         */
+        @Getter
+        private final CompletableFuture<Long> arrival = new CompletableFuture<>();
+
+        private Registration(String nodeName, String nonce) {
+            this.nodeName = nodeName;
+            this.nonce = nonce;
+        }
+
+        /**
+         * Get URL which server calls once it's ready.
+         *
+         * @param rootUrl root URL of Jenkins, with trailing slash
+         * @return callback URL
+         */
+        String getCallbackUrl(String rootUrl) {
+            return rootUrl + PhoneHomeAction.URL_NAME + "/?node=" + URLEncoder.encode(nodeName, StandardCharsets.UTF_8)
+                    + "&nonce=" + nonce + "&sig=" + KEY.mac(nodeName + ":" + nonce);
+        }
+    }
+
+    private PhoneHome() {
+    }
+
+    /**
+     * Register callback for agent, replacing previous registration of the same agent if any.
+     *
+     * @param nodeName name of agent
+     * @return registration
+     */
+    static Registration register(String nodeName) {
+        final byte[] nonce = new byte[16];
+        RANDOM.nextBytes(nonce);
+        final Registration registration = new Registration(nodeName, BaseEncoding.base16().lowerCase().encode(nonce));
+        PENDING.put(nodeName, registration);
+        return registration;
+    }
+
+    /**
+     * Get pending registration of agent.
+     *
+     * @param nodeName name of agent
+     * @return registration or <code>null</code>
+     */
+    static Registration get(String nodeName) {
+        return PENDING.get(nodeName);
+    }
+
+    /**
+     * Remove registration once it's no longer needed, i.e. agent is launched or provisioning has failed.
+     *
+     * @param registration registration to remove
+     */
+    static void unregister(Registration registration) {
+        PENDING.remove(registration.nodeName, registration);
+    }
+
+    /**
+     * Accept callback.
+     *
+     * @param nodeName  name of agent
+     * @param nonce     nonce from callback URL
+     * @param signature signature from callback URL
+     * @return <code>true</code> if callback matches pending registration
+     */
+    static boolean accept(String nodeName, String nonce, String signature) {
+        if (Strings.isNullOrEmpty(nodeName) || Strings.isNullOrEmpty(nonce) || Strings.isNullOrEmpty(signature)
+                || !KEY.checkMac(nodeName + ":" + nonce, signature)) {
+            REJECTED.inc();
+            return false;
+        }
+        final Registration registration = PENDING.get(nodeName);
+        if (registration == null || !MessageDigest.isEqual(registration.nonce.getBytes(StandardCharsets.US_ASCII),
+                nonce.getBytes(StandardCharsets.US_ASCII)) || !PENDING.remove(nodeName, registration)) {
+            REJECTED.inc();
+            return false;
+        }
+        ACCEPTED.inc();
+        registration.arrival.complete(System.nanoTime());
+        return true;
+    }
+
+    /**
+     * Append <code>phone_home</code> hook for agent to user data, if callback is registered for it.
+     * Hook is only added to <code>#cloud-config</code> user data (or empty one) which doesn't configure
+     * <code>phone_home</code> itself, anything else is left intact and readiness is detected by polling.
+     *
+     * @param userData user data of template, might be <code>null</code>
+     * @param nodeName name of agent
+     * @return user data to send
+     */
+    static String withHook(String userData, String nodeName) {
+        final Registration registration = PENDING.get(nodeName);
+        if (registration == null) {
+            return userData;
+        }
+        final String rootUrl = Jenkins.get().getRootUrl();
+        return rootUrl == null ? userData : withHook(userData, registration, rootUrl);
+    }
+
+    static String withHook(String userData, Registration registration, String rootUrl) {
+        final String hook = "phone_home:\n"
+                + "  url: \"" + registration.getCallbackUrl(rootUrl) + "\"\n"
+                + "  post: [instance_id]\n"
+                + "  tries: 10\n";
+        if (Strings.isNullOrEmpty(userData)) {
+            return "#cloud-config\n" + hook;
+        }
+        if (!userData.startsWith("#cloud-config") || userData.contains("phone_home:")) {
+            return userData;
+        }
+        return userData + (userData.endsWith("\n") ? "" : "\n") + hook;
+    }
+}
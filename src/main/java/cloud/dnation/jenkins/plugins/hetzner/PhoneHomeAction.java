@@ -0,0 +1,80 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import hudson.Extension;
+import hudson.model.UnprotectedRootAction;
+import hudson.security.csrf.CrumbExclusion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import java.io.IOException;
+
+/**
+ * Receives cloud-init <code>phone_home</code> callbacks at <code>JENKINS_URL/hetzner-cloud-ready/</code>,
+ * see {@link PhoneHome}. Endpoint doesn't require authentication, callbacks are verified by their signature.
+ */
+@Extension
+public class PhoneHomeAction implements UnprotectedRootAction {
+    static final String URL_NAME = "hetzner-cloud-ready";
+
+    @Override
+    public String getIconFileName() {
+        // not shown in UI
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Hetzner Cloud readiness callback";
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    @RequirePOST
+    public void doIndex(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        if (PhoneHome.accept(req.getParameter("node"), req.getParameter("nonce"), req.getParameter("sig"))) {
+            rsp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else {
+            rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * cloud-init can't obtain CSRF crumb, callbacks are protected by signature instead.
+     */
+    @Extension
+    public static final class CrumbExclusionImpl extends CrumbExclusion {
+        @Override
+        public boolean process(HttpServletRequest req, HttpServletResponse rsp, FilterChain chain)
+                throws IOException, ServletException {
+            final String pathInfo = req.getPathInfo();
+            if (pathInfo != null && pathInfo.startsWith("/" + URL_NAME + "/")) {
+                chain.doFilter(req, rsp);
+                return true;
+            }
+            return false;
+        }
+    }
+}
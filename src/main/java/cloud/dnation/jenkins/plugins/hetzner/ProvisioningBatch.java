@@ -0,0 +1,162 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.LatencyRecorder;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Agents provisioned together by single call of {@link HetznerCloud#provision} or
+ * {@link HetznerCloud#provisionAhead(HetznerServerTemplate, int)}.
+ * <p>
+ * Create calls of batch are sent concurrently, but at most {@link #PARALLELISM} of them at once, so that large batch
+ * doesn't flood API (and rate limit budget) with burst of requests. Create calls waiting for free slot are queued,
+ * they don't hold any thread. Readiness of created servers is then tracked
+ * by shared {@link ActionTracker} and every agent is released to queue as soon as it's online, independently
+ * of the rest of batch.
+ * <p>
+ * Time until first and until all agents of batch are online is recorded as <code>provision.batch.first</code>
+ * and <code>provision.batch.all</code>.
+ */
+@Slf4j
+final class ProvisioningBatch {
+    static final int PARALLELISM = SystemProperties.getInteger(
+            ProvisioningBatch.class.getName() + ".parallelism", 5);
+    private static final LatencyRecorder FIRST = PluginMetrics.latency("provision.batch.first");
+    private static final LatencyRecorder ALL = PluginMetrics.latency("provision.batch.all");
+
+    private final int parallelism;
+    private final Queue<Runnable> waitingCreates = new ArrayDeque<>();
+    private int createsInFlight;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private int size;
+    private int completed;
+    private int ready;
+    private boolean sealed;
+
+    ProvisioningBatch() {
+        this(PARALLELISM, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    ProvisioningBatch(int parallelism, LongSupplier nanoClock) {
+        this.parallelism = Math.max(1, parallelism);
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Register agent with batch, must be called before agent is being provisioned.
+     */
+    synchronized void add() {
+        size++;
+    }
+
+    /**
+     * Mark that no more agents will be added.
+     */
+    synchronized void seal() {
+        sealed = true;
+        maybeFinished();
+    }
+
+    /**
+     * Start create call of single agent, or queue it until some slot is free if batch already has too many
+     * of them in flight.
+     *
+     * @param create starts create call
+     * @param <T>    type of result
+     * @return future result of create call
+     */
+    <T> CompletableFuture<T> create(Supplier<CompletableFuture<T>> create) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable start = () -> {
+            CompletableFuture<T> call;
+            try {
+                call = create.get();
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((value, error) -> {
+                releaseCreate();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        synchronized (waitingCreates) {
+            if (createsInFlight >= parallelism) {
+                waitingCreates.add(start);
+                return result;
+            }
+            createsInFlight++;
+        }
+        start.run();
+        return result;
+    }
+
+    private void releaseCreate() {
+        final Runnable next;
+        synchronized (waitingCreates) {
+            next = waitingCreates.poll();
+            if (next == null) {
+                createsInFlight--;
+            }
+        }
+        // slot is handed over to next create call
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    /**
+     * Report that provisioning of single agent has finished.
+     *
+     * @param success <code>true</code> if agent is online
+     */
+    synchronized void completed(boolean success) {
+        completed++;
+        if (success && ready++ == 0) {
+            FIRST.record(nanoClock.getAsLong() - startNanos);
+        }
+        maybeFinished();
+    }
+
+    private void maybeFinished() {
+        if (!sealed || completed < size || size == 0) {
+            return;
+        }
+        final long elapsed = nanoClock.getAsLong() - startNanos;
+        if (ready > 0) {
+            ALL.record(elapsed);
+        }
+        log.info("Batch of {} agents finished in {} seconds, {} of them online", size,
+                TimeUnit.NANOSECONDS.toSeconds(elapsed), ready);
+    }
+}
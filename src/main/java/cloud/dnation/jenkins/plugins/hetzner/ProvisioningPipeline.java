@@ -0,0 +1,451 @@
+/*
+ *     Copyright 2021 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.ServerDetail;
+import cloud.dnation.jenkins.plugins.hetzner.launcher.AbstractConnectionMethod;
+import cloud.dnation.jenkins.plugins.hetzner.launcher.AbstractHetznerSshConnector;
+import cloud.dnation.jenkins.plugins.hetzner.launcher.ReadinessProbes;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Gauge;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.LatencyRecorder;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.net.InetAddresses;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Provisioning of single agent, as sequence of asynchronous stages: create server, await until it's running,
+ * await until it accepts SSH connections, register node and connect to it.
+ * <p>
+ * No thread is held while waiting between stages. Delays are scheduled on {@link Timer}, readiness probes
+ * and action tracking are non-blocking already. Calls which do block (API calls, registration of node)
+ * run on small dedicated pool of {@link #IO_THREADS} threads, so that many concurrent provisions don't starve
+ * {@link Computer#threadPoolForRemoting}, which is shared with remoting and launching of all agents.
+ * <p>
+ * Number of agents being provisioned is exposed as <code>provision.inprogress</code> gauge.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class ProvisioningPipeline {
+    static final int IO_THREADS = SystemProperties.getInteger(
+            ProvisioningPipeline.class.getName() + ".ioThreads", 10);
+    private static final ExecutorService IO = newIoExecutor();
+    private static final int CONNECT_ATTEMPTS = 4;
+    private static final int CONNECT_RETRY_SECONDS = 10;
+    private static final long CONNECT_POLL_MILLIS = 250;
+    private static final Gauge IN_PROGRESS = PluginMetrics.gauge("provision.inprogress");
+    /**
+     * Time by which readiness was known sooner thanks to callback than it would be by polling.
+     */
+    private static final LatencyRecorder PHONE_HOME_SAVED = PluginMetrics.latency("phonehome.saved");
+    /**
+     * Callbacks which arrived only after probes have succeeded.
+     */
+    private static final Counter PHONE_HOME_LATE = PluginMetrics.counter("phonehome.late");
+    /**
+     * Callbacks which arrived before probes have succeeded, probing is stopped then.
+     */
+    private static final Counter PHONE_HOME_EARLY = PluginMetrics.counter("phonehome.early");
+    private final HetznerServerAgent agent;
+    private final HetznerCloud cloud;
+    private final CapacityLedger.Reservation reservation;
+    private final ProvisioningBatch batch;
+    private PhoneHome.Registration phoneHome;
+
+    private static ExecutorService newIoExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Hetzner provisioning"));
+        executor.allowCoreThreadTimeOut(true);
+        return new ImpersonatingExecutorService(executor, ACL.SYSTEM2);
+    }
+
+    /**
+     * Start provisioning of agent.
+     *
+     * @return future completed once agent is online
+     */
+    CompletableFuture<Node> start() {
+        final Computer existing = agent.getComputer();
+        if (existing != null && existing.isOnline()) {
+            reservation.close();
+            batch.completed(true);
+            return CompletableFuture.completedFuture(agent);
+        }
+        final long start = System.nanoTime();
+        IN_PROGRESS.inc();
+        if (PhoneHome.ENABLED) {
+            phoneHome = PhoneHome.register(agent.getNodeName());
+        }
+        final CompletableFuture<Node> result = new CompletableFuture<>();
+        create()
+                .thenCompose(this::awaitReady)
+                .thenCompose(ignored -> register())
+                .thenCompose(computer -> connect(computer, CONNECT_ATTEMPTS))
+                .whenComplete((ignored, error) -> {
+                    IN_PROGRESS.dec();
+                    if (phoneHome != null) {
+                        PhoneHome.unregister(phoneHome);
+                    }
+                    batch.completed(error == null);
+                    if (error != null) {
+                        result.completeExceptionally(unwrap(error));
+                        return;
+                    }
+                    DemandForecaster.recordBootTime(cloud.name, agent.getTemplate().getName(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    result.complete(agent);
+                });
+        return result;
+    }
+
+    /**
+     * Create server, reservation of capacity is released once server is in inventory (or creation fails).
+     */
+    private CompletableFuture<HetznerServerInfo> create() {
+        return batch.create(() -> CompletableFuture.supplyAsync(
+                        () -> cloud.getResourceManager().createServer(agent), IO))
+                .whenComplete((serverInfo, error) -> {
+                    try (reservation) {
+                        if (error == null) {
+                            agent.setServerInstance(serverInfo);
+                            cloud.getInventory().put(serverInfo.getServerDetail());
+                            reservation.commit();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Await until server accepts SSH connections, or just until it's running if its SSH address isn't known.
+     */
+    private CompletableFuture<Void> awaitReady(HetznerServerInfo serverInfo) {
+        final String serverName = serverInfo.getServerDetail().getName();
+        final int bootDeadline = agent.getTemplate().getBootDeadline();
+        final WaitStrategy waitStrategy = new WaitStrategy(bootDeadline, 45, 15,
+                phoneHome == null ? null : phoneHome.getArrival());
+        final InetSocketAddress sshAddress = getSshAddress(serverInfo.getServerDetail());
+        final CompletableFuture<Boolean> ready;
+        if (sshAddress != null) {
+            // probing starts right away, there is no need to wait for server to be reported as running
+            ready = awaitReadiness(serverInfo, sshAddress, waitStrategy, true);
+        } else {
+            // address (e.g. in private network) might not be known until server is running
+            ready = awaitRunning(serverInfo, waitStrategy).thenCompose(running -> {
+                if (!running) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                final InetSocketAddress address = getSshAddress(agent.getServerInstance().getServerDetail());
+                if (address == null) {
+                    log.info("Server '{}' is now running, but its SSH address can't be probed", serverName);
+                    return CompletableFuture.completedFuture(true);
+                }
+                return awaitReadiness(serverInfo, address, waitStrategy, false);
+            });
+        }
+        return ready.thenAccept(success -> Preconditions.checkState(success,
+                "Server '%s' wasn't reachable after %s minutes, giving up", serverName, bootDeadline));
+    }
+
+    /**
+     * Wait until server accepts SSH connections, using {@link ReadinessProbes#DEFAULT}.
+     *
+     * @param serverInfo   server info
+     * @param address      SSH address of server
+     * @param waitStrategy wait strategy which bounds waiting time
+     * @param watchAction  whether to stop probing once action which creates server fails
+     * @return future completed with <code>true</code> if server is ready
+     */
+    private CompletableFuture<Boolean> awaitReadiness(HetznerServerInfo serverInfo, InetSocketAddress address,
+                                                      WaitStrategy waitStrategy, boolean watchAction) {
+        final CompletableFuture<Void> probes = ReadinessProbes.awaitAll(ReadinessProbes.DEFAULT, address,
+                Duration.ofNanos(waitStrategy.remainingNanos()));
+        final CompletableFuture<Void> ready = probes.thenApply(ignored -> null);
+        // probes are no longer needed once readiness is decided otherwise
+        ready.whenComplete((ignored, error) -> probes.cancel(false));
+        if (phoneHome != null) {
+            // whichever comes first, callback or successful probes
+            phoneHome.getArrival().thenRun(() -> {
+                if (probes.isDone() && !probes.isCompletedExceptionally()) {
+                    PHONE_HOME_LATE.inc();
+                } else {
+                    PHONE_HOME_EARLY.inc();
+                }
+                ready.complete(null);
+            });
+        }
+        final Long actionId = serverInfo.getCreateActionId();
+        if (watchAction && actionId != null) {
+            cloud.getResourceManager().awaitAction(actionId, Duration.ofNanos(waitStrategy.remainingNanos()))
+                    .whenComplete((ignored, error) -> {
+                        if (error != null && !(Throwables.getRootCause(error) instanceof TimeoutException)) {
+                            ready.completeExceptionally(error);
+                        }
+                    });
+        }
+        final String serverName = serverInfo.getServerDetail().getName();
+        return ready.handle((ignored, error) -> {
+            if (error != null) {
+                log.warn("Server '{}' didn't become ready", serverName, unwrap(error));
+                return false;
+            }
+            log.info("Server '{}' is ready at {}", serverName, address);
+            return true;
+        });
+    }
+
+    /**
+     * Await until server is reported as running, polling its state unless action which creates it tells sooner.
+     *
+     * @return future completed with <code>true</code> if server is running
+     */
+    private CompletableFuture<Boolean> awaitRunning(HetznerServerInfo serverInfo, WaitStrategy waitStrategy) {
+        return awaitCreateAction(serverInfo, waitStrategy)
+                .thenCompose(created -> created ? checkAlive() : CompletableFuture.completedFuture(false))
+                .thenCompose(running -> running ? CompletableFuture.completedFuture(true)
+                        : pollRunning(waitStrategy));
+    }
+
+    private CompletableFuture<Boolean> pollRunning(WaitStrategy waitStrategy) {
+        if (waitStrategy.isDeadLineOver()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return waitNext(waitStrategy)
+                .thenCompose(ignored -> checkAlive())
+                .thenCompose(running -> running ? CompletableFuture.completedFuture(true)
+                        : pollRunning(waitStrategy));
+    }
+
+    private CompletableFuture<Boolean> checkAlive() {
+        return CompletableFuture.supplyAsync(agent::isAlive, IO);
+    }
+
+    /**
+     * Wait for action which creates server to finish, if API returned one.
+     *
+     * @param serverInfo   server info
+     * @param waitStrategy wait strategy which bounds waiting time
+     * @return future completed with <code>true</code> if action succeeded, <code>false</code> if there is
+     * no action to wait for, action failed or didn't finish in time
+     */
+    private CompletableFuture<Boolean> awaitCreateAction(HetznerServerInfo serverInfo, WaitStrategy waitStrategy) {
+        final Long actionId = serverInfo.getCreateActionId();
+        if (actionId == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return cloud.getResourceManager().awaitAction(actionId, Duration.ofNanos(waitStrategy.remainingNanos()))
+                .handle((ignored, error) -> {
+                    if (error != null) {
+                        log.warn("Unable to await creation of server '{}', falling back to polling",
+                                serverInfo.getServerDetail().getName(), unwrap(error));
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    /**
+     * Wait for next polling interval, or less if server calls back in the meantime.
+     */
+    private static CompletableFuture<Void> waitNext(WaitStrategy waitStrategy) {
+        final int waitSeconds = waitStrategy.nextInterval();
+        final CompletableFuture<Void> elapsed = delay(waitSeconds, TimeUnit.SECONDS);
+        final CompletableFuture<Long> wakeUp = waitStrategy.wakeUp;
+        if (wakeUp == null) {
+            return elapsed;
+        }
+        final long wakeAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(waitSeconds);
+        return CompletableFuture.anyOf(elapsed, wakeUp).handle((ignored, error) -> {
+            if (wakeUp.isDone()) {
+                // server called back, check it right away, but only once
+                waitStrategy.wakeUp = null;
+                if (!wakeUp.isCompletedExceptionally()) {
+                    PHONE_HOME_SAVED.record(Math.max(0, wakeAt - System.nanoTime()));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Register node with Jenkins.
+     *
+     * @return future computer of node
+     */
+    private CompletableFuture<Computer> register() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Jenkins.get().addNode(agent);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            final Computer computer = agent.toComputer();
+            if (computer == null) {
+                throw new IllegalStateException("No computer object in agent " + agent.getDisplayName());
+            }
+            return computer;
+        }, IO);
+    }
+
+    /**
+     * Connect to computer, retrying after {@link #CONNECT_RETRY_SECONDS} if connection fails.
+     *
+     * @param computer computer to connect to
+     * @param attempts remaining attempts
+     * @return future node, once it's connected
+     */
+    private CompletableFuture<Node> connect(Computer computer, int attempts) {
+        return CompletableFuture.supplyAsync(() -> computer.connect(false), IO)
+                .thenCompose(ProvisioningPipeline::whenDone)
+                .handle((ignored, error) -> error)
+                .thenCompose(error -> {
+                    if (error == null) {
+                        return CompletableFuture.<Node>completedFuture(agent);
+                    }
+                    log.warn("Connection to '{}' has failed, remaining retries {}", computer.getDisplayName(),
+                            attempts - 1, unwrap(error));
+                    if (attempts <= 1) {
+                        throw new IllegalStateException("Computer is not connected : " + computer.getName());
+                    }
+                    return delay(CONNECT_RETRY_SECONDS, TimeUnit.SECONDS)
+                            .thenCompose(ignored -> connect(computer, attempts - 1));
+                });
+    }
+
+    /**
+     * Adapt plain future, whose completion can only be observed by blocking, by checking it periodically.
+     *
+     * @param future future to watch
+     * @return future completed once given future is done
+     */
+    @VisibleForTesting
+    static CompletableFuture<Void> whenDone(Future<?> future) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final ScheduledFuture<?> check = Timer.get().scheduleWithFixedDelay(() -> {
+            if (!future.isDone()) {
+                return;
+            }
+            try {
+                future.get();
+                result.complete(null);
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+            } catch (InterruptedException | CancellationException e) {
+                result.completeExceptionally(e);
+            }
+        }, 0, CONNECT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        result.whenComplete((ignored, error) -> check.cancel(false));
+        return result;
+    }
+
+    private static CompletableFuture<Void> delay(long amount, TimeUnit unit) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        Timer.get().schedule(() -> result.complete(null), amount, unit);
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Get address to connect to over SSH, as chosen by connection method of template.
+     *
+     * @param server server details
+     * @return address, or <code>null</code> if it's not known (yet)
+     */
+    private InetSocketAddress getSshAddress(ServerDetail server) {
+        final AbstractHetznerSshConnector connector = agent.getTemplate().getConnector();
+        final AbstractConnectionMethod method = Objects.requireNonNullElse(connector.getConnectionMethod(),
+                HetznerConstants.DEFAULT_CONNECTION_METHOD);
+        final String ip;
+        try {
+            ip = method.getAddress(server);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (ip == null || !InetAddresses.isInetAddress(ip)) {
+            return null;
+        }
+        return new InetSocketAddress(InetAddresses.forString(ip), connector.getSshPort() == 0 ? 22
+                : connector.getSshPort());
+    }
+
+    private static final class WaitStrategy {
+        private final int firstInterval;
+        private final int subsequentIntervals;
+        private final long deadlineNanos;
+        private boolean first = true;
+        /**
+         * Cuts waiting short once completed, see {@link PhoneHome}.
+         */
+        private volatile CompletableFuture<Long> wakeUp;
+
+        private WaitStrategy(int deadlineMinutes, int firstInterval, int subsequentIntervals,
+                             CompletableFuture<Long> wakeUp) {
+            deadlineNanos = System.nanoTime() + deadlineMinutes * 60L * 1_000_000_000L;
+            this.firstInterval = firstInterval;
+            this.subsequentIntervals = subsequentIntervals;
+            this.wakeUp = wakeUp;
+        }
+
+        boolean isDeadLineOver() {
+            return System.nanoTime() > deadlineNanos;
+        }
+
+        long remainingNanos() {
+            return Math.max(0, deadlineNanos - System.nanoTime());
+        }
+
+        int nextInterval() {
+            if (first) {
+                first = false;
+                return firstInterval;
+            }
+            return subsequentIntervals;
+        }
+    }
+}
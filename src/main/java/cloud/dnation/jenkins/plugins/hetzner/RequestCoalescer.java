@@ -0,0 +1,203 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import lombok.RequiredArgsConstructor;
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.http.GET;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Single-flight execution of identical read requests.
+ * <p>
+ * When call is made while identical call is already in flight, it waits for that call and shares its response
+ * instead of sending another request. Calls are identical if they target same endpoint with same parameters
+ * and priority. Each {@link SharedApiClient} has its own coalescer, so calls made with different API tokens
+ * are never shared. Only successful responses are shared, since error body can be consumed just once;
+ * callers which waited for failed call send their own request.
+ * <p>
+ * Every <code>GET</code> endpoint of {@link cloud.dnation.hetznerclient.HetznerApi} is coalesced, except
+ * those listed (by method name) in comma-separated system property
+ * <code>cloud.dnation.jenkins.plugins.hetzner.RequestCoalescer.excludedEndpoints</code>.
+ */
+final class RequestCoalescer {
+    private static final Set<String> EXCLUDED_ENDPOINTS = parseEndpoints(SystemProperties.getString(
+            RequestCoalescer.class.getName() + ".excludedEndpoints", ""));
+    private static final Counter SAVED = PluginMetrics.counter("api.coalesced");
+
+    private final ConcurrentMap<String, CompletableFuture<Response<?>>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> excludedEndpoints;
+
+    RequestCoalescer() {
+        this(EXCLUDED_ENDPOINTS);
+    }
+
+    @VisibleForTesting
+    RequestCoalescer(Set<String> excludedEndpoints) {
+        this.excludedEndpoints = excludedEndpoints;
+    }
+
+    @VisibleForTesting
+    static Set<String> parseEndpoints(String value) {
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToStream(value)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Check if calls of given API method are coalesced.
+     *
+     * @param method method of API interface
+     * @return <code>true</code> if method is read-only endpoint which is not excluded
+     */
+    boolean isCoalesced(Method method) {
+        return method.isAnnotationPresent(GET.class) && !excludedEndpoints.contains(method.getName());
+    }
+
+    /**
+     * Wrap call so that it's coalesced with identical calls.
+     *
+     * @param endpoint name of endpoint
+     * @param args     parameters of call
+     * @param priority priority of call
+     * @param call     call to wrap
+     * @param <T>      type of response body
+     * @return coalescing call
+     */
+    <T> Call<T> wrap(String endpoint, Object[] args, ApiPriority priority, Call<T> call) {
+        return new CoalescingCall<>(endpoint, priority + " " + endpoint + Arrays.deepToString(args), call);
+    }
+
+    @VisibleForTesting
+    int getInFlight() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Response<T> execute(String endpoint, String key, Call<T> call) throws IOException {
+        final CompletableFuture<Response<?>> own = new CompletableFuture<>();
+        final CompletableFuture<Response<?>> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            final Response<T> shared = (Response<T>) await(existing);
+            if (shared.isSuccessful()) {
+                SAVED.inc();
+                PluginMetrics.counter("api.coalesced." + endpoint).inc();
+                return shared;
+            }
+            return call.execute();
+        }
+        try {
+            final Response<T> response = call.execute();
+            own.complete(response);
+            return response;
+        } catch (IOException | RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private static Response<?> await(CompletableFuture<Response<?>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for coalesced API call");
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @RequiredArgsConstructor
+    private final class CoalescingCall<T> implements Call<T> {
+        private final String endpoint;
+        private final String key;
+        private final Call<T> delegate;
+
+        @Override
+        public Response<T> execute() throws IOException {
+            return RequestCoalescer.this.execute(endpoint, key, delegate);
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            Timer.get().submit(() -> {
+                try {
+                    callback.onResponse(this, execute());
+                } catch (Throwable t) {
+                    callback.onFailure(this, t);
+                }
+            });
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new CoalescingCall<>(endpoint, key, delegate.clone());
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.util.Timer;
+import lombok.RequiredArgsConstructor;
+import okhttp3.Headers;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.IOException;
+
+/**
+ * {@link Call} which is admitted by {@link ApiScheduler} before it's executed.
+ * Calls rejected by API due to rate limit (HTTP 429) are retried once budget allows it
+ * (see {@link ApiScheduler#execute}). Every attempt is recorded in {@link ApiMetrics}.
+ *
+ * @param <T> type of response body
+ */
+@RequiredArgsConstructor
+final class ScheduledCall<T> implements Call<T> {
+    private final Call<T> delegate;
+    private final ApiScheduler scheduler;
+    private final ApiPriority priority;
+    private final ApiMetrics.Endpoint metrics;
+
+    @Override
+    public Response<T> execute() throws IOException {
+        return scheduler.execute(priority, metrics,
+                attempt -> (attempt == 1 ? delegate : delegate.clone()).execute(), new RetrofitView<>());
+    }
+
+    private static final class RetrofitView<T> implements ApiScheduler.ResponseView<Response<T>> {
+        @Override
+        public Headers headers(Response<T> response) {
+            return response.headers();
+        }
+
+        @Override
+        public int code(Response<T> response) {
+            return response.code();
+        }
+
+        @Override
+        public ResponseBody errorBody(Response<T> response) {
+            return response.errorBody();
+        }
+
+        @Override
+        public void discard(Response<T> response) {
+            if (response.errorBody() != null) {
+                response.errorBody().close();
+            }
+        }
+    }
+
+    @Override
+    public void enqueue(@NonNull Callback<T> callback) {
+        Timer.get().submit(() -> {
+            try {
+                callback.onResponse(this, execute());
+            } catch (Throwable t) {
+                callback.onFailure(this, t);
+            }
+        });
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return delegate.isExecuted();
+    }
+
+    @Override
+    public void cancel() {
+        delegate.cancel();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return delegate.isCanceled();
+    }
+
+    @NonNull
+    @Override
+    public Call<T> clone() {
+        return new ScheduledCall<>(delegate.clone(), scheduler, priority, metrics);
+    }
+
+    @NonNull
+    @Override
+    public Request request() {
+        return delegate.request();
+    }
+
+    @NonNull
+    @Override
+    public Timeout timeout() {
+        return delegate.timeout();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.CreateServerFirewallsRequest;
+import cloud.dnation.hetznerclient.CreateServerRequest;
+import cloud.dnation.hetznerclient.PublicNetRequest;
+import cloud.dnation.jenkins.plugins.hetzner.LabelResolutionCache.ResourceType;
+import cloud.dnation.jenkins.plugins.hetzner.connect.ConnectivityType;
+import com.google.common.base.Strings;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, pre-parsed form of {@link HetznerServerTemplate}.
+ * <p>
+ * All parsing of template (volume IDs, literal vs. label references, networking options and server labels)
+ * happens once when blueprint is compiled. Creating request for new server then only copies values
+ * and resolves label references using cache.
+ */
+final class ServerBlueprint {
+    private static final Set<ConnectivityType> PRIMARY_IP_CONNECTIVITY = Set.of(
+            ConnectivityType.BOTH, ConnectivityType.PUBLIC_V6, ConnectivityType.PUBLIC);
+
+    /**
+     * Reference to resource given either by ID or by label expression.
+     */
+    record Reference(ResourceType type, Long id, String labelExpression) {
+        static Reference parse(ResourceType type, String value) {
+            if (Strings.isNullOrEmpty(value)) {
+                return null;
+            }
+            if (Helper.isPossiblyLong(value)) {
+                return new Reference(type, Long.parseLong(value), null);
+            }
+            return new Reference(type, null, value);
+        }
+
+        long resolve(LabelResolutionCache.Resolver resolver) throws IOException {
+            return id != null ? id : resolver.resolve(type, labelExpression);
+        }
+    }
+
+    private final String image;
+    private final boolean imageLabelExpression;
+    private final String serverType;
+    private final String location;
+    private final String userData;
+    private final boolean automount;
+    private final List<Long> volumes;
+    private final boolean enableIpv4;
+    private final boolean enableIpv6;
+    private final Reference network;
+    private final Reference placementGroup;
+    private final Reference firewall;
+    private final Map<String, String> labels;
+    @Getter
+    private final boolean primaryIpApplicable;
+
+    private ServerBlueprint(HetznerServerTemplate template) throws IOException {
+        image = template.getImage();
+        imageLabelExpression = Helper.isLabelExpression(Strings.nullToEmpty(image));
+        serverType = template.getServerType();
+        location = template.getLocation();
+        userData = Strings.emptyToNull(template.getUserData());
+        automount = template.isAutomountVolumes();
+        volumes = Strings.isNullOrEmpty(template.getVolumeIds()) ? null : Helper.idList(template.getVolumeIds());
+
+        final ConnectivityType ct = template.getConnectivity().getType();
+        final CreateServerRequest networking = new CreateServerRequest();
+        final boolean[] privateNet = new boolean[1];
+        HetznerCloudResourceManager.customizeNetworking(ct, networking, template.getNetwork(),
+                (req, net) -> privateNet[0] = true);
+        enableIpv4 = networking.getPublicNet().getEnableIpv4();
+        enableIpv6 = networking.getPublicNet().getEnableIpv6();
+        network = privateNet[0] ? Reference.parse(ResourceType.NETWORK, template.getNetwork()) : null;
+        placementGroup = Reference.parse(ResourceType.PLACEMENT_GROUP, template.getPlacementGroup());
+        firewall = Reference.parse(ResourceType.FIREWALL, template.getFirewall());
+        labels = Collections.unmodifiableMap(
+                HetznerCloudResourceManager.createLabelsForServer(template.getCloud().name));
+        primaryIpApplicable = PRIMARY_IP_CONNECTIVITY.contains(ct);
+    }
+
+    /**
+     * Compile blueprint from server template.
+     *
+     * @param template server template
+     * @return compiled blueprint
+     * @throws IllegalArgumentException if template contains value that can't be parsed
+     */
+    static ServerBlueprint compile(HetznerServerTemplate template) {
+        try {
+            return new ServerBlueprint(template);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Invalid server template '" + template.getName() + "'", e);
+        }
+    }
+
+    /**
+     * Create new request to create server.
+     *
+     * @param name       name of server
+     * @param sshKeyName name of SSH key to put into server
+     * @param resolver   resolver of label references
+     * @return new request instance, which is not shared with any other caller
+     * @throws IOException if label reference can't be resolved
+     */
+    CreateServerRequest newRequest(String name, String sshKeyName, LabelResolutionCache.Resolver resolver)
+            throws IOException {
+        final CreateServerRequest req = new CreateServerRequest();
+        req.setName(name);
+        req.setSshKeys(Collections.singletonList(sshKeyName));
+        req.setImage(imageLabelExpression ? String.valueOf(resolver.resolve(ResourceType.IMAGE, image)) : image);
+        req.setServerType(serverType);
+        req.setLocation(location);
+        req.setLabels(new HashMap<>(labels));
+        if (automount) {
+            req.setAutomount(true);
+        }
+        if (volumes != null) {
+            req.setVolumes(new ArrayList<>(volumes));
+        }
+        req.setPublicNet(new PublicNetRequest());
+        req.getPublicNet().setEnableIpv4(enableIpv4);
+        req.getPublicNet().setEnableIpv6(enableIpv6);
+        if (network != null) {
+            req.setNetworks(new ArrayList<>(List.of(network.resolve(resolver))));
+        }
+        if (placementGroup != null) {
+            req.setPlacementGroup(placementGroup.resolve(resolver));
+        }
+        if (firewall != null) {
+            req.setFirewalls(List.of(new CreateServerFirewallsRequest().firewall(firewall.resolve(resolver))));
+        }
+        if (userData != null) {
+            req.setUserData(userData);
+        }
+        return req;
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.GetServerByIdResponse;
+import cloud.dnation.hetznerclient.HetznerApi;
+import cloud.dnation.hetznerclient.ServerDetail;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Gauge;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.LatencyRecorder;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static cloud.dnation.jenkins.plugins.hetzner.Helper.assertValidResponse;
+
+/**
+ * Destroys servers asynchronously.
+ * <p>
+ * Steps taken depend on {@link TeardownMode}. With {@link TeardownMode#POWER_OFF_AND_WAIT}, server goes through
+ * states {@link State#QUEUED}, {@link State#POWERING_OFF}, {@link State#WAITING_FOR_SHUTDOWN}
+ * and {@link State#DELETING}. Completion of power off is awaited using {@link ActionTracker}, or by scheduling
+ * next check of server state if API didn't return any action. Either way, no thread is blocked while server
+ * shuts down. {@link TeardownMode#SHUTDOWN_WITH_GRACE} sends ACPI shutdown instead and waits for server to power
+ * off at most {@link #SHUTDOWN_GRACE_MILLIS}, {@link TeardownMode#DELETE_IMMEDIATELY} goes straight to deletion.
+ * Steps which call API run on bounded executor, only delays between them are left to scheduler.
+ * Number of servers being destroyed at the same time is bounded, excess requests are queued.
+ * Duration and number of API calls of destruction are reported per teardown mode.
+ */
+@Slf4j
+final class ServerDestroyer {
+    /**
+     * Maximum number of servers being destroyed at the same time for single API token.
+     */
+    static final int MAX_IN_FLIGHT = SystemProperties.getInteger(
+            ServerDestroyer.class.getName() + ".maxInFlight", 20);
+    private static final long POLL_INTERVAL_MILLIS = 5000;
+    /**
+     * Maximum wait time for shutdown: 60 * 5s = 300s (5 minutes).
+     */
+    private static final int MAX_POLL_ATTEMPTS = 60;
+    /**
+     * How long {@link TeardownMode#SHUTDOWN_WITH_GRACE} waits for server to power off before it's deleted anyway.
+     */
+    static final long SHUTDOWN_GRACE_MILLIS = SystemProperties.getLong(
+            ServerDestroyer.class.getName() + ".shutdownGraceMillis", 30_000L);
+    private static final Gauge QUEUED = PluginMetrics.gauge("destroy.queued");
+    private static final Gauge IN_FLIGHT = PluginMetrics.gauge("destroy.inflight");
+    private static final Counter COMPLETED = PluginMetrics.counter("destroy.completed");
+    private static final Counter FAILED = PluginMetrics.counter("destroy.failed");
+    private static final LatencyRecorder DURATION = PluginMetrics.latency("destroy.duration");
+
+    enum State {
+        QUEUED,
+        POWERING_OFF,
+        SHUTTING_DOWN,
+        WAITING_FOR_SHUTDOWN,
+        DELETING
+    }
+
+    /**
+     * Sends ACPI shutdown request to server.
+     */
+    interface Shutdown {
+        /**
+         * @param serverId ID of server
+         * @return ID of action, or <code>null</code> if API didn't return any
+         * @throws IOException if API call fails
+         */
+        Long shutdown(long serverId) throws IOException;
+    }
+
+    private static final class Task {
+        private final ServerDetail server;
+        private final TeardownMode mode;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long startedAt = System.nanoTime();
+        private volatile State state = State.QUEUED;
+        private int attempts;
+        private int maxAttempts = MAX_POLL_ATTEMPTS;
+        private final AtomicInteger apiCalls = new AtomicInteger();
+
+        private Task(ServerDetail server, TeardownMode mode) {
+            this.server = server;
+            this.mode = mode;
+        }
+    }
+
+    private final Function<ApiPriority, HetznerApi> api;
+    private final Shutdown shutdown;
+    private final ActionTracker actionTracker;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final int maxInFlight;
+    private final long pollIntervalMillis;
+    private final long shutdownGraceMillis;
+    private final ConcurrentMap<Long, Task> tasks = new ConcurrentHashMap<>();
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param api           API of given priority
+     * @param shutdown      sends ACPI shutdown request
+     * @param actionTracker tracks power off actions
+     * @param executor      runs steps which call API
+     * @param scheduler     schedules delays between steps
+     */
+    ServerDestroyer(Function<ApiPriority, HetznerApi> api, Shutdown shutdown, ActionTracker actionTracker,
+                    Executor executor, ScheduledExecutorService scheduler) {
+        this(api, shutdown, actionTracker, executor, scheduler, MAX_IN_FLIGHT, POLL_INTERVAL_MILLIS,
+                SHUTDOWN_GRACE_MILLIS);
+    }
+
+    @VisibleForTesting
+    ServerDestroyer(Function<ApiPriority, HetznerApi> api, Shutdown shutdown, ActionTracker actionTracker,
+                    Executor executor, ScheduledExecutorService scheduler, int maxInFlight,
+                    long pollIntervalMillis, long shutdownGraceMillis) {
+        this.api = api;
+        this.shutdown = shutdown;
+        this.actionTracker = actionTracker;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.maxInFlight = maxInFlight;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.shutdownGraceMillis = shutdownGraceMillis;
+    }
+
+    /**
+     * Start destruction of server. This method returns immediately.
+     * If server is already being destroyed, future of that destruction is returned.
+     *
+     * @param server server to destroy
+     * @param mode   teardown mode
+     * @return future completed once server is deleted, or completed exceptionally if destruction failed
+     */
+    CompletableFuture<Void> destroy(ServerDetail server, TeardownMode mode) {
+        final Task task = new Task(server, mode);
+        final Task existing = tasks.putIfAbsent(server.getId(), task);
+        if (existing != null) {
+            return existing.future;
+        }
+        QUEUED.inc();
+        queue.add(task);
+        dispatch();
+        return task.future;
+    }
+
+    /**
+     * Get state of destruction of server.
+     *
+     * @param serverId ID of server
+     * @return state, or <code>null</code> if server is not being destroyed
+     */
+    State getState(long serverId) {
+        final Task task = tasks.get(serverId);
+        return task == null ? null : task.state;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * Get future which is completed once all currently known destructions are done.
+     *
+     * @return future
+     */
+    CompletableFuture<Void> allPending() {
+        return CompletableFuture.allOf(tasks.values().stream()
+                .map(t -> t.future.exceptionally(e -> null))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private void dispatch() {
+        while (true) {
+            final int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            final Task task = queue.poll();
+            if (task == null) {
+                inFlight.decrementAndGet();
+                // task might have been queued after poll, while slot was taken
+                if (queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            QUEUED.dec();
+            IN_FLIGHT.inc();
+            executor.execute(() -> start(task));
+        }
+    }
+
+    private void start(Task task) {
+        switch (task.mode) {
+            case DELETE_IMMEDIATELY -> delete(task);
+            case SHUTDOWN_WITH_GRACE -> shutdown(task);
+            case POWER_OFF_AND_WAIT -> powerOff(task);
+        }
+    }
+
+    private void shutdown(Task task) {
+        final long serverId = task.server.getId();
+        task.state = State.SHUTTING_DOWN;
+        task.maxAttempts = (int) Math.max(1, shutdownGraceMillis / pollIntervalMillis);
+        try {
+            task.apiCalls.incrementAndGet();
+            shutdown.shutdown(serverId);
+            log.info("Shutdown initiated for server with ID = {}, waiting at most {}ms", serverId,
+                    shutdownGraceMillis);
+        } catch (Exception e) {
+            log.warn("Unable to shut down server with ID = {}, proceeding with deletion", serverId, e);
+            delete(task);
+            return;
+        }
+        // ACPI shutdown action finishes once signal is delivered, so state of server is polled
+        task.state = State.WAITING_FOR_SHUTDOWN;
+        scheduleCheck(task);
+    }
+
+    private void powerOff(Task task) {
+        final long serverId = task.server.getId();
+        try {
+            task.state = State.POWERING_OFF;
+            task.apiCalls.incrementAndGet();
+            final Response<?> response = api.apply(ApiPriority.DELETE).powerOffServer(serverId).execute();
+            assertValidResponse(response);
+            log.info("Power off initiated for server with ID = {}, waiting for shutdown...", serverId);
+            task.state = State.WAITING_FOR_SHUTDOWN;
+            final Long actionId = ActionTracker.extractActionId(response.body());
+            if (actionId != null) {
+                actionTracker.track(actionId, Duration.ofMillis(pollIntervalMillis * MAX_POLL_ATTEMPTS))
+                        .whenCompleteAsync((ignored, error) -> {
+                            if (error != null) {
+                                log.warn("Power off of server with ID = {} didn't succeed, "
+                                        + "proceeding with deletion anyway", serverId, error);
+                            } else {
+                                log.info("Server with ID = {} is now powered off, proceeding with deletion",
+                                        serverId);
+                            }
+                            delete(task);
+                        }, executor);
+            } else {
+                // no action to track, fall back to polling state of server
+                scheduleCheck(task);
+            }
+        } catch (Exception e) {
+            finish(task, e);
+        }
+    }
+
+    private void checkShutdown(Task task) {
+        final long serverId = task.server.getId();
+        task.attempts++;
+        try {
+            task.apiCalls.incrementAndGet();
+            final Response<GetServerByIdResponse> response = api.apply(ApiPriority.POLL)
+                    .getServer(serverId).execute();
+            if (response.code() == 404) {
+                log.info("Server with ID = {} no longer exists", serverId);
+                finish(task, null);
+                return;
+            }
+            if (response.isSuccessful() && response.body() != null && response.body().getServer() != null) {
+                final String status = response.body().getServer().getStatus();
+                if ("off".equals(status)) {
+                    log.info("Server with ID = {} is now powered off, proceeding with deletion", serverId);
+                    delete(task);
+                    return;
+                }
+                log.debug("Server with ID = {} is still in '{}' status, waiting...", serverId, status);
+            }
+        } catch (Exception e) {
+            log.debug("Unable to check status of server with ID = {}", serverId, e);
+        }
+        if (task.attempts >= task.maxAttempts) {
+            log.warn("Server with ID = {} did not power off within expected time, proceeding with deletion anyway",
+                    serverId);
+            delete(task);
+        } else {
+            scheduleCheck(task);
+        }
+    }
+
+    private void scheduleCheck(Task task) {
+        scheduler.schedule(() -> executor.execute(() -> checkShutdown(task)), pollIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void delete(Task task) {
+        final long serverId = task.server.getId();
+        try {
+            task.state = State.DELETING;
+            task.apiCalls.incrementAndGet();
+            final Response<?> response = api.apply(ApiPriority.DELETE).deleteServer(serverId).execute();
+            if (response.code() == 404) {
+                log.info("Server with ID = {} no longer exists", serverId);
+                finish(task, null);
+                return;
+            }
+            assertValidResponse(response);
+            log.info("Server with ID = {} successfully deleted", serverId);
+            finish(task, null);
+        } catch (Exception e) {
+            finish(task, e);
+        }
+    }
+
+    private void finish(Task task, Exception error) {
+        tasks.remove(task.server.getId(), task);
+        inFlight.decrementAndGet();
+        IN_FLIGHT.dec();
+        DURATION.recordSince(task.startedAt);
+        final String mode = task.mode.name().toLowerCase(Locale.ROOT);
+        PluginMetrics.latency("destroy.duration." + mode).recordSince(task.startedAt);
+        PluginMetrics.counter("destroy.apicalls." + mode).add(task.apiCalls.get());
+        if (error == null) {
+            COMPLETED.inc();
+            task.future.complete(null);
+        } else {
+            FAILED.inc();
+            log.error("Unable to destroy server with ID = {} (name={}). "
+                            + "Server may become orphaned and will be retried by OrphanedNodesCleaner.",
+                    task.server.getId(), task.server.getName(), error);
+            task.future.completeExceptionally(error);
+        }
+        dispatch();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.ServerDetail;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory view of all servers that belong to single cloud, indexed by ID and name.
+ * <p>
+ * Inventory is refreshed by periodic listing of servers (see {@link ServerInventoryRefresher}) and updated
+ * write-through whenever plugin creates or destroys server, so that counts and states can be read without
+ * calling API. If inventory was not refreshed for {@link #MAX_AGE_MILLIS}, it's refreshed on read.
+ */
+@Slf4j
+final class ServerInventory {
+    /**
+     * Maximum age of inventory which is served without refresh.
+     */
+    static final long MAX_AGE_MILLIS = SystemProperties.getLong(
+            ServerInventory.class.getName() + ".maxAgeMillis", 60_000L);
+    private static final Counter REFRESHES = PluginMetrics.counter("inventory.refreshes");
+
+    /**
+     * Lists all servers of cloud using API.
+     */
+    interface Lister {
+        List<ServerDetail> list() throws IOException;
+    }
+
+    /**
+     * @param server    server detail
+     * @param updatedAt time when entry was written
+     */
+    private record Entry(ServerDetail server, long updatedAt) {
+    }
+
+    private final ConcurrentMap<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> idsByName = new ConcurrentHashMap<>();
+    /**
+     * Time of removal of servers, keyed by ID, so that listing which started before removal won't add them back.
+     */
+    private final ConcurrentMap<Long, Long> removedAt = new ConcurrentHashMap<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final Lister lister;
+    private final LongSupplier clock;
+    private volatile long refreshedAt = -1;
+
+    ServerInventory(Lister lister) {
+        this(lister, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ServerInventory(Lister lister, LongSupplier clock) {
+        this.lister = lister;
+        this.clock = clock;
+    }
+
+    /**
+     * Replace content of inventory with fresh listing of servers.
+     * Entries written or removed after listing started are preserved, since they are newer than listing.
+     *
+     * @throws IOException if API call fails
+     */
+    void refresh() throws IOException {
+        refreshLock.lock();
+        try {
+            final long startedAt = clock.getAsLong();
+            final List<ServerDetail> servers = lister.list();
+            REFRESHES.inc();
+            final Set<Long> listed = new HashSet<>();
+            for (ServerDetail server : servers) {
+                final Long removed = removedAt.get(server.getId());
+                if (removed != null && removed >= startedAt) {
+                    continue;
+                }
+                listed.add(server.getId());
+                byId.compute(server.getId(), (id, existing) ->
+                        existing != null && existing.updatedAt() >= startedAt ? existing : new Entry(server, startedAt));
+                idsByName.put(server.getName(), server.getId());
+            }
+            byId.values().removeIf(e -> !listed.contains(e.server().getId()) && e.updatedAt() < startedAt);
+            idsByName.values().removeIf(id -> !byId.containsKey(id));
+            removedAt.values().removeIf(at -> at < startedAt);
+            refreshedAt = startedAt;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Refresh inventory if it's older than {@link #MAX_AGE_MILLIS}.
+     * Concurrent callers wait for single refresh.
+     *
+     * @throws IOException if API call fails
+     */
+    void ensureFresh() throws IOException {
+        if (isFresh()) {
+            return;
+        }
+        refreshLock.lock();
+        try {
+            if (!isFresh()) {
+                refresh();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    boolean isFresh() {
+        final long at = refreshedAt;
+        return at >= 0 && clock.getAsLong() - at < MAX_AGE_MILLIS;
+    }
+
+    /**
+     * Get all servers of cloud.
+     *
+     * @return snapshot of servers
+     * @throws IOException if inventory needed refresh and API call failed
+     */
+    List<ServerDetail> getAll() throws IOException {
+        ensureFresh();
+        return snapshot();
+    }
+
+    /**
+     * Get all servers of cloud, without refreshing inventory.
+     *
+     * @return snapshot of servers
+     */
+    List<ServerDetail> snapshot() {
+        return byId.values().stream().map(Entry::server).toList();
+    }
+
+    /**
+     * Count servers which are running or about to run.
+     *
+     * @return number of servers
+     * @throws IOException if inventory needed refresh and API call failed
+     */
+    int countRunnable() throws IOException {
+        ensureFresh();
+        return (int) byId.values().stream()
+                .filter(e -> HetznerConstants.RUNNABLE_STATE_SET.contains(e.server().getStatus()))
+                .count();
+    }
+
+    /**
+     * Get server by ID, without refreshing inventory.
+     *
+     * @param id ID of server
+     * @return server, if present
+     */
+    Optional<ServerDetail> getById(long id) {
+        return Optional.ofNullable(byId.get(id)).map(Entry::server);
+    }
+
+    /**
+     * Get server by name, without refreshing inventory.
+     *
+     * @param name name of server
+     * @return server, if present
+     */
+    Optional<ServerDetail> getByName(String name) {
+        return Optional.ofNullable(idsByName.get(name)).flatMap(this::getById);
+    }
+
+    /**
+     * Put server into inventory, e.g. after it was created or its state was fetched.
+     *
+     * @param server server detail
+     */
+    void put(ServerDetail server) {
+        byId.put(server.getId(), new Entry(server, clock.getAsLong()));
+        idsByName.put(server.getName(), server.getId());
+    }
+
+    /**
+     * Remove server from inventory once it was deleted.
+     *
+     * @param id ID of server
+     */
+    void remove(long id) {
+        removedAt.put(id, clock.getAsLong());
+        final Entry removed = byId.remove(id);
+        if (removed != null) {
+            idsByName.remove(removed.server().getName(), id);
+        }
+    }
+
+    int size() {
+        return byId.size();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.jenkinsci.Symbol;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically refreshes {@link ServerInventory} of every Hetzner cloud using single paged listing of servers
+ * and reconciles {@link CapacityLedger} with it. Servers of clouds which were removed are forgotten.
+ */
+@Extension
+@Symbol("ServerInventoryRefresher")
+@Slf4j
+public class ServerInventoryRefresher extends PeriodicWork {
+    private static final long PERIOD_MILLIS = SystemProperties.getLong(
+            ServerInventoryRefresher.class.getName() + ".periodMillis", 30_000L);
+
+    @Override
+    public long getRecurrencePeriod() {
+        return PERIOD_MILLIS;
+    }
+
+    @Override
+    protected void doRun() {
+        final Set<HetznerCloud> clouds = OrphanedNodesCleaner.getHetznerClouds();
+        CloudServers.retainAll(clouds.stream().map(cloud -> cloud.name).collect(Collectors.toSet()));
+        for (HetznerCloud cloud : clouds) {
+            try {
+                cloud.getInventory().refresh();
+                cloud.getCapacityLedger().recount();
+            } catch (Exception e) {
+                // Catch-all to prevent killing this PeriodicWork timer.
+                log.warn("Unable to refresh server inventory of cloud '{}'", cloud.name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.HetznerApi;
+import cloud.dnation.hetznerclient.PrimaryIpDetail;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import retrofit2.Call;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Long-lived {@link HetznerApi} client shared by all components that use the same API token.
+ * <p>
+ * Creating client for every call throws away connection pool, TLS sessions and dispatcher threads,
+ * so instances are kept in registry keyed by credentialsId and dropped only when credentials change
+ * (see {@link CredentialsChangeListener}) or API token is rejected.
+ * Background work of API token ({@link ActionTracker}, {@link ServerDestroyer}) outlives client, its blocking calls
+ * run on small pool of {@link #WORKER_THREADS} threads shared by all tokens.
+ * All calls made through this client share one {@link ApiScheduler}, so that rate limit of API token
+ * is respected by all clouds that use it. Identical concurrent read requests are coalesced
+ * by {@link RequestCoalescer}.
+ * Remaining rate limit budget of API token is exposed as <code>api.ratelimit.remaining.&lt;credentialsId&gt;</code>
+ * metric.
+ */
+@Slf4j
+public final class SharedApiClient {
+    /**
+     * Maximum number of API calls that can be in flight at the same time for single API token.
+     */
+    static final int MAX_CONCURRENT_CALLS = SystemProperties.getInteger(
+            SharedApiClient.class.getName() + ".maxConcurrentCalls", 10);
+
+    /**
+     * Base URL of API, can be changed to point plugin to API-compatible endpoint (e.g. fake API used by load tests).
+     */
+    static final String API_BASE_URL = SystemProperties.getString(SharedApiClient.class.getName() + ".apiBaseUrl",
+            HetznerConstants.API_BASE_URL);
+
+    /**
+     * Used to (de)serialize API payloads everywhere, so that raw HTTP calls map resources the same way
+     * as {@link HetznerApi}.
+     */
+    static final Gson GSON = new Gson();
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long READ_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Number of threads which run blocking API calls of background work (destruction of servers,
+     * tracking of actions, pages of listings, refreshes of label cache), shared by all API tokens.
+     */
+    static final int WORKER_THREADS = SystemProperties.getInteger(
+            SharedApiClient.class.getName() + ".workerThreads", 10);
+    private static final ExecutorService WORKERS = newWorkers();
+
+    private static final ConcurrentMap<String, SharedApiClient> CLIENTS = new ConcurrentHashMap<>();
+    /**
+     * Background work is kept when client is invalidated, so that work in flight is neither lost nor duplicated.
+     */
+    private static final ConcurrentMap<String, Background> BACKGROUND = new ConcurrentHashMap<>();
+    private static final String REMAINING_METRIC = "api.ratelimit.remaining.";
+
+    @Getter
+    private final String credentialsId;
+    private final HetznerApi api;
+    @Getter(AccessLevel.PACKAGE)
+    private final ApiScheduler scheduler = new ApiScheduler(MAX_CONCURRENT_CALLS);
+    private final Map<ApiPriority, HetznerApi> scheduledApis = new EnumMap<>(ApiPriority.class);
+    @Getter(AccessLevel.PACKAGE)
+    private final ApiHttpClient httpClient;
+    @Getter(AccessLevel.PACKAGE)
+    private final LabelResolutionCache labelCache = new LabelResolutionCache();
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    private SharedApiClient(String credentialsId) {
+        this(credentialsId, API_BASE_URL);
+    }
+
+    private SharedApiClient(String credentialsId, String baseUrl) {
+        this(credentialsId, createHttpClient(credentialsId), baseUrl);
+    }
+
+    private SharedApiClient(String credentialsId, OkHttpClient okHttpClient, String baseUrl) {
+        this(credentialsId, createApi(baseUrl, okHttpClient), okHttpClient, baseUrl);
+    }
+
+    private SharedApiClient(String credentialsId, HetznerApi api, OkHttpClient okHttpClient, String baseUrl) {
+        this.credentialsId = credentialsId;
+        this.api = api;
+        // raw calls share connection pool and settings of API client
+        this.httpClient = new ApiHttpClient(okHttpClient, baseUrl, scheduler);
+        for (ApiPriority priority : ApiPriority.values()) {
+            scheduledApis.put(priority, schedule(api, priority));
+        }
+        PluginMetrics.probe(REMAINING_METRIC + credentialsId, scheduler::getRemaining);
+    }
+
+    private record Background(ActionTracker actionTracker, ServerDestroyer destroyer) {
+    }
+
+    /**
+     * Get pool which runs blocking API calls of background work.
+     *
+     * @return worker pool
+     */
+    static Executor workers() {
+        return WORKERS;
+    }
+
+    private static ExecutorService newWorkers() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 60,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "Hetzner API worker"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Create background work of API token. It always uses current client of token, which might be replaced
+     * in the meantime.
+     */
+    private static Background createBackground(String credentialsId) {
+        final ActionTracker actionTracker = new ActionTracker(
+                ActionTracker.httpFetcher(() -> forCredentialsId(credentialsId).getHttpClient()), Timer.get(), WORKERS,
+                ActionTracker.TICK_MILLIS);
+        final ServerDestroyer destroyer = new ServerDestroyer(
+                priority -> forCredentialsId(credentialsId).getApi(priority),
+                serverId -> ActionTracker.extractActionId(forCredentialsId(credentialsId).getHttpClient()
+                        .post(ApiPriority.DELETE, "servers/" + serverId + "/actions/shutdown")),
+                actionTracker, WORKERS, Timer.get());
+        return new Background(actionTracker, destroyer);
+    }
+
+    private Background background() {
+        return BACKGROUND.computeIfAbsent(credentialsId, SharedApiClient::createBackground);
+    }
+
+    /**
+     * Get tracker of actions started using API token.
+     *
+     * @return action tracker
+     */
+    ActionTracker getActionTracker() {
+        return background().actionTracker();
+    }
+
+    /**
+     * Get destroyer of servers created using API token.
+     *
+     * @return destroyer
+     */
+    ServerDestroyer getDestroyer() {
+        return background().destroyer();
+    }
+
+    /**
+     * Create HTTP client which authenticates calls using API token held by given credentials.
+     * Once token is rejected, cached token and client are dropped, so that token is looked up again. Credentials
+     * provider which holds it (e.g. external secret store) might not notify about change.
+     *
+     * @param credentialsId ID of credentials holding API token
+     * @return HTTP client
+     */
+    static OkHttpClient createHttpClient(String credentialsId) {
+        final JenkinsSecretTokenProvider token = JenkinsSecretTokenProvider.forCredentialsId(credentialsId);
+        return new OkHttpClient.Builder()
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .writeTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .addInterceptor(chain -> {
+                    final Response response = chain.proceed(chain.request().newBuilder()
+                            .header("Authorization", "Bearer " + token.get())
+                            .build());
+                    if (response.code() == 401) {
+                        log.warn("API token of credentials '{}' was rejected, it will be looked up again",
+                                credentialsId);
+                        JenkinsSecretTokenProvider.invalidate(credentialsId);
+                        invalidate(credentialsId);
+                    }
+                    return response;
+                })
+                .build();
+    }
+
+    /**
+     * Create API client for given base URL.
+     * Client for default and any other URL (e.g. fake API used by load tests) is assembled the same way,
+     * so that tests exercise the same HTTP client and JSON mapping as production.
+     *
+     * @param baseUrl    base URL of API
+     * @param httpClient HTTP client
+     * @return API client
+     */
+    static HetznerApi createApi(String baseUrl, OkHttpClient httpClient) {
+        if (!HetznerConstants.API_BASE_URL.equals(baseUrl)) {
+            log.info("Using API at {}", baseUrl);
+        }
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(httpClient)
+                .addConverterFactory(GsonConverterFactory.create(GSON))
+                .build()
+                .create(HetznerApi.class);
+    }
+
+    private HetznerApi schedule(HetznerApi target, ApiPriority priority) {
+        return (HetznerApi) Proxy.newProxyInstance(HetznerApi.class.getClassLoader(),
+                new Class<?>[]{HetznerApi.class}, (proxy, method, args) -> {
+                    final Object result;
+                    try {
+                        result = method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Call<?> call) {
+                        final Call<?> scheduled = new ScheduledCall<>(call, scheduler, priority,
+                                ApiMetrics.endpoint(method.getName()));
+                        return coalescer.isCoalesced(method)
+                                ? coalescer.wrap(method.getName(), args, priority, scheduled)
+                                : scheduled;
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Fetch all resources matching label selector, pages are fetched concurrently.
+     *
+     * @param priority       priority of API calls
+     * @param resource       name of resource, e.g. <code>servers</code>
+     * @param labelSelector  label selector
+     * @param type           type of item
+     * @param retainedFields fields of item which are populated
+     * @param <T>            type of item
+     * @return list of resources
+     * @throws IOException if API call fails
+     */
+    <T> List<T> fetchAll(ApiPriority priority, String resource, String labelSelector, Class<T> type,
+                         Set<String> retainedFields) throws IOException {
+        return PagedListing.fetchAll(
+                PagedListing.httpFetcher(httpClient, priority, resource, labelSelector, type, retainedFields),
+                WORKERS, PagedListing.MAX_PARALLEL_PAGES);
+    }
+
+    /**
+     * Register client backed by given {@link HetznerApi} implementation.
+     *
+     * @param credentialsId ID of credentials
+     * @param api           API implementation
+     * @return registered client
+     */
+    @VisibleForTesting
+    static SharedApiClient register(String credentialsId, HetznerApi api) {
+        return register(new SharedApiClient(credentialsId, api, createHttpClient(credentialsId), API_BASE_URL));
+    }
+
+    /**
+     * Register client which talks to API at given base URL.
+     *
+     * @param credentialsId ID of credentials
+     * @param baseUrl       base URL of API
+     * @return registered client
+     */
+    @VisibleForTesting
+    static SharedApiClient register(String credentialsId, String baseUrl) {
+        return register(new SharedApiClient(credentialsId, baseUrl));
+    }
+
+    private static SharedApiClient register(SharedApiClient client) {
+        CLIENTS.put(client.credentialsId, client);
+        return client;
+    }
+
+    /**
+     * Get shared client for given credentialsId, creating it on first use.
+     *
+     * @param credentialsId ID of credentials holding API token
+     * @return shared client
+     */
+    public static SharedApiClient forCredentialsId(@NonNull String credentialsId) {
+        return CLIENTS.computeIfAbsent(credentialsId, SharedApiClient::new);
+    }
+
+    /**
+     * Drop cached client for given credentialsId, so that next use creates fresh one.
+     *
+     * @param credentialsId ID of credentials
+     */
+    public static void invalidate(String credentialsId) {
+        if (CLIENTS.remove(credentialsId) != null) {
+            PluginMetrics.removeProbe(REMAINING_METRIC + credentialsId);
+            log.info("Invalidated API client for credentials '{}'", credentialsId);
+        }
+    }
+
+    /**
+     * Drop all cached clients.
+     */
+    public static void invalidateAll() {
+        CLIENTS.keySet().forEach(SharedApiClient::invalidate);
+    }
+
+    /**
+     * Get API whose calls are scheduled with given priority.
+     * Number of concurrent calls and rate of calls per API token are bounded by shared {@link ApiScheduler}.
+     *
+     * @param priority priority of calls
+     * @return API proxy
+     */
+    public HetznerApi getApi(ApiPriority priority) {
+        return scheduledApis.get(priority);
+    }
+
+    /**
+     * Get listings of paged resources, whose calls are scheduled with given priority.
+     *
+     * @param priority priority of calls
+     * @return listing API
+     */
+    public PagedListingApi getListingApi(ApiPriority priority) {
+        return labelSelector -> fetchAll(priority, "primary_ips", labelSelector, PrimaryIpDetail.class,
+                PagedListing.PRIMARY_IP_FIELDS);
+    }
+
+    /**
+     * Get API whose calls are scheduled with {@link ApiPriority#POLL} priority.
+     *
+     * @return API proxy
+     */
+    public HetznerApi getApi() {
+        return getApi(ApiPriority.POLL);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.SshKeyDetail;
+import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Remembers SSH keys that were already registered in cloud.
+ * <p>
+ * Entries are keyed by API credentialsId, SSH credentialsId and fingerprint of private key,
+ * so they are shared by all clouds using the same API token and naturally re-validated once SSH key changes.
+ */
+@Slf4j
+@UtilityClass
+class SshKeyRegistry {
+    private static final ConcurrentMap<String, SshKeyDetail> KEYS = new ConcurrentHashMap<>();
+    private static final Striped<Lock> LOCKS = Striped.lock(32);
+
+    /**
+     * Obtains SSH key from API, registering it if necessary.
+     */
+    interface Loader {
+        SshKeyDetail load() throws IOException;
+    }
+
+    @VisibleForTesting
+    static String cacheKey(String apiCredentialsId, BasicSSHUserPrivateKey privateKey) {
+        return apiCredentialsId + "/" + privateKey.getId() + "/"
+                + Hashing.sha256().hashString(privateKey.getPrivateKey(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get registered SSH key, invoking loader only if key was not seen before.
+     * Concurrent callers for the same key wait for single loader invocation, so key is never registered twice.
+     *
+     * @param apiCredentialsId ID of credentials holding API token
+     * @param privateKey       SSH private key
+     * @param loader           loader to invoke on first use
+     * @return registered SSH key
+     * @throws IOException if loader fails
+     */
+    static SshKeyDetail getOrRegister(String apiCredentialsId, BasicSSHUserPrivateKey privateKey, Loader loader)
+            throws IOException {
+        final String key = cacheKey(apiCredentialsId, privateKey);
+        SshKeyDetail detail = KEYS.get(key);
+        if (detail != null) {
+            return detail;
+        }
+        final Lock lock = LOCKS.get(key);
+        lock.lock();
+        try {
+            detail = KEYS.get(key);
+            if (detail == null) {
+                detail = loader.load();
+                KEYS.put(key, detail);
+            }
+            return detail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget all keys registered for given SSH credentials, so that they are looked up in cloud again on next use.
+     *
+     * @param apiCredentialsId ID of credentials holding API token
+     * @param sshCredentialsId ID of SSH credentials
+     * @return <code>true</code> if any key was forgotten
+     */
+    static boolean invalidate(String apiCredentialsId, String sshCredentialsId) {
+        final String prefix = apiCredentialsId + "/" + sshCredentialsId + "/";
+        final boolean removed = KEYS.keySet().removeIf(k -> k.startsWith(prefix));
+        if (removed) {
+            log.info("Forgot SSH key for credentials '{}'", sshCredentialsId);
+        }
+        return removed;
+    }
+}
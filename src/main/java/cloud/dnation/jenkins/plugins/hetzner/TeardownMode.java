@@ -0,0 +1,44 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+/**
+ * How server is torn down once agent is terminated.
+ */
+public enum TeardownMode {
+    /**
+     * Delete server right away, without shutting it down first.
+     * Suitable for throwaway agents which don't need to flush anything to disk.
+     */
+    DELETE_IMMEDIATELY,
+    /**
+     * Send ACPI shutdown to server, wait for it to power off for short grace period and delete it afterwards,
+     * even if it's still running.
+     */
+    SHUTDOWN_WITH_GRACE,
+    /**
+     * Power off server, wait until it's off and delete it.
+     */
+    POWER_OFF_AND_WAIT;
+
+    public String getDisplayName() {
+        return switch (this) {
+            case DELETE_IMMEDIATELY -> Messages.teardown_deleteImmediately();
+            case SHUTDOWN_WITH_GRACE -> Messages.teardown_shutdownWithGrace();
+            case POWER_OFF_AND_WAIT -> Messages.teardown_powerOffAndWait();
+        };
+    }
+}
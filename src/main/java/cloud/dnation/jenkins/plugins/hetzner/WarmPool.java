@@ -0,0 +1,228 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Counter;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.Gauge;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Computer;
+import hudson.model.PeriodicWork;
+import hudson.slaves.AbstractCloudComputer;
+import hudson.slaves.RetentionStrategy;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.jenkinsci.Symbol;
+
+import java.io.Serial;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains warm pool of idle agents for every template which has {@link HetznerServerTemplate#getWarmPoolSize()}
+ * set.
+ * <p>
+ * On every run, idle online agents of template are counted together with pool agents which are still being
+ * provisioned, and any shortfall is provisioned in background. Pooled agents are protected from shutdown policy
+ * by {@link Retention}, so that builds can claim them immediately. Once none of agents of template was busy
+ * for {@link HetznerServerTemplate#getWarmPoolQuietMinutes()}, pool target drops to zero and idle agents
+ * are left to shutdown policy.
+ */
+@Extension
+@Symbol("WarmPool")
+@Slf4j
+public class WarmPool extends PeriodicWork {
+    private static final long PERIOD_MILLIS = SystemProperties.getLong(
+            WarmPool.class.getName() + ".periodMillis", 15_000L);
+    private static final ConcurrentMap<String, State> POOLS = new ConcurrentHashMap<>();
+    private static final Counter PROVISIONED = PluginMetrics.counter("warmpool.provisioned");
+    private static final Gauge PENDING = PluginMetrics.gauge("warmpool.pending");
+
+    /**
+     * Bookkeeping of single pool, keyed by cloud and template name.
+     */
+    @VisibleForTesting
+    static final class State {
+        final AtomicInteger pending = new AtomicInteger();
+        volatile long lastBusyMillis = System.currentTimeMillis();
+        volatile Set<String> retained = Set.of();
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return PERIOD_MILLIS;
+    }
+
+    @Override
+    protected void doRun() {
+        if (Jenkins.get().isQuietingDown() || Jenkins.get().isTerminating()) {
+            return;
+        }
+        final List<HetznerServerAgent> agents = Helper.getHetznerAgents();
+        for (HetznerCloud cloud : OrphanedNodesCleaner.getHetznerClouds()) {
+            for (HetznerServerTemplate template : cloud.getServerTemplates()) {
+                try {
+                    maintain(cloud, template, agents);
+                } catch (Exception e) {
+                    // Catch-all to prevent killing this PeriodicWork timer.
+                    log.warn("Unable to maintain warm pool of template '{}' in cloud '{}'",
+                            template.getName(), cloud.name, e);
+                }
+            }
+        }
+    }
+
+    private static void maintain(HetznerCloud cloud, HetznerServerTemplate template,
+                                 List<HetznerServerAgent> agents) {
+        final String key = key(cloud.name, template.getName());
+        if (template.getWarmPoolSize() <= 0) {
+            POOLS.remove(key);
+            return;
+        }
+        final State state = POOLS.computeIfAbsent(key, k -> new State());
+        final long now = System.currentTimeMillis();
+        final List<String> idle = agents.stream()
+                .filter(agent -> cloud.name.equals(agent.getCloudName())
+                        && template.getName().equals(agent.getId().getTemplateName()))
+                .filter(agent -> {
+                    final Computer computer = agent.toComputer();
+                    if (computer == null || !computer.isOnline()) {
+                        return false;
+                    }
+                    if (!computer.isIdle()) {
+                        state.lastBusyMillis = now;
+                        return false;
+                    }
+                    return true;
+                })
+                .map(HetznerServerAgent::getNodeName)
+                .collect(Collectors.toList());
+        final int target = target(template.getWarmPoolSize(), template.getWarmPoolQuietMinutes(),
+                state.lastBusyMillis, now);
+        state.retained = retained(idle, target);
+        final int missing = target - idle.size() - state.pending.get();
+        if (missing <= 0) {
+            return;
+        }
+        log.info("Warm pool of template '{}' has {} idle and {} pending agents, provisioning {} more",
+                template.getName(), idle.size(), state.pending.get(), missing);
+        cloud.provisionAhead(template, missing).forEach(future -> {
+            state.pending.incrementAndGet();
+            PENDING.inc();
+            PROVISIONED.inc();
+            future.whenComplete((node, error) -> {
+                state.pending.decrementAndGet();
+                PENDING.dec();
+                if (error != null) {
+                    log.warn("Unable to provision warm pool agent of template '{}'", template.getName(), error);
+                }
+            });
+        });
+    }
+
+    /**
+     * Compute number of idle agents that pool should currently hold.
+     *
+     * @param size           configured pool size
+     * @param quietMinutes   minutes without busy agent after which pool is drained
+     * @param lastBusyMillis last time any agent of template was seen busy
+     * @param nowMillis      current time
+     * @return pool target
+     */
+    @VisibleForTesting
+    static int target(int size, int quietMinutes, long lastBusyMillis, long nowMillis) {
+        if (size <= 0 || nowMillis - lastBusyMillis > TimeUnit.MINUTES.toMillis(quietMinutes)) {
+            return 0;
+        }
+        return size;
+    }
+
+    /**
+     * Pick idle agents which are kept in pool. Selection is stable across runs, so that the same agents
+     * stay pooled while the rest is released to shutdown policy.
+     *
+     * @param idle   names of idle agents
+     * @param target pool target
+     * @return names of agents to keep
+     */
+    @VisibleForTesting
+    static Set<String> retained(List<String> idle, int target) {
+        return idle.stream().sorted(Comparator.naturalOrder()).limit(target).collect(Collectors.toUnmodifiableSet());
+    }
+
+    @VisibleForTesting
+    static String key(String cloudName, String templateName) {
+        return cloudName + "/" + templateName;
+    }
+
+    /**
+     * Check whether agent is currently held in warm pool.
+     *
+     * @param agent agent to check
+     * @return <code>true</code> if agent must not be terminated by shutdown policy
+     */
+    static boolean isRetained(HetznerServerAgent agent) {
+        final State state = POOLS.get(key(agent.getCloudName(), agent.getId().getTemplateName()));
+        return state != null && state.retained.contains(agent.getNodeName());
+    }
+
+    @VisibleForTesting
+    static State state(String cloudName, String templateName) {
+        return POOLS.computeIfAbsent(key(cloudName, templateName), k -> new State());
+    }
+
+    /**
+     * Retention strategy of agents of template with warm pool. Agents held in pool are kept,
+     * everything else is delegated to strategy of template's shutdown policy.
+     */
+    @SuppressWarnings("rawtypes")
+    static final class Retention extends RetentionStrategy<AbstractCloudComputer> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final RetentionStrategy<AbstractCloudComputer> delegate;
+
+        Retention(RetentionStrategy<AbstractCloudComputer> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void start(@NonNull AbstractCloudComputer c) {
+            delegate.start(c);
+        }
+
+        @Override
+        public long check(@NonNull AbstractCloudComputer c) {
+            if (c.isIdle() && c.getNode() instanceof HetznerServerAgent agent && isRetained(agent)) {
+                return 1;
+            }
+            return delegate.check(c);
+        }
+
+        @Override
+        public boolean isManualLaunchAllowed(AbstractCloudComputer c) {
+            return delegate.isManualLaunchAllowed(c);
+        }
+    }
+}
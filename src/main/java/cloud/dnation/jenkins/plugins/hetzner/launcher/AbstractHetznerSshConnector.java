@@ -63,6 +63,13 @@ public abstract class AbstractHetznerSshConnector extends AbstractDescribableImp
     @Setter(onMethod = @__({@DataBoundSetter}))
     protected AbstractConnectionMethod connectionMethod = DefaultConnectionMethod.SINGLETON;
 
+    /**
+     * Whether to run <code>cloud-init status --wait</code> before agent is launched.
+     */
+    @Getter
+    @Setter(onMethod = @__({@DataBoundSetter}))
+    protected boolean waitForCloudInit;
+
     public HetznerServerComputerLauncher createLauncher() {
         return new HetznerServerComputerLauncher(this);
     }
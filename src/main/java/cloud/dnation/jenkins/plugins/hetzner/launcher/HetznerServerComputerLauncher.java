@@ -20,10 +20,12 @@ import cloud.dnation.jenkins.plugins.hetzner.Helper;
 import cloud.dnation.jenkins.plugins.hetzner.HetznerConstants;
 import cloud.dnation.jenkins.plugins.hetzner.HetznerServerAgent;
 import cloud.dnation.jenkins.plugins.hetzner.HetznerServerComputer;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
 import com.cloudbees.jenkins.plugins.sshcredentials.SSHAuthenticator;
 import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.Uninterruptibles;
+import com.trilead.ssh2.ChannelCondition;
 import com.trilead.ssh2.Connection;
 import com.trilead.ssh2.SCPClient;
 import com.trilead.ssh2.ServerHostKeyVerifier;
@@ -39,7 +41,10 @@ import jenkins.model.Jenkins;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -53,6 +58,13 @@ import static hudson.plugins.sshslaves.SSHLauncher.AGENT_JAR;
 @Slf4j
 public class HetznerServerComputerLauncher extends ComputerLauncher {
     private static final String AGENT_SCRIPT = ".agent.start.sh";
+    private static final String CLOUD_INIT_COMMAND = "cloud-init status --wait";
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+    /**
+     * How often {@link #terminated} is checked while waiting for cloud-init.
+     */
+    private static final long CLOUD_INIT_POLL_MILLIS = 1000;
     private final AtomicBoolean terminated = new AtomicBoolean(false);
     private final AbstractHetznerSshConnector connector;
 
@@ -99,6 +111,9 @@ public class HetznerServerComputerLauncher extends ComputerLauncher {
                 "Missing node or server instance data in computer %s", computer.getName());
         final String remoteFs = getRemoteFs(node);
         final Connection connection = setupConnection(node, logger, listener);
+        if (connector.isWaitForCloudInit()) {
+            awaitCloudInit(connection, logger, node.getTemplate().getBootDeadline());
+        }
         copyAgent(connection, hcomputer, logger, remoteFs);
         launchAgent(connection, hcomputer, logger, listener, remoteFs);
     }
@@ -145,6 +160,8 @@ public class HetznerServerComputerLauncher extends ComputerLauncher {
                                        Helper.LogAdapter logger,
                                        TaskListener taskListener) throws InterruptedException, AbortException {
         int retries = 10;
+        // readiness probes normally made sure SSH is up already, so first retries come quickly
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
         while (!terminated.get() && retries-- > 0) {
             final ServerDetail serverDetail = node.getServerInstance().getServerDetail();
             final String ipv4 = connector.getConnectionMethod().getAddress(serverDetail);
@@ -171,13 +188,78 @@ public class HetznerServerComputerLauncher extends ComputerLauncher {
                     throw new AbortException("Authentication failed");
                 }
             } catch (IOException e) {
-                logger.error("Connection to " + ipv4 + " failed. Will wait 10 seconds before retry", e);
-                Uninterruptibles.sleepUninterruptibly(10, TimeUnit.SECONDS);
+                logger.error("Connection to " + ipv4 + " failed. Will wait " + backoffMillis
+                        + " milliseconds before retry", e);
+                Uninterruptibles.sleepUninterruptibly(backoffMillis, TimeUnit.MILLISECONDS);
+                backoffMillis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
             }
         }
         throw new AbortException("Failed to launch agent");
     }
 
+    /**
+     * Wait until cloud-init finishes, so that agent doesn't start while server is still being set up.
+     * Failure of cloud-init is only logged, agent might still be usable. Launch is aborted if cloud-init doesn't
+     * finish within boot deadline or if launcher is terminated meanwhile.
+     *
+     * @param bootDeadlineMinutes how long to wait for cloud-init
+     */
+    private void awaitCloudInit(Connection connection, Helper.LogAdapter logger, int bootDeadlineMinutes)
+            throws IOException {
+        logger.info("Waiting for cloud-init to finish");
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.MINUTES.toNanos(bootDeadlineMinutes);
+        final Session session = connection.openSession();
+        try {
+            session.execCommand(CLOUD_INIT_COMMAND);
+            final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+            int conditions;
+            do {
+                // keep draining output, so that remote command isn't blocked by full channel window
+                drain(session.getStdout(), stdout);
+                drain(session.getStderr(), OutputStream.nullOutputStream());
+                if (terminated.get()) {
+                    throw new AbortException("Launch was terminated while waiting for cloud-init");
+                }
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new AbortException("cloud-init didn't finish within " + bootDeadlineMinutes + " minutes");
+                }
+                conditions = session.waitForCondition(ChannelCondition.STDOUT_DATA | ChannelCondition.STDERR_DATA
+                                | ChannelCondition.EOF | ChannelCondition.CLOSED,
+                        Math.min(remainingMillis, CLOUD_INIT_POLL_MILLIS));
+            } while ((conditions & (ChannelCondition.EOF | ChannelCondition.CLOSED)) == 0);
+            drain(session.getStdout(), stdout);
+            final String output = stdout.toString(StandardCharsets.UTF_8).trim();
+            session.waitForCondition(ChannelCondition.EXIT_STATUS, TimeUnit.SECONDS.toMillis(10));
+            final Integer exitStatus = session.getExitStatus();
+            PluginMetrics.latency("readiness.cloudinit").recordSince(start);
+            if (exitStatus != null && exitStatus == 0) {
+                logger.info("cloud-init finished after " + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)
+                        + " seconds: " + output);
+            } else {
+                logger.info("cloud-init didn't finish successfully (exit status " + exitStatus + "): " + output);
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Copy bytes which can be read without blocking.
+     */
+    private static void drain(InputStream in, OutputStream out) throws IOException {
+        final byte[] buffer = new byte[1024];
+        int available;
+        while ((available = in.available()) > 0) {
+            final int read = in.read(buffer, 0, Math.min(available, buffer.length));
+            if (read < 0) {
+                return;
+            }
+            out.write(buffer, 0, read);
+        }
+    }
+
     public void signalTermination() {
         terminated.set(true);
     }
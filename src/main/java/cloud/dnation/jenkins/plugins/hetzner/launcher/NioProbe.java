@@ -0,0 +1,284 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.launcher;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import jenkins.util.SystemProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ReadinessProbe} using non-blocking sockets.
+ * <p>
+ * All probes share single selector thread, so that any number of servers can be probed at sub-second intervals
+ * without holding thread per server. Each attempt opens new connection, which either succeeds, or is refused
+ * (or doesn't complete within attempt timeout, e.g. while packets are still being dropped by booting server),
+ * in which case it's repeated after short interval. Optionally, SSH identification string must be received
+ * on connection as well.
+ */
+@Slf4j
+final class NioProbe implements ReadinessProbe {
+    private static final String PREFIX = NioProbe.class.getName();
+    static final long INTERVAL_MILLIS = SystemProperties.getLong(PREFIX + ".intervalMillis", 500L);
+    static final long ATTEMPT_TIMEOUT_MILLIS = SystemProperties.getLong(PREFIX + ".attemptTimeoutMillis", 3000L);
+    /**
+     * Maximal length of line sent by SSH server before identification string (RFC 4253, section 4.2).
+     */
+    private static final int MAX_BANNER_LENGTH = 255;
+    private static Engine engine;
+
+    @Getter
+    private final String name;
+    private final boolean readBanner;
+
+    NioProbe(String name, boolean readBanner) {
+        this.name = name;
+        this.readBanner = readBanner;
+    }
+
+    @Override
+    public CompletableFuture<Void> await(InetSocketAddress address, Duration timeout) {
+        final Attempt attempt = new Attempt(address, System.nanoTime() + timeout.toNanos());
+        engine().submit(attempt);
+        return attempt.result;
+    }
+
+    private static synchronized Engine engine() {
+        if (engine == null) {
+            try {
+                engine = new Engine(Selector.open());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            final Thread thread = new Thread(engine, "Hetzner readiness probes");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return engine;
+    }
+
+    /**
+     * State of single probe, owned by selector thread once submitted.
+     */
+    private final class Attempt {
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final InetSocketAddress address;
+        private final long deadlineNanos;
+        private long dueNanos;
+        private SocketChannel channel;
+        private ByteBuffer banner;
+
+        private Attempt(InetSocketAddress address, long deadlineNanos) {
+            this.address = address;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private NioProbe probe() {
+            return NioProbe.this;
+        }
+    }
+
+    private static final class Engine implements Runnable {
+        private final Selector selector;
+        private final Queue<Attempt> submitted = new ConcurrentLinkedQueue<>();
+        /**
+         * Attempts waiting for next connection, ordered by time they're due.
+         */
+        private final PriorityQueue<Attempt> scheduled = new PriorityQueue<>(
+                Comparator.comparingLong(attempt -> attempt.dueNanos));
+        /**
+         * Attempts with open connection, {@link Attempt#dueNanos} is when connection times out.
+         */
+        private final Set<Attempt> active = new HashSet<>();
+
+        private Engine(Selector selector) {
+            this.selector = selector;
+        }
+
+        void submit(Attempt attempt) {
+            submitted.add(attempt);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    tick();
+                } catch (Exception e) {
+                    // Catch-all to keep probing other servers
+                    log.warn("Unexpected error while probing servers", e);
+                }
+            }
+        }
+
+        private void tick() throws IOException {
+            Attempt attempt;
+            while ((attempt = submitted.poll()) != null) {
+                attempt.dueNanos = System.nanoTime();
+                scheduled.add(attempt);
+            }
+            final long now = System.nanoTime();
+            while (!scheduled.isEmpty() && scheduled.peek().dueNanos <= now) {
+                connect(scheduled.poll(), now);
+            }
+            for (Attempt expired : new ArrayList<>(active)) {
+                if (expired.dueNanos <= now) {
+                    retry(expired);
+                }
+            }
+            long next = Long.MAX_VALUE;
+            if (!scheduled.isEmpty()) {
+                next = scheduled.peek().dueNanos;
+            }
+            for (Attempt pending : active) {
+                next = Math.min(next, pending.dueNanos);
+            }
+            if (next == Long.MAX_VALUE) {
+                selector.select();
+            } else {
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime())));
+            }
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                handle(key);
+            }
+        }
+
+        private void connect(Attempt attempt, long now) {
+            if (attempt.result.isDone()) {
+                return;
+            }
+            if (now >= attempt.deadlineNanos) {
+                attempt.result.completeExceptionally(new TimeoutException(
+                        "Probe '" + attempt.probe().name + "' of " + attempt.address + " didn't succeed in time"));
+                return;
+            }
+            PluginMetrics.counter("readiness." + attempt.probe().name + ".attempts").inc();
+            try {
+                attempt.channel = SocketChannel.open();
+                attempt.channel.configureBlocking(false);
+                attempt.dueNanos = now + TimeUnit.MILLISECONDS.toNanos(ATTEMPT_TIMEOUT_MILLIS);
+                active.add(attempt);
+                if (attempt.channel.connect(attempt.address)) {
+                    connected(attempt);
+                } else {
+                    attempt.channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+                }
+            } catch (IOException e) {
+                retry(attempt);
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            final Attempt attempt = (Attempt) key.attachment();
+            if (attempt.result.isDone()) {
+                close(attempt);
+                return;
+            }
+            try {
+                if (key.isConnectable() && attempt.channel.finishConnect()) {
+                    connected(attempt);
+                } else if (key.isReadable()) {
+                    readBanner(attempt);
+                }
+            } catch (IOException e) {
+                log.trace("Probe of {} failed", attempt.address, e);
+                retry(attempt);
+            }
+        }
+
+        private void connected(Attempt attempt) throws IOException {
+            if (!attempt.probe().readBanner) {
+                succeed(attempt);
+                return;
+            }
+            attempt.banner = ByteBuffer.allocate(MAX_BANNER_LENGTH);
+            attempt.channel.register(selector, SelectionKey.OP_READ, attempt);
+        }
+
+        private void readBanner(Attempt attempt) throws IOException {
+            if (attempt.channel.read(attempt.banner) < 0) {
+                retry(attempt);
+                return;
+            }
+            final String received = new String(attempt.banner.array(), 0, attempt.banner.position(),
+                    StandardCharsets.US_ASCII);
+            // server may send other lines before identification string
+            int lineStart = 0;
+            int lineEnd;
+            while ((lineEnd = received.indexOf('\n', lineStart)) >= 0) {
+                if (received.startsWith("SSH-", lineStart)) {
+                    succeed(attempt);
+                    return;
+                }
+                lineStart = lineEnd + 1;
+            }
+            if (!attempt.banner.hasRemaining()) {
+                attempt.banner.clear();
+            }
+        }
+
+        private void succeed(Attempt attempt) {
+            close(attempt);
+            attempt.result.complete(null);
+        }
+
+        private void retry(Attempt attempt) {
+            close(attempt);
+            if (attempt.result.isDone()) {
+                return;
+            }
+            attempt.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS);
+            scheduled.add(attempt);
+        }
+
+        private void close(Attempt attempt) {
+            active.remove(attempt);
+            if (attempt.channel != null) {
+                try {
+                    attempt.channel.close();
+                } catch (IOException e) {
+                    log.trace("Unable to close probe connection to {}", attempt.address, e);
+                }
+                attempt.channel = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.launcher;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Check whether newly created server is ready to accept SSH connection.
+ * Probes are chained by {@link ReadinessProbes#awaitAll}.
+ */
+public interface ReadinessProbe {
+    /**
+     * Get name of probe, used in logs and metrics.
+     *
+     * @return name of probe
+     */
+    String getName();
+
+    /**
+     * Repeat probe until it succeeds.
+     *
+     * @param address SSH address of server
+     * @param timeout how long to keep trying
+     * @return future completed once probe has succeeded, or exceptionally with
+     * {@link java.util.concurrent.TimeoutException} once timeout has elapsed. Cancelling it stops probing.
+     */
+    CompletableFuture<Void> await(InetSocketAddress address, Duration timeout);
+}
@@ -0,0 +1,109 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.launcher;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Built-in {@link ReadinessProbe}s and their chaining.
+ * <p>
+ * Latency of every probe (time until it succeeded) is recorded as <code>readiness.&lt;name&gt;</code>.
+ */
+@Slf4j
+@UtilityClass
+public class ReadinessProbes {
+    /**
+     * Non-blocking TCP connect to SSH port, repeated at sub-second intervals until port accepts connection.
+     */
+    public static final ReadinessProbe TCP = new NioProbe("tcp", false);
+    /**
+     * Connect to SSH port and read SSH identification string, which proves that SSH daemon is up
+     * (as opposed to e.g. connection being accepted by proxy or firewall).
+     */
+    public static final ReadinessProbe SSH_BANNER = new NioProbe("banner", true);
+    /**
+     * Probes run before agent is launched.
+     */
+    public static final List<ReadinessProbe> DEFAULT = List.of(TCP, SSH_BANNER);
+
+    /**
+     * Run probes one after another, each one starting once previous has succeeded.
+     *
+     * @param probes  probes to run
+     * @param address SSH address of server
+     * @param timeout how long to keep trying, shared by all probes
+     * @return future completed once all probes have succeeded. Cancelling or completing it stops probe
+     * which is currently running and no further probes are started.
+     */
+    public static CompletableFuture<Void> awaitAll(List<ReadinessProbe> probes, InetSocketAddress address,
+                                                   Duration timeout) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final AtomicReference<CompletableFuture<Void>> running = new AtomicReference<>();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (ReadinessProbe probe : probes) {
+            chain = chain.thenCompose(ignored -> {
+                if (result.isDone()) {
+                    return CompletableFuture.failedFuture(new CancellationException());
+                }
+                final long start = System.nanoTime();
+                final CompletableFuture<Void> attempt = probe.await(address,
+                        Duration.ofNanos(Math.max(0, deadline - start)));
+                running.set(attempt);
+                // result might have been completed while probe was being started
+                if (result.isDone()) {
+                    attempt.cancel(false);
+                }
+                return measure(probe, address, start, attempt);
+            });
+        }
+        chain.whenComplete((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(null);
+            }
+        });
+        result.whenComplete((ignored, error) -> {
+            final CompletableFuture<Void> current = running.get();
+            if (current != null) {
+                current.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private static CompletableFuture<Void> measure(ReadinessProbe probe, InetSocketAddress address, long start,
+                                                   CompletableFuture<Void> attempt) {
+        return attempt.whenComplete((ignored, error) -> {
+            if (error == null) {
+                PluginMetrics.latency("readiness." + probe.getName()).recordSince(start);
+                log.debug("Probe '{}' of {} succeeded after {} ms", probe.getName(), address,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+    }
+}
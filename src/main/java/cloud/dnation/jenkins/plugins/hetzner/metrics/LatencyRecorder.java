@@ -0,0 +1,126 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Records duration of repeated operation, safe to update from many threads without locking.
+ * <p>
+ * Besides count, total and maximum, observations are counted in fixed buckets (see {@link #BUCKET_BOUNDS_MILLIS}),
+ * so that distribution can be exported as histogram and percentiles can be estimated.
+ */
+public final class LatencyRecorder {
+    /**
+     * Upper bounds (inclusive) of histogram buckets in milliseconds. Last, unbounded bucket is implied.
+     */
+    public static final long[] BUCKET_BOUNDS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+    private static final long[] BUCKET_BOUNDS_NANOS = Arrays.stream(BUCKET_BOUNDS_MILLIS)
+            .map(TimeUnit.MILLISECONDS::toNanos).toArray();
+
+    private final LongAdder[] buckets = Stream.generate(LongAdder::new)
+            .limit(BUCKET_BOUNDS_MILLIS.length + 1).toArray(LongAdder[]::new);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record single observation.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_NANOS.length && nanos > BUCKET_BOUNDS_NANOS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Record time elapsed since given start.
+     *
+     * @param startNanos value of {@link System#nanoTime()} when operation started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Get average duration in milliseconds.
+     *
+     * @return average duration or 0 if nothing was recorded yet
+     */
+    public double getMeanMillis() {
+        final long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        return (double) getTotalNanos() / n / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get number of observations in each bucket, last element is number of observations above highest bound.
+     *
+     * @return non-cumulative bucket counts
+     */
+    public long[] getBucketCounts() {
+        return Arrays.stream(buckets).mapToLong(LongAdder::sum).toArray();
+    }
+
+    /**
+     * Estimate percentile of recorded durations, using upper bound of bucket where it falls into.
+     *
+     * @param quantile quantile between 0 and 1, e.g. <code>0.95</code>
+     * @return estimated duration in milliseconds, maximum duration if it falls above highest bound,
+     * or 0 if nothing was recorded yet
+     */
+    public double getPercentileMillis(double quantile) {
+        final long[] counts = getBucketCounts();
+        final long total = Arrays.stream(counts).sum();
+        if (total == 0) {
+            return 0;
+        }
+        final double rank = Math.max(1, Math.ceil(quantile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return BUCKET_BOUNDS_MILLIS[i];
+            }
+        }
+        return (double) getMaxNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
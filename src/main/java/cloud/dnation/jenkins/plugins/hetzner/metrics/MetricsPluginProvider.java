@@ -0,0 +1,98 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.metrics;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import jenkins.metrics.api.MetricProvider;
+import jenkins.metrics.api.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Publishes {@link PluginMetrics} to Metrics plugin, when it's installed.
+ * <p>
+ * Metrics are registered with <code>hetzner-cloud.</code> prefix. Counters, gauges and probes are exposed
+ * as gauges, latency recorders as set of gauges with count, mean, max and estimated percentiles in milliseconds.
+ * Metrics created after Metrics plugin asked for this set are registered as they appear.
+ * <p>
+ * Latencies are not registered as codahale <code>Histogram</code> or <code>Timer</code>, because those keep
+ * their own reservoir of samples and would have to be updated on every API call next to {@link LatencyRecorder},
+ * which would make Metrics plugin classes required on hot path even though the plugin is optional. Recorder keeps
+ * fixed buckets instead of samples, so it can't back codahale <code>Snapshot</code> either. Full histograms
+ * are available in Prometheus format, see {@link PrometheusFormat}.
+ */
+@Slf4j
+@Extension(optional = true)
+public class MetricsPluginProvider extends MetricProvider {
+    static final String PREFIX = "hetzner-cloud.";
+
+    @Override
+    public MetricSet getMetricSet() {
+        final Map<String, Metric> metrics = new HashMap<>();
+        PluginMetrics.setListener((name, metric) -> register(Metrics.metricRegistry(), name, metric));
+        PluginMetrics.getCounters().forEach((name, counter) -> metrics.putAll(toMetrics(name, counter)));
+        PluginMetrics.getGauges().forEach((name, gauge) -> metrics.putAll(toMetrics(name, gauge)));
+        PluginMetrics.getLatencies().forEach((name, latency) -> metrics.putAll(toMetrics(name, latency)));
+        PluginMetrics.getProbes().forEach((name, probe) -> metrics.putAll(toMetrics(name, probe)));
+        return () -> metrics;
+    }
+
+    private static void register(MetricRegistry registry, String name, Object metric) {
+        toMetrics(name, metric).forEach((metricName, m) -> {
+            if (!registry.getNames().contains(metricName)) {
+                try {
+                    registry.register(metricName, m);
+                } catch (IllegalArgumentException e) {
+                    // registered concurrently
+                    log.debug("Metric '{}' is already registered", metricName);
+                }
+            }
+        });
+    }
+
+    static Map<String, Metric> toMetrics(String name, Object metric) {
+        final String prefixed = PREFIX + name;
+        final Map<String, Metric> result = new HashMap<>();
+        if (metric instanceof Counter counter) {
+            result.put(prefixed, (com.codahale.metrics.Gauge<Long>) counter::getCount);
+        } else if (metric instanceof Gauge gauge) {
+            result.put(prefixed, (com.codahale.metrics.Gauge<Long>) gauge::getValue);
+        } else if (metric instanceof LongSupplier) {
+            // probe might be replaced or removed later, so always look up current one
+            result.put(prefixed, (com.codahale.metrics.Gauge<Long>) () -> {
+                final LongSupplier probe = PluginMetrics.getProbes().get(name);
+                return probe != null ? probe.getAsLong() : 0L;
+            });
+        } else if (metric instanceof LatencyRecorder latency) {
+            result.put(prefixed + ".count", (com.codahale.metrics.Gauge<Long>) latency::getCount);
+            result.put(prefixed + ".mean", (com.codahale.metrics.Gauge<Double>) latency::getMeanMillis);
+            result.put(prefixed + ".max", (com.codahale.metrics.Gauge<Double>) () ->
+                    latency.getMaxNanos() / 1_000_000.0);
+            result.put(prefixed + ".p50", (com.codahale.metrics.Gauge<Double>) () -> latency.getPercentileMillis(0.5));
+            result.put(prefixed + ".p95", (com.codahale.metrics.Gauge<Double>) () ->
+                    latency.getPercentileMillis(0.95));
+            result.put(prefixed + ".p99", (com.codahale.metrics.Gauge<Double>) () ->
+                    latency.getPercentileMillis(0.99));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.metrics;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of metrics collected by this plugin.
+ * <p>
+ * Metrics are identified by dot-separated names, e.g. <code>credentials.token.lookup</code>.
+ * Recorders are created once and cached by callers on hot path, so updating metric is lock-free.
+ * Metrics are exported by {@link PrometheusMetricsAction} and, if installed, by Metrics plugin
+ * (see {@link MetricsPluginProvider}).
+ */
+@UtilityClass
+public class PluginMetrics {
+    private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyRecorder> LATENCIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LongSupplier> PROBES = new ConcurrentHashMap<>();
+    private static volatile Listener listener;
+
+    /**
+     * Notified whenever new metric is created.
+     */
+    public interface Listener {
+        void created(String name, Object metric);
+    }
+
+    /**
+     * Get or create counter with given name.
+     *
+     * @param name name of counter
+     * @return counter
+     */
+    public static Counter counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> created(n, new Counter()));
+    }
+
+    /**
+     * Get or create latency recorder with given name.
+     *
+     * @param name name of recorder
+     * @return latency recorder
+     */
+    public static LatencyRecorder latency(String name) {
+        return LATENCIES.computeIfAbsent(name, n -> created(n, new LatencyRecorder()));
+    }
+
+    /**
+     * Get or create gauge with given name.
+     *
+     * @param name name of gauge
+     * @return gauge
+     */
+    public static Gauge gauge(String name) {
+        return GAUGES.computeIfAbsent(name, n -> created(n, new Gauge()));
+    }
+
+    /**
+     * Register gauge whose value is computed by given function whenever metrics are read.
+     * Previously registered probe with the same name is replaced.
+     *
+     * @param name  name of probe
+     * @param value function that computes current value
+     */
+    public static void probe(String name, LongSupplier value) {
+        if (PROBES.put(name, value) == null) {
+            created(name, value);
+        }
+    }
+
+    /**
+     * Remove probe registered by {@link #probe(String, LongSupplier)}.
+     *
+     * @param name name of probe
+     */
+    public static void removeProbe(String name) {
+        PROBES.remove(name);
+    }
+
+    /**
+     * Set listener which is notified about metrics created from now on.
+     *
+     * @param newListener listener or <code>null</code> to remove it
+     */
+    public static void setListener(Listener newListener) {
+        listener = newListener;
+    }
+
+    public static Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(COUNTERS);
+    }
+
+    public static Map<String, LatencyRecorder> getLatencies() {
+        return Collections.unmodifiableMap(LATENCIES);
+    }
+
+    public static Map<String, Gauge> getGauges() {
+        return Collections.unmodifiableMap(GAUGES);
+    }
+
+    public static Map<String, LongSupplier> getProbes() {
+        return Collections.unmodifiableMap(PROBES);
+    }
+
+    private static <T> T created(String name, T metric) {
+        final Listener current = listener;
+        if (current != null) {
+            current.created(name, metric);
+        }
+        return metric;
+    }
+}
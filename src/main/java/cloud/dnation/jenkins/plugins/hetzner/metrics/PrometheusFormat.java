@@ -0,0 +1,200 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.metrics;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Writes content of {@link PluginMetrics} using Prometheus text exposition format (version 0.0.4).
+ * <p>
+ * Metric names are prefixed with <code>hetzner_</code> and characters not allowed by Prometheus are replaced
+ * by underscore, so <code>credentials.token.lookup</code> becomes <code>hetzner_credentials_token_lookup</code>.
+ * Metrics whose name embeds endpoint, status or similar dimension are exported as single family with labels,
+ * so <code>api.status.getServer.200</code> becomes
+ * <code>hetzner_api_requests_total{endpoint="getServer",status="200"}</code>.
+ * Latencies are exported as histograms in seconds.
+ */
+@UtilityClass
+public class PrometheusFormat {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String PREFIX = "hetzner_";
+    private static final Pattern INVALID_CHARS = Pattern.compile("[^a-zA-Z0-9_]");
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Metric names which embed label values, e.g. <code>api.status.&lt;endpoint&gt;.&lt;status&gt;</code>.
+     * <p>
+     * Part of name between prefix and suffix holds label values. If there are two labels, last dot-separated
+     * segment is value of second label, because first one (like endpoint) may contain dots.
+     * First matching rule wins.
+     *
+     * @param prefix prefix of metric name
+     * @param suffix suffix of metric name
+     * @param family name of metric family
+     * @param labels names of labels
+     */
+    private record Labelled(String prefix, String suffix, String family, String... labels) {
+        Series match(String name) {
+            if (!name.startsWith(prefix) || !name.endsWith(suffix)
+                    || name.length() <= prefix.length() + suffix.length()) {
+                return null;
+            }
+            final String values = name.substring(prefix.length(), name.length() - suffix.length());
+            if (labels.length == 1) {
+                return new Series(family, label(labels[0], values));
+            }
+            final int dot = values.lastIndexOf('.');
+            if (dot <= 0) {
+                return null;
+            }
+            return new Series(family, label(labels[0], values.substring(0, dot)) + ","
+                    + label(labels[1], values.substring(dot + 1)));
+        }
+    }
+
+    private static final List<Labelled> LABELLED = List.of(
+            new Labelled("api.latency.", "", "api.latency", "endpoint"),
+            new Labelled("api.status.", "", "api.requests", "endpoint", "status"),
+            new Labelled("api.errors.", "", "api.errors", "endpoint", "code"),
+            new Labelled("api.retries.", "", "api.retries", "endpoint"),
+            new Labelled("api.coalesced.", "", "api.coalesced.by.endpoint", "endpoint"),
+            new Labelled("api.wait.", "", "api.wait", "priority"),
+            new Labelled("api.ratelimit.remaining.", "", "api.ratelimit.remaining", "credentials_id"),
+            new Labelled("destroy.duration.", "", "destroy.duration.by.mode", "mode"),
+            new Labelled("destroy.apicalls.", "", "destroy.apicalls", "mode"),
+            new Labelled("readiness.", ".attempts", "readiness.attempts", "probe"),
+            new Labelled("readiness.", "", "readiness", "probe"));
+
+    /**
+     * Single series of metric family.
+     *
+     * @param family name of family, as in {@link PluginMetrics}
+     * @param labels comma-separated labels, empty if there are none
+     */
+    record Series(String family, String labels) {
+    }
+
+    /**
+     * Write all metrics.
+     *
+     * @param out writer to write into
+     * @throws IOException if writing fails
+     */
+    public static void write(Writer out) throws IOException {
+        for (Map.Entry<String, Map<String, Counter>> family : group(PluginMetrics.getCounters()).entrySet()) {
+            final String name = metricName(family.getKey()) + "_total";
+            type(out, name, "counter");
+            for (Map.Entry<String, Counter> e : family.getValue().entrySet()) {
+                sample(out, name, braces(e.getKey()), e.getValue().getCount());
+            }
+        }
+        final Map<String, LongSupplier> gauges = new TreeMap<>(PluginMetrics.getProbes());
+        PluginMetrics.getGauges().forEach((name, gauge) -> gauges.put(name, gauge::getValue));
+        for (Map.Entry<String, Map<String, LongSupplier>> family : group(gauges).entrySet()) {
+            final String name = metricName(family.getKey());
+            type(out, name, "gauge");
+            for (Map.Entry<String, LongSupplier> e : family.getValue().entrySet()) {
+                sample(out, name, braces(e.getKey()), e.getValue().getAsLong());
+            }
+        }
+        for (Map.Entry<String, Map<String, LatencyRecorder>> family
+                : group(PluginMetrics.getLatencies()).entrySet()) {
+            final String name = metricName(family.getKey()) + "_seconds";
+            type(out, name, "histogram");
+            for (Map.Entry<String, LatencyRecorder> e : family.getValue().entrySet()) {
+                histogram(out, name, e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    static String metricName(String name) {
+        return PREFIX + INVALID_CHARS.matcher(name).replaceAll("_");
+    }
+
+    /**
+     * Resolve family and labels of metric.
+     *
+     * @param name name of metric in {@link PluginMetrics}
+     * @return series of metric, without labels if name doesn't embed any
+     */
+    static Series series(String name) {
+        for (Labelled labelled : LABELLED) {
+            final Series series = labelled.match(name);
+            if (series != null) {
+                return series;
+            }
+        }
+        return new Series(name, "");
+    }
+
+    /**
+     * Group metrics by family, both families and series within family are sorted.
+     *
+     * @return series of each family, keyed by labels
+     */
+    private static <T> Map<String, Map<String, T>> group(Map<String, T> metrics) {
+        final Map<String, Map<String, T>> families = new TreeMap<>();
+        metrics.forEach((name, metric) -> {
+            final Series series = series(name);
+            families.computeIfAbsent(series.family(), f -> new TreeMap<>()).put(series.labels(), metric);
+        });
+        return families;
+    }
+
+    private static void histogram(Writer out, String name, String labels, LatencyRecorder recorder)
+            throws IOException {
+        final String prefix = labels.isEmpty() ? "" : labels + ",";
+        final long[] counts = recorder.getBucketCounts();
+        long cumulative = 0;
+        for (int i = 0; i < LatencyRecorder.BUCKET_BOUNDS_MILLIS.length; i++) {
+            cumulative += counts[i];
+            final double le = LatencyRecorder.BUCKET_BOUNDS_MILLIS[i] / 1000.0;
+            sample(out, name + "_bucket", "{" + prefix + "le=\"" + le + "\"}", cumulative);
+        }
+        // derive count from buckets, so that series are consistent even when updated concurrently
+        cumulative += counts[counts.length - 1];
+        sample(out, name + "_bucket", "{" + prefix + "le=\"+Inf\"}", cumulative);
+        out.write(name + "_sum" + braces(labels) + " "
+                + String.format(Locale.ROOT, "%.6f", recorder.getTotalNanos() / NANOS_PER_SECOND) + "\n");
+        sample(out, name + "_count", braces(labels), cumulative);
+    }
+
+    private static String label(String name, String value) {
+        return name + "=\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+    }
+
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static void type(Writer out, String name, String type) throws IOException {
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer out, String name, String labels, long value) throws IOException {
+        out.write(name + labels + " " + value + "\n");
+    }
+}
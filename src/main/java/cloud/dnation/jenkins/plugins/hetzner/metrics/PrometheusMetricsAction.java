@@ -0,0 +1,59 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.metrics;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exposes {@link PluginMetrics} for Prometheus scraper at <code>JENKINS_URL/hetzner-cloud-metrics/</code>.
+ * Scraping requires {@link Jenkins#SYSTEM_READ} permission.
+ */
+@Extension
+public class PrometheusMetricsAction implements RootAction {
+    static final String URL_NAME = "hetzner-cloud-metrics";
+
+    @Override
+    public String getIconFileName() {
+        // not shown in UI
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Hetzner Cloud metrics";
+    }
+
+    @Override
+    public String getUrlName() {
+        return URL_NAME;
+    }
+
+    public void doIndex(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        rsp.setContentType(PrometheusFormat.CONTENT_TYPE);
+        rsp.setHeader("Cache-Control", "no-cache");
+        try (Writer out = rsp.getWriter()) {
+            PrometheusFormat.write(out);
+        }
+    }
+}
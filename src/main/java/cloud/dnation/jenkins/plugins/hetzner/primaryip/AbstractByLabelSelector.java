@@ -17,9 +17,9 @@ package cloud.dnation.jenkins.plugins.hetzner.primaryip;
 
 import cloud.dnation.hetznerclient.CreateServerRequest;
 import cloud.dnation.hetznerclient.HetznerApi;
-import cloud.dnation.hetznerclient.PagedResourceHelper;
 import cloud.dnation.hetznerclient.PrimaryIpDetail;
 import cloud.dnation.hetznerclient.PublicNetRequest;
+import cloud.dnation.jenkins.plugins.hetzner.PagedListingApi;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import lombok.Getter;
@@ -38,9 +38,13 @@ public abstract class AbstractByLabelSelector extends AbstractPrimaryIpStrategy
     }
 
     @Override
-    public void applyInternal(HetznerApi api, CreateServerRequest server) throws IOException {
-        final PrimaryIpDetail pip = PagedResourceHelper.getAllPrimaryIps(api, selector).stream()
-                .filter(ip -> isIpUsable(ip, server)).findFirst().get();
+    public void applyInternal(HetznerApi api, PagedListingApi listing, CreateServerRequest server)
+            throws IOException {
+        final PrimaryIpDetail pip = listing.getAllPrimaryIps(selector).stream()
+                .filter(ip -> isIpUsable(ip, server))
+                //concurrent server creations must not pick the same IP
+                .filter(ip -> PrimaryIpReservations.tryReserve(ip.getId()))
+                .findFirst().get();
         final PublicNetRequest net = new PublicNetRequest();
         net.setIpv4(pip.getId());
         net.setEnableIpv6(false);
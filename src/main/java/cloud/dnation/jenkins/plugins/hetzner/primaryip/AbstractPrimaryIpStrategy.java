@@ -17,6 +17,7 @@ package cloud.dnation.jenkins.plugins.hetzner.primaryip;
 
 import cloud.dnation.hetznerclient.CreateServerRequest;
 import cloud.dnation.hetznerclient.HetznerApi;
+import cloud.dnation.jenkins.plugins.hetzner.PagedListingApi;
 import hudson.model.AbstractDescribableImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,9 +29,9 @@ import java.io.IOException;
 public abstract class AbstractPrimaryIpStrategy extends AbstractDescribableImpl<AbstractPrimaryIpStrategy> {
     protected final boolean failIfError;
 
-    public void apply(HetznerApi api, CreateServerRequest server) {
+    public void apply(HetznerApi api, PagedListingApi listing, CreateServerRequest server) {
         try {
-            applyInternal(api, server);
+            applyInternal(api, listing, server);
         } catch (Exception e) {
             if (failIfError) {
                 throw new RuntimeException(e);
@@ -40,5 +41,6 @@ public abstract class AbstractPrimaryIpStrategy extends AbstractDescribableImpl<
         }
     }
 
-    protected abstract void applyInternal(HetznerApi api, CreateServerRequest server) throws IOException;
+    protected abstract void applyInternal(HetznerApi api, PagedListingApi listing, CreateServerRequest server)
+            throws IOException;
 }
\ No newline at end of file
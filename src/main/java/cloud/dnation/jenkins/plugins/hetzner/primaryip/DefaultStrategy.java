@@ -17,6 +17,7 @@ package cloud.dnation.jenkins.plugins.hetzner.primaryip;
 
 import cloud.dnation.hetznerclient.CreateServerRequest;
 import cloud.dnation.hetznerclient.HetznerApi;
+import cloud.dnation.jenkins.plugins.hetzner.PagedListingApi;
 import cloud.dnation.jenkins.plugins.hetzner.Messages;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
@@ -32,7 +33,7 @@ public class DefaultStrategy extends AbstractPrimaryIpStrategy {
     }
 
     @Override
-    public void applyInternal(HetznerApi api, CreateServerRequest server) {
+    public void applyInternal(HetznerApi api, PagedListingApi listing, CreateServerRequest server) {
         //NOOP
     }
 
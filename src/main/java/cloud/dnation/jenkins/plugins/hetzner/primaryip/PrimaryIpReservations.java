@@ -0,0 +1,57 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.primaryip;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary IPs that were picked for server which is just being created.
+ * <p>
+ * API reports such IP as unassigned until create call completes, so without reservation
+ * two concurrent server creations could pick the same IP.
+ * <p>
+ * Reservations are JVM-global, shared by all clouds and credentials. That is safe because
+ * primary IP IDs are unique across all Hetzner projects, and it also covers two clouds configured
+ * with different tokens of the same project. Reservation is released in <code>finally</code> block of
+ * <code>HetznerCloudResourceManager.requestServer</code> once create call returns, regardless of its outcome,
+ * so entries never outlive single create call.
+ */
+@UtilityClass
+public class PrimaryIpReservations {
+    private static final Set<Long> RESERVED = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Attempt to reserve primary IP.
+     *
+     * @param id ID of primary IP
+     * @return <code>true</code> if IP was reserved by this call, <code>false</code> if it's already reserved
+     */
+    public static boolean tryReserve(long id) {
+        return RESERVED.add(id);
+    }
+
+    /**
+     * Release reservation of primary IP.
+     *
+     * @param id ID of primary IP
+     */
+    public static void release(long id) {
+        RESERVED.remove(id);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.ActionTracker.ActionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ActionTrackerTest {
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testActionsAreResolvedInBatches() throws Exception {
+        final List<Integer> batches = new CopyOnWriteArrayList<>();
+        final ActionTracker tracker = new ActionTracker(ids -> {
+            batches.add(ids.size());
+            return ids.stream().map(id -> new ActionStatus(id, "success", null, null)).toList();
+        }, executor, executor, 50);
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // schedule tracking on executor, so that all actions are registered before first tick
+        executor.submit(() -> {
+            for (long id = 1; id <= 60; id++) {
+                futures.add(tracker.track(id, Duration.ofMinutes(1)));
+            }
+        }).get();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(50, 10), batches);
+        assertEquals(0, tracker.getPending());
+    }
+
+    @Test
+    void testFailedAndRunningActions() throws Exception {
+        final ActionTracker tracker = new ActionTracker(ids -> ids.stream()
+                .map(id -> id == 1
+                        ? new ActionStatus(id, "error", "action_failed", "Action failed")
+                        : new ActionStatus(id, "running", null, null))
+                .toList(), executor, executor, 10);
+        final CompletableFuture<Void> failed = tracker.track(1, Duration.ofMinutes(1));
+        final CompletableFuture<Void> running = tracker.track(2, Duration.ofMillis(100));
+        assertSame(running, tracker.track(2, Duration.ofMillis(100)));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> running.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void testActionTimesOutWhileFetchFails() {
+        final ActionTracker tracker = new ActionTracker(ids -> {
+            throw new IOException("Invalid API response: HTTP 503");
+        }, executor, executor, 10);
+        final CompletableFuture<Void> future = tracker.track(1, Duration.ofMillis(100));
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(0, tracker.getPending());
+    }
+
+    @Test
+    void testExtractActionId() {
+        assertEquals(7L, ActionTracker.extractActionId(Map.of("action", Map.of("id", 7))));
+        assertNull(ActionTracker.extractActionId(Map.of("server", Map.of("id", 7))));
+        assertNull(ActionTracker.extractActionId(null));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ApiMetricsTest {
+
+    @Test
+    void testEndpointForPath() {
+        assertSame(ApiMetrics.endpoint("servers.actions.shutdown"),
+                ApiMetrics.endpointForPath("servers/123/actions/shutdown"));
+        assertSame(ApiMetrics.endpoint("actions"), ApiMetrics.endpointForPath("actions"));
+        assertSame(ApiMetrics.endpoint("primary_ips"), ApiMetrics.endpointForPath("primary_ips"));
+    }
+
+    @Test
+    void testErrorCodeIsRecordedWithoutConsumingBody() throws Exception {
+        final String json = "{\"error\":{\"code\":\"uniqueness_error\",\"message\":\"name is already used\"}}";
+        final ResponseBody body = ResponseBody.create(json, MediaType.get("application/json"));
+        ApiMetrics.endpoint("testCreate").record(System.nanoTime(), 409, body);
+        assertEquals(1, PluginMetrics.counter("api.errors.testCreate.uniqueness_error").getCount());
+        assertEquals(1, PluginMetrics.counter("api.status.testCreate.409").getCount());
+        assertEquals(1, PluginMetrics.latency("api.latency.testCreate").getCount());
+        // caller can still read it
+        assertEquals(json, body.string());
+
+        ApiMetrics.endpoint("testCreate").record(System.nanoTime(), -1, null);
+        assertEquals(1, PluginMetrics.counter("api.status.testCreate.io").getCount());
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.gson.JsonObject;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApiSchedulerTest {
+    private final AtomicLong now = new AtomicLong();
+
+    private static Headers rateLimit(long limit, long remaining) {
+        return Headers.of(ApiScheduler.HEADER_LIMIT, String.valueOf(limit),
+                ApiScheduler.HEADER_REMAINING, String.valueOf(remaining));
+    }
+
+    private static Thread acquireAsync(ApiScheduler scheduler, ApiPriority priority, List<ApiPriority> admitted) {
+        final Thread thread = new Thread(() -> {
+            try {
+                scheduler.acquire(priority);
+                admitted.add(priority);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    void testHigherPriorityIsAdmittedFirst() throws Exception {
+        final ApiScheduler scheduler = new ApiScheduler(1, now::get);
+        final List<ApiPriority> admitted = new CopyOnWriteArrayList<>();
+        scheduler.acquire(ApiPriority.POLL);
+        acquireAsync(scheduler, ApiPriority.CLEANUP, admitted);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.getWaiting() == 1);
+        acquireAsync(scheduler, ApiPriority.CREATE, admitted);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.getWaiting() == 2);
+
+        scheduler.release(null, 200);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> admitted.size() == 1);
+        assertEquals(ApiPriority.CREATE, admitted.get(0));
+        scheduler.release(null, 200);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> admitted.size() == 2);
+        assertEquals(ApiPriority.CLEANUP, admitted.get(1));
+    }
+
+    @Test
+    void testLowPriorityDegradesWhenBudgetIsLow() throws Exception {
+        final ApiScheduler scheduler = new ApiScheduler(10, now::get);
+        scheduler.acquire(ApiPriority.POLL);
+        // 10% of budget remains, which is below reserve of cleanup
+        scheduler.release(rateLimit(1000, 100), 200);
+        final List<ApiPriority> admitted = new CopyOnWriteArrayList<>();
+        final Thread cleanup = acquireAsync(scheduler, ApiPriority.CLEANUP, admitted);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> scheduler.getWaiting() == 1);
+
+        scheduler.acquire(ApiPriority.CREATE);
+        scheduler.acquire(ApiPriority.POLL);
+        assertEquals(98, scheduler.getRemaining());
+        assertFalse(admitted.contains(ApiPriority.CLEANUP));
+
+        // budget refills over time
+        now.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        scheduler.release(null, 200);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> admitted.contains(ApiPriority.CLEANUP));
+        cleanup.join();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testThrottledCallIsRetried() throws Exception {
+        final ApiScheduler scheduler = new ApiScheduler(1, now::get);
+        final Call<String> first = mock(Call.class);
+        final Call<String> second = mock(Call.class);
+        when(first.execute()).thenReturn(Response.error(429, ResponseBody.create("", null)));
+        when(first.clone()).thenReturn(second);
+        when(second.execute()).thenReturn(Response.success("ok", rateLimit(3600, 3599)));
+        final AtomicBoolean refilled = new AtomicBoolean();
+        final Thread clock = new Thread(() -> {
+            // keep moving clock, so that bucket emptied by 429 refills
+            while (!refilled.get()) {
+                now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+                try {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        final long retries = PluginMetrics.counter("api.retries.throttledCall").getCount();
+        clock.start();
+        try {
+            final Response<String> response = new ScheduledCall<>(first, scheduler, ApiPriority.CREATE,
+                    ApiMetrics.endpoint("throttledCall")).execute();
+            assertEquals("ok", response.body());
+        } finally {
+            refilled.set(true);
+            clock.join();
+        }
+        verify(second, times(1)).execute();
+        assertEquals(retries + 1, PluginMetrics.counter("api.retries.throttledCall").getCount());
+        assertEquals(1, PluginMetrics.counter("api.status.throttledCall.429").getCount());
+    }
+
+    @Test
+    void testThrottledRawCallIsRetried() throws Exception {
+        // every reading of clock moves it, so that bucket emptied by 429 refills right away
+        final ApiScheduler scheduler = new ApiScheduler(1, () -> now.addAndGet(TimeUnit.MINUTES.toNanos(1)));
+        final AtomicInteger calls = new AtomicInteger();
+        final OkHttpClient httpClient = new OkHttpClient.Builder().addInterceptor(chain -> {
+            final boolean throttled = calls.incrementAndGet() == 1;
+            return new okhttp3.Response.Builder()
+                    .request(chain.request())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(throttled ? 429 : 200)
+                    .message(throttled ? "Too Many Requests" : "OK")
+                    .headers(rateLimit(3600, 3599))
+                    .body(ResponseBody.create(throttled ? "{}" : "{\"servers\":[]}", null))
+                    .build();
+        }).build();
+        final long retries = PluginMetrics.counter("api.retries.throttledRaw").getCount();
+        final ApiHttpClient client = new ApiHttpClient(httpClient, "http://localhost/v1/", scheduler);
+
+        final JsonObject result = client.get(ApiPriority.CREATE, "throttledRaw", ImmutableListMultimap.of());
+        assertEquals(2, calls.get());
+        assertEquals(0, result.getAsJsonArray("servers").size());
+        assertEquals(retries + 1, PluginMetrics.counter("api.retries.throttledRaw").getCount());
+        assertEquals(1, PluginMetrics.counter("api.status.throttledRaw.429").getCount());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs all JMH benchmarks of this package (classes named <code>*Benchmark</code>).
+ * <p>
+ * Not part of regular build, run it using <code>mvn -P jmh-benchmark test</code>.
+ * Results are written to <code>target/jmh-result.json</code> and compared with baseline in
+ * <code>src/test/resources/jmh-baseline.json</code>. Add <code>-Dbenchmark.updateBaseline=true</code>
+ * to replace baseline with results of this run.
+ */
+@Slf4j
+class BenchmarkRunner {
+    private static final Path RESULT = Path.of("target", "jmh-result.json");
+    private static final Path BASELINE = Path.of("src", "test", "resources", "jmh-baseline.json");
+
+    @Test
+    void runBenchmarks() throws Exception {
+        final Options options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark")
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT.toString())
+                .build();
+        final Collection<RunResult> results = new Runner(options).run();
+        compareWithBaseline(results);
+        if (Boolean.getBoolean("benchmark.updateBaseline")) {
+            Files.copy(RESULT, BASELINE, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Baseline {} updated", BASELINE);
+        }
+    }
+
+    private static void compareWithBaseline(Collection<RunResult> results) throws IOException {
+        final Map<String, Double> baseline = readBaseline();
+        final Map<String, String> report = new TreeMap<>();
+        for (RunResult result : results) {
+            final String key = key(result.getParams());
+            final double score = result.getPrimaryResult().getScore();
+            final String unit = result.getPrimaryResult().getScoreUnit();
+            final Double previous = baseline.get(key);
+            report.put(key, previous == null
+                    ? String.format(Locale.ROOT, "%.3f %s (no baseline)", score, unit)
+                    : String.format(Locale.ROOT, "%.3f %s (baseline %.3f, %+.1f%%)", score, unit, previous,
+                    (score - previous) * 100 / previous));
+        }
+        report.forEach((key, line) -> log.info("{}: {}", key, line));
+        final long missing = results.stream().filter(r -> !baseline.containsKey(key(r.getParams()))).count();
+        if (missing > 0) {
+            log.warn("{} benchmarks have no baseline, record it using -Dbenchmark.updateBaseline=true", missing);
+        }
+    }
+
+    private static Map<String, Double> readBaseline() throws IOException {
+        final Map<String, Double> result = new HashMap<>();
+        if (!Files.exists(BASELINE)) {
+            log.warn("No baseline found at {}", BASELINE);
+            return result;
+        }
+        final JsonArray entries = JsonParser.parseString(Files.readString(BASELINE, StandardCharsets.UTF_8))
+                .getAsJsonArray();
+        for (JsonElement element : entries) {
+            final JsonObject entry = element.getAsJsonObject();
+            final Map<String, String> params = new TreeMap<>();
+            if (entry.has("params")) {
+                entry.getAsJsonObject("params").entrySet().forEach(e -> params.put(e.getKey(),
+                        e.getValue().getAsString()));
+            }
+            result.put(key(entry.get("benchmark").getAsString(), params),
+                    entry.getAsJsonObject("primaryMetric").get("score").getAsDouble());
+        }
+        return result;
+    }
+
+    private static String key(BenchmarkParams params) {
+        final Map<String, String> values = new TreeMap<>();
+        params.getParamsKeys().forEach(k -> values.put(k, params.getParam(k)));
+        return key(params.getBenchmark(), values);
+    }
+
+    private static String key(String benchmark, Map<String, String> params) {
+        return params.isEmpty() ? benchmark : benchmark + params;
+    }
+}
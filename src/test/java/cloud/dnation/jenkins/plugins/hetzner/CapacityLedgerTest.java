@@ -0,0 +1,104 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.ServerDetail;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CapacityLedgerTest {
+
+    private static ServerDetail server(long id, String status) {
+        return new ServerDetail().id(id).name("server-" + id).status(status);
+    }
+
+    @Test
+    void testReservationsDoNotExceedCap() throws Exception {
+        final AtomicInteger listings = new AtomicInteger();
+        final ServerInventory inventory = new ServerInventory(() -> {
+            listings.incrementAndGet();
+            return List.of(server(1, "running"), server(2, "starting"), server(3, "off"));
+        });
+        final CapacityLedger ledger = new CapacityLedger(inventory);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<CapacityLedger.Reservation>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return ledger.tryReserve(10);
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<CapacityLedger.Reservation> future : futures) {
+                if (future.get(10, TimeUnit.SECONDS) != null) {
+                    granted++;
+                }
+            }
+            assertEquals(8, granted);
+            assertEquals(8, ledger.getReserved());
+            assertEquals(1, listings.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCommitAndRelease() throws Exception {
+        final ServerInventory inventory = new ServerInventory(() -> List.of(server(1, "running")));
+        final CapacityLedger ledger = new CapacityLedger(inventory);
+        final CapacityLedger.Reservation r1 = ledger.tryReserve(3);
+        final CapacityLedger.Reservation r2 = ledger.tryReserve(3);
+        assertNotNull(r1);
+        assertNotNull(r2);
+        assertNull(ledger.tryReserve(3));
+
+        // failed provisioning gives slot back, repeated release is no-op
+        r1.close();
+        r1.close();
+        assertEquals(1, ledger.getReserved());
+
+        inventory.put(server(2, "initializing"));
+        r2.commit();
+        r2.close();
+        assertEquals(0, ledger.getReserved());
+        assertEquals(1, ledger.getBooting());
+        assertEquals(1, ledger.getRunning());
+
+        assertNotNull(ledger.tryReserve(3));
+        assertNull(ledger.tryReserve(3));
+
+        // server deleted
+        inventory.remove(2);
+        ledger.recount();
+        assertEquals(0, ledger.getBooting());
+        assertNotNull(ledger.tryReserve(3));
+    }
+}
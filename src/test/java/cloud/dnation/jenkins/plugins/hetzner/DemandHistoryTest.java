@@ -0,0 +1,102 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DemandHistoryTest {
+    // Monday
+    private static final long START = ZonedDateTime.of(2026, 1, 5, 0, 0, 0, 0, ZoneOffset.UTC)
+            .toInstant().toEpochMilli();
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NINE_AM = TimeUnit.HOURS.toMillis(9);
+
+    /**
+     * Simulate days in which queue peaks at given length between 9:00 and 9:15, and is empty otherwise.
+     */
+    private static void simulate(DemandHistory history, long from, int days, int peak) {
+        for (long t = from; t < from + days * DAY; t += TimeUnit.MINUTES.toMillis(5)) {
+            final long timeOfDay = t % DAY;
+            history.observeQueue(t, timeOfDay >= NINE_AM && timeOfDay < NINE_AM + DemandHistory.SLOT_MILLIS
+                    ? peak : 0);
+        }
+    }
+
+    @Test
+    void testNoForecastWithoutHistory() {
+        final DemandHistory history = new DemandHistory(ZoneOffset.UTC);
+        simulate(history, START, 1, 4);
+        assertEquals(0, history.forecast(START + DAY + NINE_AM));
+    }
+
+    @Test
+    void testDailyPattern() {
+        final DemandHistory history = new DemandHistory(ZoneOffset.UTC);
+        simulate(history, START, 3, 4);
+        assertEquals(4, history.forecast(START + 3 * DAY + NINE_AM));
+        assertEquals(0, history.forecast(START + 3 * DAY + NINE_AM + DemandHistory.SLOT_MILLIS));
+    }
+
+    @Test
+    void testWeeklyPatternWinsOverDaily() {
+        final DemandHistory history = new DemandHistory(ZoneOffset.UTC);
+        // three weeks of busy weekdays and idle weekends
+        for (int week = 0; week < 3; week++) {
+            final long monday = START + week * 7 * DAY;
+            simulate(history, monday, 5, 6);
+            simulate(history, monday + 5 * DAY, 2, 0);
+        }
+        final long nextMonday = START + 21 * DAY;
+        assertEquals(6, history.forecast(nextMonday + NINE_AM));
+        assertEquals(0, history.forecast(nextMonday + 5 * DAY + NINE_AM));
+    }
+
+    @Test
+    void testOutcome() {
+        final DemandHistory history = new DemandHistory(ZoneOffset.UTC);
+        final long slot = START + NINE_AM;
+        assertNull(history.observeQueue(slot - 1, 0));
+        history.recordPrediction(slot, 3);
+        history.recordPrediction(slot, 2);
+        history.observeQueue(slot, 1);
+        history.observeStart(slot + 1);
+        history.observeStart(slot + 2);
+        final DemandHistory.Outcome outcome = history.observeQueue(slot + DemandHistory.SLOT_MILLIS, 0);
+        assertEquals(new DemandHistory.Outcome(2, 1, 0), outcome);
+
+        history.recordPrediction(slot + DemandHistory.SLOT_MILLIS, 1);
+        history.observeQueue(slot + DemandHistory.SLOT_MILLIS + 1, 4);
+        assertEquals(new DemandHistory.Outcome(1, 0, 3),
+                history.observeQueue(slot + 2 * DemandHistory.SLOT_MILLIS, 0));
+        // no prediction, nothing to evaluate
+        assertNull(history.observeQueue(slot + 3 * DemandHistory.SLOT_MILLIS, 0));
+    }
+
+    @Test
+    void testAgentsToProvision() {
+        assertEquals(0, DemandForecaster.agentsToProvision(0, 0, 0, 0, 1));
+        assertEquals(0, DemandForecaster.agentsToProvision(4, 2, 1, 1, 1));
+        assertEquals(2, DemandForecaster.agentsToProvision(5, 1, 0, 0, 2));
+        assertEquals(1, DemandForecaster.agentsToProvision(5, 1, 1, 2, 4));
+    }
+}
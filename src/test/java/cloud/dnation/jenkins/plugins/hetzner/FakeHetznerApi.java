@@ -0,0 +1,695 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-process fake of Hetzner Cloud API, limited to endpoints used by plugin.
+ * <p>
+ * Servers boot and actions finish after configured time, every response is delayed by configured latency.
+ * Rate limit is enforced and reported using <code>RateLimit-*</code> headers, random HTTP 429 and 5xx responses
+ * can be injected and number of servers is limited to simulate capacity errors.
+ * Optionally, servers accept SSH connections once they are running, so that readiness probes can reach them.
+ * Calls are counted per endpoint, so that API usage of plugin can be measured.
+ */
+@Slf4j
+final class FakeHetznerApi implements AutoCloseable {
+    private static final Splitter PATH = Splitter.on('/').omitEmptyStrings();
+    private static final int DEFAULT_PER_PAGE = 25;
+    private static final byte[] SSH_BANNER = "SSH-2.0-FakeHetznerApi\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Behavior of fake API.
+     */
+    @Builder
+    @Getter
+    static final class Options {
+        /**
+         * Time spent by API handling each request.
+         */
+        @Builder.Default
+        private final long latencyMillis = 0;
+        /**
+         * Time from creation of server until it's running.
+         */
+        @Builder.Default
+        private final long bootMillis = 1000;
+        /**
+         * Time it takes for other actions (power off, shutdown, delete) to finish.
+         */
+        @Builder.Default
+        private final long actionMillis = 200;
+        /**
+         * Number of requests allowed per hour, 0 means unlimited.
+         */
+        @Builder.Default
+        private final long rateLimitPerHour = 0;
+        /**
+         * Probability that request is rejected with HTTP 429. Response tells that budget refills in 2 seconds,
+         * as long as {@link #rateLimitPerHour} is set.
+         */
+        @Builder.Default
+        private final double errorRate429 = 0;
+        /**
+         * Probability that request fails with HTTP 503.
+         */
+        @Builder.Default
+        private final double errorRate5xx = 0;
+        /**
+         * Maximum number of servers in project, creation of more servers fails with resource_limit_exceeded.
+         */
+        @Builder.Default
+        private final int maxServers = Integer.MAX_VALUE;
+        /**
+         * Whether every server gets its own loopback address (<code>127.x.y.z</code>) and sends SSH identification
+         * string to anyone who connects to {@link FakeHetznerApi#getSshPort()} on that address once it's running.
+         * Whole <code>127.0.0.0/8</code> must be routed to loopback (see {@link #isLoopbackRangeAvailable()}).
+         */
+        @Builder.Default
+        private final boolean sshd = false;
+        @Builder.Default
+        private final long seed = 42;
+    }
+
+    private record Resource(long id, String name, Map<String, String> labels) {
+    }
+
+    private record Action(long id, String command, long serverId, long finishAtNanos) {
+    }
+
+    private static final class Server {
+        private final long id;
+        private final String name;
+        private final Map<String, String> labels;
+        private final Instant created = Instant.now();
+        private final long runningAtNanos;
+        private volatile long offAtNanos = Long.MAX_VALUE;
+        private volatile ServerSocket sshd;
+
+        private Server(long id, String name, Map<String, String> labels, long runningAtNanos) {
+            this.id = id;
+            this.name = name;
+            this.labels = labels;
+            this.runningAtNanos = runningAtNanos;
+        }
+
+        private String status(long now) {
+            if (now >= offAtNanos) {
+                return "off";
+            }
+            return now >= runningAtNanos ? "running" : "initializing";
+        }
+    }
+
+    private static final class HttpError extends RuntimeException {
+        private final int status;
+        private final String code;
+
+        private HttpError(int status, String code, String message) {
+            super(message);
+            this.status = status;
+            this.code = code;
+        }
+    }
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService boots = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * Keeps SSH port reserved, every server listens on same port of its own address.
+     */
+    private final ServerSocket sshPortHolder;
+    private final Random random;
+    private final AtomicLong ids = new AtomicLong(1000);
+    private final ConcurrentMap<Long, Server> servers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Action> actions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<Long, Resource>> resources = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger totalCalls = new AtomicInteger();
+    private long rateLimitRemaining;
+    private long lastRefillNanos = System.nanoTime();
+
+    FakeHetznerApi(Options options) throws IOException {
+        this.options = options;
+        this.random = new Random(options.getSeed());
+        this.rateLimitRemaining = options.getRateLimitPerHour();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+        sshPortHolder = options.isSshd() ? new ServerSocket(0, 50, InetAddress.getLoopbackAddress()) : null;
+    }
+
+    /**
+     * Check whether sockets can be bound to other loopback addresses than <code>127.0.0.1</code>, which is true
+     * e.g. on Linux, but not on macOS.
+     *
+     * @return <code>true</code> if {@link Options#sshd} can be used
+     */
+    static boolean isLoopbackRangeAvailable() {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 0));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Get base URL of fake API.
+     *
+     * @return base URL, including trailing slash
+     */
+    String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1/";
+    }
+
+    /**
+     * Add resource which can be referenced from server template.
+     *
+     * @param type   type of resource as used in API path, e.g. <code>images</code> or <code>primary_ips</code>
+     * @param name   name of resource
+     * @param labels labels of resource
+     * @return ID of resource
+     */
+    long addResource(String type, String name, Map<String, String> labels) {
+        final long id = ids.incrementAndGet();
+        resourcesOf(type).put(id, new Resource(id, name, labels));
+        return id;
+    }
+
+    int getTotalCalls() {
+        return totalCalls.get();
+    }
+
+    /**
+     * Get number of calls made to each endpoint.
+     *
+     * @return map of endpoint (e.g. <code>GET servers/{id}</code>) to number of calls
+     */
+    Map<String, Integer> getCalls() {
+        return calls.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get()));
+    }
+
+    int getServerCount() {
+        return servers.size();
+    }
+
+    /**
+     * Get port on which servers accept SSH connections, see {@link Options#sshd}.
+     *
+     * @return port number
+     */
+    int getSshPort() {
+        return Objects.requireNonNull(sshPortHolder, "sshd is not enabled").getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        boots.shutdownNow();
+        servers.values().forEach(FakeHetznerApi::stopSshd);
+        if (sshPortHolder != null) {
+            closeQuietly(sshPortHolder);
+        }
+        executor.shutdownNow();
+    }
+
+    private ConcurrentMap<Long, Resource> resourcesOf(String type) {
+        return resources.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final List<String> path = PATH.splitToList(exchange.getRequestURI().getPath().substring(4));
+            final String method = exchange.getRequestMethod();
+            final String endpoint = method + " " + path.stream()
+                    .map(segment -> Helper.isPossiblyLong(segment) ? "{id}" : segment)
+                    .collect(Collectors.joining("/"));
+            calls.computeIfAbsent(endpoint, e -> new AtomicInteger()).incrementAndGet();
+            totalCalls.incrementAndGet();
+            if (options.getLatencyMillis() > 0) {
+                TimeUnit.MILLISECONDS.sleep(options.getLatencyMillis());
+            }
+            int status = 200;
+            JsonObject body;
+            final boolean admitted = admit();
+            rateLimitHeaders(exchange);
+            try {
+                if (!admitted) {
+                    throw new HttpError(429, "rate_limit_exceeded", "Rate limit exceeded");
+                }
+                injectFaults();
+                final JsonObject request = readBody(exchange);
+                body = route(method, path, query(exchange), request);
+                if ("POST".equals(method) && path.size() == 1) {
+                    status = 201;
+                }
+            } catch (HttpError e) {
+                status = e.status;
+                body = error(e.code, e.getMessage());
+                if (status == 429 && options.getRateLimitPerHour() > 0) {
+                    // budget is exhausted, but refills shortly
+                    exchange.getResponseHeaders().set(ApiScheduler.HEADER_REMAINING, "0");
+                    exchange.getResponseHeaders().set(ApiScheduler.HEADER_RESET,
+                            String.valueOf(Instant.now().getEpochSecond() + 2));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Fake API failed to handle {}", endpoint, e);
+                status = 500;
+                body = error("server_error", String.valueOf(e.getMessage()));
+            }
+            final byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean admit() {
+        final long limit = options.getRateLimitPerHour();
+        if (limit <= 0) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        final long refilled = (now - lastRefillNanos) * limit / TimeUnit.HOURS.toNanos(1);
+        if (refilled > 0) {
+            rateLimitRemaining = Math.min(limit, rateLimitRemaining + refilled);
+            lastRefillNanos = now;
+        }
+        if (rateLimitRemaining <= 0) {
+            return false;
+        }
+        rateLimitRemaining--;
+        return true;
+    }
+
+    private synchronized void rateLimitHeaders(HttpExchange exchange) {
+        final long limit = options.getRateLimitPerHour();
+        if (limit <= 0) {
+            return;
+        }
+        final long secondsToFull = (limit - rateLimitRemaining) * TimeUnit.HOURS.toSeconds(1) / limit;
+        exchange.getResponseHeaders().set(ApiScheduler.HEADER_LIMIT, String.valueOf(limit));
+        exchange.getResponseHeaders().set(ApiScheduler.HEADER_REMAINING, String.valueOf(rateLimitRemaining));
+        exchange.getResponseHeaders().set(ApiScheduler.HEADER_RESET,
+                String.valueOf(Instant.now().getEpochSecond() + secondsToFull));
+    }
+
+    private void injectFaults() {
+        final double dice;
+        synchronized (random) {
+            dice = random.nextDouble();
+        }
+        if (dice < options.getErrorRate429()) {
+            throw new HttpError(429, "rate_limit_exceeded", "Injected rate limit error");
+        }
+        if (dice < options.getErrorRate429() + options.getErrorRate5xx()) {
+            throw new HttpError(503, "unavailable", "Injected server error");
+        }
+    }
+
+    private JsonObject route(String method, List<String> path, Map<String, List<String>> query, JsonObject request) {
+        final String resource = path.get(0);
+        final Long id = path.size() > 1 ? Long.parseLong(path.get(1)) : null;
+        switch (resource) {
+            case "servers":
+                return servers(method, id, path, query, request);
+            case "actions":
+                if (id != null) {
+                    return single("action", toJson(find(actions, id)));
+                }
+                final JsonArray result = new JsonArray();
+                query.getOrDefault("id", List.of()).stream()
+                        .map(actionId -> actions.get(Long.parseLong(actionId)))
+                        .filter(Objects::nonNull)
+                        .forEach(a -> result.add(toJson(a)));
+                return single("actions", result);
+            case "ssh_keys":
+                if ("POST".equals(method)) {
+                    final long keyId = addResource(resource, request.get("name").getAsString(),
+                            labels(request));
+                    return single("ssh_key", toJson(find(resourcesOf(resource), keyId)));
+                }
+                return resources(resource, id, query);
+            case "locations":
+            case "server_types":
+                // every location and server type exists
+                final String name = first(query, "name");
+                final JsonArray items = new JsonArray();
+                items.add(toJson(new Resource(1, Strings.nullToEmpty(name), Map.of())));
+                return page(resource, items, 1, 1, 1, 1);
+            default:
+                return resources(resource, id, query);
+        }
+    }
+
+    private JsonObject servers(String method, Long id, List<String> path, Map<String, List<String>> query,
+                               JsonObject request) {
+        final long now = System.nanoTime();
+        if (id == null) {
+            if ("POST".equals(method)) {
+                return createServer(request, now);
+            }
+            final List<JsonElement> matching = servers.values().stream()
+                    .filter(selector(first(query, "label_selector"), s -> s.labels))
+                    .sorted(Comparator.comparingLong(s -> s.id))
+                    .map(s -> toJson(s, now))
+                    .collect(Collectors.toList());
+            return paged("servers", matching, query);
+        }
+        final Server target = find(servers, id);
+        if (path.size() == 2) {
+            if ("DELETE".equals(method)) {
+                stopSshd(servers.remove(id));
+                return single("action", toJson(newAction("delete_server", id, now + millis(options.actionMillis))));
+            }
+            return single("server", toJson(target, now));
+        }
+        final String command = path.get(path.size() - 1);
+        if (!"POST".equals(method) || !("poweroff".equals(command) || "shutdown".equals(command))) {
+            throw new HttpError(404, "not_found", "Unknown action " + command);
+        }
+        final Action action = newAction(command + "_server", id, now + millis(options.actionMillis));
+        target.offAtNanos = action.finishAtNanos;
+        return single("action", toJson(action));
+    }
+
+    private synchronized JsonObject createServer(JsonObject request, long now) {
+        final String name = request.get("name").getAsString();
+        if (servers.size() >= options.getMaxServers()) {
+            throw new HttpError(403, "resource_limit_exceeded", "server limit exceeded");
+        }
+        if (servers.values().stream().anyMatch(s -> s.name.equals(name))) {
+            throw new HttpError(409, "uniqueness_error", "server name is already used");
+        }
+        final long id = ids.incrementAndGet();
+        final Server created = new Server(id, name, labels(request), now + millis(options.getBootMillis()));
+        servers.put(id, created);
+        if (options.isSshd()) {
+            boots.schedule(() -> startSshd(created), options.getBootMillis(), TimeUnit.MILLISECONDS);
+        }
+        final JsonObject result = single("server", toJson(created, now));
+        result.add("action", toJson(newAction("create_server", id, created.runningAtNanos)));
+        result.add("next_actions", new JsonArray());
+        result.add("root_password", JsonNull.INSTANCE);
+        return result;
+    }
+
+    private JsonObject resources(String type, Long id, Map<String, List<String>> query) {
+        final ConcurrentMap<Long, Resource> all = resourcesOf(type);
+        if (id != null) {
+            return single(singular(type), toJson(find(all, id)));
+        }
+        final List<JsonElement> matching = all.values().stream()
+                .filter(selector(first(query, "label_selector"), Resource::labels))
+                .filter(r -> first(query, "name") == null || r.name().equals(first(query, "name")))
+                .sorted(Comparator.comparingLong(Resource::id))
+                .map(this::toJson)
+                .collect(Collectors.toList());
+        return paged(type, matching, query);
+    }
+
+    private Action newAction(String command, long serverId, long finishAtNanos) {
+        final Action action = new Action(ids.incrementAndGet(), command, serverId, finishAtNanos);
+        actions.put(action.id(), action);
+        return action;
+    }
+
+    private JsonObject paged(String type, List<JsonElement> items, Map<String, List<String>> query) {
+        final int perPage = Integer.parseInt(Strings.isNullOrEmpty(first(query, "per_page"))
+                ? String.valueOf(DEFAULT_PER_PAGE) : first(query, "per_page"));
+        final int page = Integer.parseInt(Strings.isNullOrEmpty(first(query, "page")) ? "1" : first(query, "page"));
+        final int lastPage = Math.max(1, (items.size() + perPage - 1) / perPage);
+        final JsonArray array = new JsonArray();
+        items.stream().skip((long) (page - 1) * perPage).limit(perPage).forEach(array::add);
+        return page(type, array, page, perPage, lastPage, items.size());
+    }
+
+    private static JsonObject page(String type, JsonArray items, int page, int perPage, int lastPage, int total) {
+        final JsonObject pagination = new JsonObject();
+        pagination.addProperty("page", page);
+        pagination.addProperty("per_page", perPage);
+        pagination.addProperty("last_page", lastPage);
+        pagination.addProperty("total_entries", total);
+        if (page < lastPage) {
+            pagination.addProperty("next_page", page + 1);
+        } else {
+            pagination.add("next_page", JsonNull.INSTANCE);
+        }
+        final JsonObject meta = new JsonObject();
+        meta.add("pagination", pagination);
+        final JsonObject result = single(type, items);
+        result.add("meta", meta);
+        return result;
+    }
+
+    private String ipv4(Server s) {
+        return (options.isSshd() ? "127." : "10.") + (s.id >> 16 & 0xff) + "." + (s.id >> 8 & 0xff) + "."
+                + (s.id & 0xff);
+    }
+
+    /**
+     * Start listening on SSH port of booted server, every connection gets SSH identification string and is closed.
+     */
+    private void startSshd(Server s) {
+        final ServerSocket socket;
+        try {
+            socket = new ServerSocket();
+            socket.bind(new InetSocketAddress(InetAddress.getByName(ipv4(s)), getSshPort()));
+        } catch (IOException e) {
+            log.warn("Unable to start SSH daemon of server {}", s.name, e);
+            return;
+        }
+        s.sshd = socket;
+        if (!servers.containsKey(s.id)) {
+            // deleted while booting
+            closeQuietly(socket);
+            return;
+        }
+        executor.execute(() -> {
+            while (!socket.isClosed()) {
+                try (Socket connection = socket.accept()) {
+                    connection.getOutputStream().write(SSH_BANNER);
+                } catch (IOException e) {
+                    log.debug("SSH connection to server {} failed", s.name, e);
+                }
+            }
+        });
+    }
+
+    private static void stopSshd(Server s) {
+        if (s != null && s.sshd != null) {
+            closeQuietly(s.sshd);
+        }
+    }
+
+    private static void closeQuietly(ServerSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Unable to close SSH socket", e);
+        }
+    }
+
+    private JsonObject toJson(Server s, long now) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("id", s.id);
+        json.addProperty("name", s.name);
+        json.addProperty("status", s.status(now));
+        json.addProperty("created", s.created.toString());
+        json.add("labels", toJson(s.labels));
+        final JsonObject ipv4 = new JsonObject();
+        ipv4.addProperty("id", s.id);
+        ipv4.addProperty("ip", ipv4(s));
+        final JsonObject ipv6 = new JsonObject();
+        ipv6.addProperty("id", s.id);
+        ipv6.addProperty("ip", "2001:db8:" + Long.toHexString(s.id) + "::/64");
+        final JsonObject publicNet = new JsonObject();
+        publicNet.add("ipv4", ipv4);
+        publicNet.add("ipv6", ipv6);
+        json.add("public_net", publicNet);
+        json.add("private_net", new JsonArray());
+        return json;
+    }
+
+    private JsonObject toJson(Action a) {
+        final boolean finished = System.nanoTime() >= a.finishAtNanos();
+        final JsonObject json = new JsonObject();
+        json.addProperty("id", a.id());
+        json.addProperty("command", a.command());
+        json.addProperty("status", finished ? "success" : "running");
+        json.addProperty("progress", finished ? 100 : 0);
+        json.add("error", JsonNull.INSTANCE);
+        final JsonObject resource = new JsonObject();
+        resource.addProperty("id", a.serverId());
+        resource.addProperty("type", "server");
+        final JsonArray resourceList = new JsonArray();
+        resourceList.add(resource);
+        json.add("resources", resourceList);
+        return json;
+    }
+
+    private JsonObject toJson(Resource r) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("id", r.id());
+        json.addProperty("name", r.name());
+        json.add("labels", toJson(r.labels()));
+        return json;
+    }
+
+    private static JsonObject toJson(Map<String, String> labels) {
+        final JsonObject json = new JsonObject();
+        labels.forEach(json::addProperty);
+        return json;
+    }
+
+    private static JsonObject single(String name, JsonElement value) {
+        final JsonObject json = new JsonObject();
+        json.add(name, value);
+        return json;
+    }
+
+    private static JsonObject error(String code, String message) {
+        final JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", message);
+        return single("error", error);
+    }
+
+    private static <T> T find(Map<Long, T> map, long id) {
+        final T value = map.get(id);
+        if (value == null) {
+            throw new HttpError(404, "not_found", "Resource " + id + " not found");
+        }
+        return value;
+    }
+
+    private static String singular(String type) {
+        return type.endsWith("s") ? type.substring(0, type.length() - 1) : type;
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static Map<String, String> labels(JsonObject request) {
+        final Map<String, String> labels = new HashMap<>();
+        if (request.has("labels") && request.get("labels").isJsonObject()) {
+            request.getAsJsonObject("labels").entrySet().forEach(e -> labels.put(e.getKey(),
+                    e.getValue().getAsString()));
+        }
+        return labels;
+    }
+
+    /**
+     * Build predicate from label selector, supports <code>key=value</code>, <code>key!=value</code>
+     * and <code>key</code> terms.
+     */
+    private static <T> Predicate<T> selector(String labelSelector, Function<T, Map<String, String>> labels) {
+        if (Strings.isNullOrEmpty(labelSelector)) {
+            return item -> true;
+        }
+        Predicate<Map<String, String>> result = l -> true;
+        for (String term : Splitter.on(',').trimResults().omitEmptyStrings().split(labelSelector)) {
+            final Predicate<Map<String, String>> condition;
+            if (term.contains("!=")) {
+                final String[] kv = term.split("!=", 2);
+                condition = l -> !kv[1].equals(l.get(kv[0]));
+            } else if (term.contains("=")) {
+                final String[] kv = term.split("=", 2);
+                condition = l -> kv[1].equals(l.get(kv[0]));
+            } else {
+                condition = l -> l.containsKey(term);
+            }
+            result = result.and(condition);
+        }
+        final Predicate<Map<String, String>> matcher = result;
+        return item -> matcher.test(labels.apply(item));
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) throws IOException {
+        final byte[] bytes = exchange.getRequestBody().readAllBytes();
+        if (bytes.length == 0) {
+            return new JsonObject();
+        }
+        final JsonElement json = JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8));
+        return json.isJsonObject() ? json.getAsJsonObject() : new JsonObject();
+    }
+
+    private static Map<String, List<String>> query(HttpExchange exchange) {
+        final Map<String, List<String>> result = new HashMap<>();
+        final String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String param : Splitter.on('&').omitEmptyStrings().split(raw)) {
+                final String[] kv = param.split("=", 2);
+                result.computeIfAbsent(URLDecoder.decode(kv[0], StandardCharsets.UTF_8), k -> new ArrayList<>())
+                        .add(kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        return result;
+    }
+
+    private static String first(Map<String, List<String>> query, String name) {
+        final List<String> values = query.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.CreateServerRequest;
+import cloud.dnation.jenkins.plugins.hetzner.connect.ConnectivityType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Small helpers invoked for every agent.
+ */
+public class HelperBenchmark {
+    private static final String CREATED = "2026-10-18T10:15:30+00:00";
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 11, 12);
+
+    @State(Scope.Thread)
+    public static class Networking {
+        @Param({"PRIVATE", "PUBLIC", "PUBLIC_V6", "BOTH", "BOTH_V6"})
+        public ConnectivityType connectivity;
+    }
+
+    @Benchmark
+    public boolean canShutdownServer() {
+        return Helper.canShutdownServer(CREATED, NOW);
+    }
+
+    @Benchmark
+    public String buildLabelExpressionForSshKey() {
+        return HetznerCloudResourceManager.buildLabelExpressionForSshKey("ssh-credentials");
+    }
+
+    @Benchmark
+    public CreateServerRequest customizeNetworking(Networking state) throws IOException {
+        final CreateServerRequest req = new CreateServerRequest();
+        HetznerCloudResourceManager.customizeNetworking(state.connectivity, req, "10",
+                (r, network) -> r.setNetworks(List.of(Long.parseLong(network))));
+        return req;
+    }
+}
@@ -19,6 +19,7 @@ import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Set;
 
 import okhttp3.MediaType;
 import okhttp3.ResponseBody;
@@ -119,6 +120,18 @@ class HelperTest {
         assertNull(Helper.parseHetznerErrorCode("{\"other\":\"field\"}"));
     }
 
+    @Test
+    void testParseHetznerErrorFields() {
+        String body = "{\"error\":{\"code\":\"invalid_input\",\"message\":\"invalid input in fields\","
+                + "\"details\":{\"fields\":[{\"name\":\"image\",\"messages\":[\"image not found\"]},"
+                + "{\"name\":\"server_type\",\"messages\":[\"unknown server type\"]}]}}}";
+        assertEquals(Set.of("image", "server_type"), Helper.parseHetznerErrorFields(body));
+        assertEquals(Set.of(), Helper.parseHetznerErrorFields(
+                "{\"error\":{\"code\":\"not_found\",\"message\":\"not found\"}}"));
+        assertEquals(Set.of(), Helper.parseHetznerErrorFields("not json at all"));
+        assertEquals(Set.of(), Helper.parseHetznerErrorFields(null));
+    }
+
     @Test
     void testIsValidLabelValue() {
         assertFalse(Helper.isValidLabelValue(""));
@@ -16,14 +16,58 @@
 package cloud.dnation.jenkins.plugins.hetzner;
 
 import cloud.dnation.hetznerclient.CreateServerRequest;
+import cloud.dnation.hetznerclient.CreateServerResponse;
+import cloud.dnation.hetznerclient.HetznerApi;
+import cloud.dnation.hetznerclient.ServerDetail;
+import cloud.dnation.hetznerclient.SshKeyDetail;
 import cloud.dnation.jenkins.plugins.hetzner.connect.ConnectivityType;
+import cloud.dnation.jenkins.plugins.hetzner.connect.PublicOnly;
+import cloud.dnation.jenkins.plugins.hetzner.launcher.AbstractHetznerSshConnector;
+import cloud.dnation.jenkins.plugins.hetzner.primaryip.DefaultStrategy;
+import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
 import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static cloud.dnation.jenkins.plugins.hetzner.HetznerCloudResourceManager.customizeNetworking;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class HetznerCloudResourceManagerTest {
 
+    @Test
+    void testStaleReferences() {
+        assertEquals(Set.of("image"), HetznerCloudResourceManager.staleReferences("invalid_input",
+                "{\"error\":{\"code\":\"invalid_input\",\"message\":\"invalid input in field 'image'\","
+                        + "\"details\":{\"fields\":[{\"name\":\"image\"}]}}}"));
+        // configuration error, retry wouldn't help
+        assertEquals(Set.of(), HetznerCloudResourceManager.staleReferences("invalid_input",
+                "{\"error\":{\"code\":\"invalid_input\",\"message\":\"invalid input in field 'server_type'\","
+                        + "\"details\":{\"fields\":[{\"name\":\"server_type\"}]}}}"));
+        assertEquals(Set.of("ssh_keys"), HetznerCloudResourceManager.staleReferences("not_found",
+                "{\"error\":{\"code\":\"not_found\",\"message\":\"SSH key with ID 42 not found\"}}"));
+        assertEquals(Set.of(), HetznerCloudResourceManager.staleReferences("not_found",
+                "{\"error\":{\"code\":\"not_found\",\"message\":\"server type not found\"}}"));
+        assertEquals(Set.of(), HetznerCloudResourceManager.staleReferences("resource_limit_exceeded",
+                "{\"error\":{\"code\":\"resource_limit_exceeded\",\"message\":\"limit\"}}"));
+    }
+
     @Test
     void testCustomizeNetworking() throws Exception {
         CreateServerRequest req;
@@ -58,4 +102,70 @@ class HetznerCloudResourceManagerTest {
         assertEquals(false, req.getPublicNet().getEnableIpv4());
         assertEquals(false, req.getPublicNet().getEnableIpv6());
     }
+
+    @Test
+    @WithJenkins
+    void testCreateServerConcurrently(JenkinsRule j) throws Exception {
+        final int parallelism = 8;
+        final BasicSSHUserPrivateKey privateKey = new BasicSSHUserPrivateKey(CredentialsScope.GLOBAL, "ssh-key",
+                "jenkins", new BasicSSHUserPrivateKey.DirectEntryPrivateKeySource(
+                TestHelper.resourceAsString("id_rsa")), null, null);
+        SystemCredentialsProvider.getInstance().getCredentials().add(privateKey);
+        SystemCredentialsProvider.getInstance().save();
+        final SshKeyDetail sshKey = new SshKeyDetail().name("ssh-key");
+        SshKeyRegistry.getOrRegister("hcloud-concurrent", privateKey, () -> sshKey);
+
+        // create call returns once all calls are in flight, or after timeout if they are serialized
+        final HetznerApi api = mock(HetznerApi.class);
+        final CreateServerResponse created = new CreateServerResponse();
+        created.setServer(new ServerDetail());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final CountDownLatch allInFlight = new CountDownLatch(parallelism);
+        when(api.createServer(any())).thenAnswer(inv -> {
+            @SuppressWarnings("unchecked")
+            final Call<CreateServerResponse> call = mock(Call.class);
+            when(call.execute()).thenAnswer(inv2 -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                allInFlight.countDown();
+                allInFlight.await(5, TimeUnit.SECONDS);
+                inFlight.decrementAndGet();
+                return Response.success(created);
+            });
+            return call;
+        });
+        SharedApiClient.register("hcloud-concurrent", api);
+
+        final AbstractHetznerSshConnector connector = mock(AbstractHetznerSshConnector.class);
+        when(connector.getSshCredentialsId()).thenReturn("ssh-key");
+        final HetznerServerTemplate template = mock(HetznerServerTemplate.class);
+        when(template.getImage()).thenReturn("123");
+        when(template.getServerType()).thenReturn("cx22");
+        when(template.getLocation()).thenReturn("fsn1");
+        when(template.getConnectivity()).thenReturn(new PublicOnly());
+        when(template.getPrimaryIp()).thenReturn(DefaultStrategy.SINGLETON);
+        when(template.getConnector()).thenReturn(connector);
+        when(template.getCloud()).thenReturn(mock(HetznerCloud.class));
+        final ServerBlueprint blueprint = ServerBlueprint.compile(template);
+        when(template.getBlueprint()).thenReturn(blueprint);
+        final HetznerServerAgent agent = mock(HetznerServerAgent.class);
+        when(agent.getTemplate()).thenReturn(template);
+        when(agent.getNodeName()).thenReturn("agent");
+
+        final HetznerCloudResourceManager manager = HetznerCloudResourceManager.create("hcloud-concurrent");
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            final List<Future<HetznerServerInfo>> results = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                results.add(executor.submit(() -> manager.createServer(agent)));
+            }
+            for (Future<HetznerServerInfo> result : results) {
+                assertEquals(sshKey, result.get().getSshKeyDetail());
+            }
+            assertEquals(parallelism, maxInFlight.get(), "Creation of servers was serialized");
+        } finally {
+            executor.shutdownNow();
+            SharedApiClient.invalidate("hcloud-concurrent");
+        }
+    }
 }
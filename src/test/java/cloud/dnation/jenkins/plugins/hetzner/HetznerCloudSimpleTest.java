@@ -35,6 +35,9 @@ import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doAnswer;
@@ -54,6 +57,7 @@ class HetznerCloudSimpleTest {
 
     @BeforeEach
     void setUp() {
+        CloudServers.clear();
         jenkinsMock = mockStatic(Jenkins.class);
         hetznerCloudResourceManagerMockedStatic = mockStatic(HetznerCloudResourceManager.class);
 
@@ -94,6 +98,20 @@ class HetznerCloudSimpleTest {
         assertFalse(cloud.canProvision(cloudState2));
     }
 
+    @Test
+    void testReservationSurvivesReconfiguration() throws Exception {
+        final HetznerCloud cloud = new HetznerCloud("hcloud-01", "mock-credentials", "1",
+                Lists.newArrayList());
+        try (CapacityLedger.Reservation reservation = cloud.getCapacityLedger().tryReserve(1)) {
+            assertNotNull(reservation);
+            // saving configuration creates new instance of cloud while provisioning is in flight
+            final HetznerCloud reconfigured = new HetznerCloud("hcloud-01", "mock-credentials", "1",
+                    Lists.newArrayList());
+            assertSame(cloud.getInventory(), reconfigured.getInventory());
+            assertNull(reconfigured.getCapacityLedger().tryReserve(reconfigured.getInstanceCap()));
+        }
+    }
+
     @Test
     void testCannotProvisionInExclusiveMode() {
         HetznerServerTemplate tmpl1 = new HetznerServerTemplate("tmpl1", "label1", "img1", "fsn1", "cx31");
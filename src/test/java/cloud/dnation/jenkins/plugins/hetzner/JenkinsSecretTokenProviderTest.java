@@ -0,0 +1,107 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.sun.net.httpserver.HttpServer;
+import hudson.util.Secret;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@WithJenkins
+class JenkinsSecretTokenProviderTest {
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+    }
+
+    private static void storeToken(String id, String token) throws Exception {
+        storeToken(id, token, true);
+    }
+
+    private static void storeToken(String id, String token, boolean save) throws Exception {
+        final SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials().removeIf(c -> c instanceof StringCredentialsImpl sc && id.equals(sc.getId()));
+        store.getCredentials().add(new StringCredentialsImpl(CredentialsScope.GLOBAL, id, "test token",
+                Secret.fromString(token)));
+        if (save) {
+            store.save();
+        }
+    }
+
+    @Test
+    void testTokenIsCachedUntilCredentialsChange() throws Exception {
+        storeToken("hcloud-token", "token-1");
+        final JenkinsSecretTokenProvider provider = JenkinsSecretTokenProvider.forCredentialsId("hcloud-token");
+        final long lookups = PluginMetrics.latency("credentials.token.lookup").getCount();
+        assertEquals("token-1", provider.get());
+        assertEquals("token-1", provider.get());
+        assertEquals(lookups + 1, PluginMetrics.latency("credentials.token.lookup").getCount());
+
+        storeToken("hcloud-token", "token-2");
+        assertEquals("token-2", provider.get());
+    }
+
+    @Test
+    void testTokenIsLookedUpAgainOnceRejected() throws Exception {
+        storeToken("rotated-token", "token-1");
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            final String auth = exchange.getRequestHeaders().getFirst("Authorization");
+            exchange.sendResponseHeaders("Bearer token-2".equals(auth) ? 200 : 401, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            final OkHttpClient client = SharedApiClient.createHttpClient("rotated-token");
+            final Request request = new Request.Builder()
+                    .url("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+                    .build();
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals(401, response.code());
+            }
+            // token is rotated without any notification, e.g. in external secret store
+            storeToken("rotated-token", "token-2", false);
+            try (Response response = client.newCall(request).execute()) {
+                assertEquals(200, response.code());
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testMissingCredentials() {
+        assertThrows(IllegalStateException.class,
+                () -> JenkinsSecretTokenProvider.forCredentialsId("no-such-credentials").get());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.LabelResolutionCache.ResourceType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LabelResolutionCacheTest {
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final LabelResolutionCache cache = new LabelResolutionCache(now::get, Runnable::run);
+
+    private long resolve(ResourceType type, String expression) {
+        return 100 + calls.incrementAndGet();
+    }
+
+    @Test
+    void testHitDoesNotCallApi() throws Exception {
+        assertEquals(101, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, this::resolve));
+        now.addAndGet(Duration.ofMinutes(1).toMillis());
+        assertEquals(101, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, this::resolve));
+        assertEquals(1, calls.get());
+        // same expression for different resource type is separate entry
+        assertEquals(102, cache.get(ResourceType.NETWORK, "jenkins=true", this::resolve, this::resolve));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testExpiredEntryIsResolvedAgain() throws Exception {
+        assertEquals(101, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, this::resolve));
+        now.addAndGet(ResourceType.IMAGE.getTtl().toMillis() + 1);
+        assertEquals(102, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, this::resolve));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testInvalidate() throws Exception {
+        assertFalse(cache.invalidate(ResourceType.FIREWALL, "fw=1"));
+        assertEquals(101, cache.get(ResourceType.FIREWALL, "fw=1", this::resolve, this::resolve));
+        assertTrue(cache.invalidate(ResourceType.FIREWALL, "fw=1"));
+        assertEquals(102, cache.get(ResourceType.FIREWALL, "fw=1", this::resolve, this::resolve));
+    }
+
+    @Test
+    void testStaleEntryIsRefreshedInBackground() throws Exception {
+        final AtomicInteger refreshes = new AtomicInteger();
+        final LabelResolutionCache.Resolver refresher = (type, expression) -> 200 + refreshes.incrementAndGet();
+        assertEquals(101, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, refresher));
+        now.addAndGet(ResourceType.IMAGE.getTtl().toMillis() * 7 / 8);
+        // stale entry is still served, while refresher loads new one
+        assertEquals(101, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, refresher));
+        assertEquals(201, cache.get(ResourceType.IMAGE, "jenkins=true", this::resolve, refresher));
+        assertEquals(1, calls.get());
+        assertEquals(1, refreshes.get());
+
+        cache.prewarm(ResourceType.NETWORK, "jenkins=true", refresher);
+        assertEquals(202, cache.get(ResourceType.NETWORK, "jenkins=true", this::resolve, refresher));
+        assertEquals(1, calls.get());
+    }
+}
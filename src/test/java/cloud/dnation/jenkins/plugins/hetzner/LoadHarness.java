@@ -0,0 +1,291 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.launcher.AbstractHetznerSshConnector;
+import cloud.dnation.jenkins.plugins.hetzner.launcher.HetznerServerComputerLauncher;
+import com.google.common.base.Throwables;
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.ChannelBuilder;
+import hudson.remoting.FastPipedInputStream;
+import hudson.remoting.FastPipedOutputStream;
+import hudson.slaves.Cloud;
+import hudson.slaves.NodeProvisioner.PlannedNode;
+import hudson.slaves.SlaveComputer;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Drives provisioning of many agents against {@link FakeHetznerApi} and reports how plugin performed.
+ * <p>
+ * Agents are requested from {@link HetznerCloud#provision(Cloud.CloudState, int)} the way
+ * {@link hudson.slaves.NodeProvisioner} does it: workload which arrived since last tick is handed to cloud
+ * periodically, and cloud is asked again if it provisioned less than requested. Each agent then goes through
+ * whole {@link ProvisioningPipeline}, including capacity reservation, readiness probes and connection.
+ * Servers of fake API accept SSH connections once they have booted (see {@link FakeHetznerApi.Options#sshd}), while
+ * agent itself is connected over in-process channel instead of SSH. Agent counts as online once its computer is
+ * online, it's terminated right away then.
+ */
+@Slf4j
+@RequiredArgsConstructor
+final class LoadHarness {
+    private static final String LABEL = "load";
+    /**
+     * How long to wait for agents after last one was requested.
+     */
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+    private final FakeHetznerApi fakeApi;
+    private final String credentialsId;
+    private final String sshCredentialsId;
+    /**
+     * Interval in which pending workload is handed to cloud.
+     */
+    private final Duration tick;
+
+    /**
+     * Result of single run.
+     *
+     * @param agents             number of requested agents
+     * @param online             number of agents which came online
+     * @param failures           error messages of agents which didn't come online
+     * @param elapsedMillis      duration of whole run
+     * @param apiCalls           number of API calls made during run
+     * @param timeToOnlineMillis time from request until computer of agent was online, per online agent, sorted
+     */
+    record Report(int agents, int online, List<String> failures, long elapsedMillis, int apiCalls,
+                  List<Long> timeToOnlineMillis) {
+        double throughputPerMinute() {
+            return elapsedMillis == 0 ? 0 : online * 60_000.0 / elapsedMillis;
+        }
+
+        double apiCallsPerAgent() {
+            return agents == 0 ? 0 : (double) apiCalls / agents;
+        }
+
+        long timeToOnlinePercentile(double quantile) {
+            if (timeToOnlineMillis.isEmpty()) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(quantile * timeToOnlineMillis.size()) - 1;
+            return timeToOnlineMillis.get(Math.max(0, index));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "agents=%d, online=%d, failed=%d, elapsed=%dms, "
+                            + "throughput=%.1f agents/min, api calls/agent=%.2f, "
+                            + "time to online p50=%dms p95=%dms max=%dms",
+                    agents, online, failures.size(), elapsedMillis, throughputPerMinute(), apiCallsPerAgent(),
+                    timeToOnlinePercentile(0.5), timeToOnlinePercentile(0.95), timeToOnlinePercentile(1.0));
+        }
+    }
+
+    /**
+     * Request given number of agents, spread evenly over given time window.
+     *
+     * @param agents number of agents
+     * @param window time window in which agents are requested, {@link Duration#ZERO} requests all at once
+     * @return report
+     * @throws Exception if run can't be set up or is interrupted
+     */
+    Report run(int agents, Duration window) throws Exception {
+        final HetznerCloud cloud = cloud(agents);
+        final Jenkins jenkins = Jenkins.get();
+        jenkins.clouds.add(cloud);
+        final ExecutorService teardowns = Executors.newCachedThreadPool();
+        final ConcurrentLinkedQueue<Long> timeToOnline = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        final List<CompletableFuture<Void>> done = new ArrayList<>();
+        final Label label = jenkins.getLabel(LABEL);
+        final int callsBefore = fakeApi.getTotalCalls();
+        final long start = System.nanoTime();
+        final long deadline = start + window.toNanos() + TIMEOUT.toNanos();
+        try {
+            int requested = 0;
+            while (requested < agents) {
+                final long now = System.nanoTime();
+                if (now > deadline) {
+                    failures.addAll(Collections.nCopies(agents - requested, "Agent was never provisioned"));
+                    break;
+                }
+                int arrived = requested;
+                while (arrived < agents && start + arrivalOffset(arrived, agents, window) <= now) {
+                    arrived++;
+                }
+                if (arrived > requested) {
+                    for (PlannedNode planned : cloud.provision(new Cloud.CloudState(label, 0), arrived - requested)) {
+                        done.add(track(planned, start + arrivalOffset(requested, agents, window), timeToOnline,
+                                failures, teardowns));
+                        requested++;
+                    }
+                }
+                TimeUnit.NANOSECONDS.sleep(tick.toNanos());
+            }
+            CompletableFuture.allOf(done.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            failures.add("Agents were not online in time");
+        } finally {
+            teardowns.shutdown();
+            teardowns.awaitTermination(1, TimeUnit.MINUTES);
+            jenkins.clouds.remove(cloud);
+        }
+        final List<Long> sorted = new ArrayList<>(timeToOnline);
+        Collections.sort(sorted);
+        final Report report = new Report(agents, sorted.size(), List.copyOf(failures),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), fakeApi.getTotalCalls() - callsBefore,
+                sorted);
+        log.info("Load report: {}", report);
+        log.info("API calls by endpoint: {}", fakeApi.getCalls());
+        return report;
+    }
+
+    /**
+     * Time when agent with given index is requested, relative to start of run.
+     */
+    private static long arrivalOffset(int index, int agents, Duration window) {
+        return agents <= 1 ? 0 : window.toNanos() * index / (agents - 1);
+    }
+
+    private static CompletableFuture<Void> track(PlannedNode planned, long requestedAt,
+                                                 ConcurrentLinkedQueue<Long> timeToOnline,
+                                                 ConcurrentLinkedQueue<String> failures, ExecutorService teardowns) {
+        return completable(planned.future).handle((node, error) -> {
+            if (error != null) {
+                failures.add(Throwables.getCausalChain(error).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(", caused by ")));
+                return null;
+            }
+            final Computer computer = node.toComputer();
+            if (computer != null && computer.isOnline()) {
+                timeToOnline.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestedAt));
+            } else {
+                failures.add("Computer of agent " + node.getNodeName() + " is not online");
+            }
+            teardowns.execute(() -> terminate((HetznerServerAgent) node));
+            return null;
+        });
+    }
+
+    private static CompletableFuture<Node> completable(Future<Node> future) {
+        if (future instanceof CompletableFuture<Node> completable) {
+            return completable;
+        }
+        // not expected, ProvisioningPipeline completes planned nodes with CompletableFuture
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void terminate(HetznerServerAgent agent) {
+        try {
+            agent.terminate();
+        } catch (IOException | InterruptedException e) {
+            log.warn("Unable to terminate agent {}", agent.getNodeName(), e);
+        }
+    }
+
+    private HetznerCloud cloud(int instanceCap) throws IOException {
+        final InProcessConnector connector = new InProcessConnector(sshCredentialsId);
+        connector.setSshPort(fakeApi.getSshPort());
+        final HetznerServerTemplate template = new HetznerServerTemplate("load-template", LABEL, "123", "fsn1",
+                "cx22");
+        template.setConnector(connector);
+        template.setRemoteFs(Files.createTempDirectory("load-agent").toString());
+        template.setTeardownMode(TeardownMode.DELETE_IMMEDIATELY);
+        return new HetznerCloud(credentialsId, credentialsId, String.valueOf(instanceCap),
+                new ArrayList<>(List.of(template)));
+    }
+
+    /**
+     * Connector whose agents are connected over in-process channel.
+     */
+    static final class InProcessConnector extends AbstractHetznerSshConnector {
+        InProcessConnector(String sshCredentialsId) {
+            setSshCredentialsId(sshCredentialsId);
+        }
+
+        @Override
+        public HetznerServerComputerLauncher createLauncher() {
+            return new InProcessLauncher(this);
+        }
+    }
+
+    /**
+     * Connects computer to agent side of channel running in same JVM, instead of remoting started over SSH.
+     */
+    static final class InProcessLauncher extends HetznerServerComputerLauncher {
+        InProcessLauncher(AbstractHetznerSshConnector connector) {
+            super(connector);
+        }
+
+        @Override
+        public void launch(SlaveComputer computer, TaskListener listener) throws IOException, InterruptedException {
+            final FastPipedInputStream agentIn = new FastPipedInputStream();
+            final FastPipedInputStream controllerIn = new FastPipedInputStream();
+            final FastPipedOutputStream controllerOut = new FastPipedOutputStream(agentIn);
+            final FastPipedOutputStream agentOut = new FastPipedOutputStream(controllerIn);
+            final ExecutorService agentThreads = Executors.newCachedThreadPool(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "Load agent " + computer.getName()));
+            // both sides of channel handshake at once
+            final Future<Channel> agent = agentThreads.submit(() ->
+                    new ChannelBuilder(computer.getName(), agentThreads).build(agentIn, agentOut));
+            computer.setChannel(controllerIn, controllerOut, listener, new Channel.Listener() {
+                @Override
+                public void onClosed(Channel channel, IOException cause) {
+                    try {
+                        agent.get().close();
+                    } catch (IOException | ExecutionException e) {
+                        log.debug("Unable to close agent side of channel {}", computer.getName(), e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        agentThreads.shutdown();
+                    }
+                }
+            });
+        }
+    }
+}
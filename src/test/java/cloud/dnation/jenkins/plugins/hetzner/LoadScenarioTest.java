@@ -0,0 +1,127 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import hudson.util.Secret;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Load scenarios against {@link FakeHetznerApi}.
+ * <p>
+ * Scenarios describe real-world timing (e.g. 200 agents in 2 minutes, servers booting in 30 seconds), which is
+ * compressed by factor given in system property <code>LoadScenarioTest.timeScale</code> (default 0.05),
+ * so that they can run as part of regular build. Use <code>-DLoadScenarioTest.timeScale=1</code> to run them
+ * in real time. Reports are logged.
+ * <p>
+ * Agents are provisioned by {@link HetznerCloud} itself, see {@link LoadHarness}. Servers of fake API need their own
+ * loopback addresses, so scenarios are skipped where only <code>127.0.0.1</code> is available.
+ */
+@WithJenkins
+class LoadScenarioTest {
+    private static final double TIME_SCALE = Double.parseDouble(
+            System.getProperty(LoadScenarioTest.class.getSimpleName() + ".timeScale", "0.05"));
+
+    private FakeHetznerApi fakeApi;
+    private String credentialsId;
+
+    private static long scaled(Duration duration) {
+        return (long) (duration.toMillis() * TIME_SCALE);
+    }
+
+    private LoadHarness harness(String credentialsId, FakeHetznerApi.Options.OptionsBuilder options)
+            throws Exception {
+        assumeTrue(FakeHetznerApi.isLoopbackRangeAvailable(), "127.0.0.0/8 is not routed to loopback");
+        this.credentialsId = credentialsId;
+        final SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials().add(new StringCredentialsImpl(CredentialsScope.GLOBAL, credentialsId, "API token",
+                Secret.fromString("token")));
+        store.getCredentials().add(new BasicSSHUserPrivateKey(CredentialsScope.GLOBAL, credentialsId + "-ssh",
+                "jenkins", new BasicSSHUserPrivateKey.DirectEntryPrivateKeySource(
+                TestHelper.resourceAsString("id_rsa")), null, null));
+        store.save();
+        fakeApi = new FakeHetznerApi(options.sshd(true).build());
+        SharedApiClient.register(credentialsId, fakeApi.getUrl());
+        // NodeProvisioner hands workload to clouds every 10 seconds
+        return new LoadHarness(fakeApi, credentialsId, credentialsId + "-ssh",
+                Duration.ofMillis(scaled(Duration.ofSeconds(10))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (credentialsId != null) {
+            SharedApiClient.invalidate(credentialsId);
+        }
+        if (fakeApi != null) {
+            fakeApi.close();
+        }
+    }
+
+    @Test
+    void test200AgentsIn2Minutes(JenkinsRule j) throws Exception {
+        final LoadHarness harness = harness("load-ramp", FakeHetznerApi.Options.builder()
+                .latencyMillis(scaled(Duration.ofMillis(100)))
+                .bootMillis(scaled(Duration.ofSeconds(30)))
+                .actionMillis(scaled(Duration.ofSeconds(5)))
+                .rateLimitPerHour(3600));
+        final LoadHarness.Report report = harness.run(200, Duration.ofMillis(scaled(Duration.ofMinutes(2))));
+        assertEquals(200, report.online(), () -> "Failures: " + report.failures());
+        assertTrue(report.apiCallsPerAgent() < 10, report::toString);
+        await().atMost(1, TimeUnit.MINUTES).until(() -> fakeApi.getServerCount() == 0);
+    }
+
+    @Test
+    void testBurstWithInjectedErrors(JenkinsRule j) throws Exception {
+        final LoadHarness harness = harness("load-faults", FakeHetznerApi.Options.builder()
+                .latencyMillis(scaled(Duration.ofMillis(100)))
+                .bootMillis(scaled(Duration.ofSeconds(30)))
+                .actionMillis(scaled(Duration.ofSeconds(5)))
+                .rateLimitPerHour(3600)
+                .errorRate429(0.05)
+                .errorRate5xx(0.02));
+        final LoadHarness.Report report = harness.run(50, Duration.ZERO);
+        assertEquals(50, report.online() + report.failures().size());
+        // throttled calls are retried, so only server errors may cause failure
+        assertTrue(report.online() >= 40, report::toString);
+    }
+
+    @Test
+    void testCapacityErrors(JenkinsRule j) throws Exception {
+        final LoadHarness harness = harness("load-capacity", FakeHetznerApi.Options.builder()
+                .bootMillis(scaled(Duration.ofSeconds(5)))
+                .maxServers(20));
+        final LoadHarness.Report report = harness.run(40, Duration.ZERO);
+        assertEquals(20, report.online(), report::toString);
+        assertEquals(20, report.failures().size(), report::toString);
+        assertTrue(report.failures().stream().allMatch(f -> f.contains("resource_limit_exceeded")),
+                () -> "Failures: " + report.failures());
+        await().atMost(1, TimeUnit.MINUTES).until(() -> fakeApi.getServerCount() == 0);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.ServerDetail;
+import hudson.model.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Scan of Jenkins nodes and set computations done by {@link OrphanedNodesCleaner} for every cloud.
+ * Every fourth node is not Hetzner agent, agents are split between two clouds, one in ten agents
+ * has no server and one in twenty servers has no agent.
+ */
+@State(Scope.Benchmark)
+public class OrphanedNodesBenchmark {
+    @Param({"1000", "5000"})
+    public int nodeCount;
+
+    private List<Node> nodes;
+    private List<HetznerServerAgent> agents;
+    private List<ServerDetail> servers;
+    private ServerInventory inventory;
+
+    @Setup
+    public void setUp() throws IOException {
+        nodes = new ArrayList<>();
+        servers = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            if (i % 4 == 0) {
+                nodes.add(mock(Node.class, withSettings().stubOnly()));
+                continue;
+            }
+            final String name = "agent-" + i;
+            final HetznerServerAgent agent = mock(HetznerServerAgent.class, withSettings().stubOnly());
+            when(agent.getNodeName()).thenReturn(name);
+            when(agent.getCloudName()).thenReturn(i % 2 == 0 ? "cloud-a" : "cloud-b");
+            nodes.add(agent);
+            if (i % 10 != 1) {
+                servers.add(server(i, name));
+            }
+            if (i % 20 == 2) {
+                servers.add(server(nodeCount + i, "orphan-" + i));
+            }
+        }
+        agents = Helper.getHetznerAgents(nodes);
+        inventory = new ServerInventory(() -> servers);
+        inventory.refresh();
+    }
+
+    private static ServerDetail server(long id, String name) {
+        final ServerDetail server = new ServerDetail().id(id).name(name);
+        server.setCreated("2020-01-01T00:00:00+00:00");
+        server.setStatus("running");
+        return server;
+    }
+
+    @Benchmark
+    public List<HetznerServerAgent> getHetznerAgents() {
+        return Helper.getHetznerAgents(nodes);
+    }
+
+    @Benchmark
+    public List<ServerDetail> findOrphanedServers() {
+        return OrphanedNodesCleaner.findOrphanedServers(servers, agents);
+    }
+
+    @Benchmark
+    public List<HetznerServerAgent> findGhostAgents() {
+        return OrphanedNodesCleaner.findGhostAgents("cloud-a", agents, inventory);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.PrimaryIpDetail;
+import cloud.dnation.hetznerclient.ServerDetail;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PagedListingTest {
+
+    private static PagedListing.Page<ServerDetail> page(int number, int lastPage) {
+        return new PagedListing.Page<>(List.of(
+                new ServerDetail().id(number * 10L).name("server-" + number + "-a"),
+                new ServerDetail().id(number * 10L + 1).name("server-" + number + "-b")),
+                number < lastPage ? number + 1 : null, lastPage);
+    }
+
+    private static PagedListing.Page<ServerDetail> parse(String json) throws IOException {
+        return PagedListing.parsePage(new JsonReader(new StringReader(json)), "servers", ServerDetail.class,
+                PagedListing.SERVER_FIELDS);
+    }
+
+    @Test
+    void testParsePage() throws Exception {
+        final PagedListing.Page<ServerDetail> page = parse("""
+                {
+                  "meta": {"pagination": {"page": 1, "per_page": 50, "next_page": 2, "last_page": 3}},
+                  "servers": [
+                    {
+                      "id": 42,
+                      "name": "agent-1",
+                      "status": "running",
+                      "created": "2026-01-01T10:00:00+00:00",
+                      "labels": {"jenkins.io/managed-by": "hetzner-jenkins-plugin"},
+                      "image": {"id": 1, "description": "very long description", "labels": {}},
+                      "volumes": [1, 2, 3],
+                      "protection": {"delete": false, "rebuild": false}
+                    }
+                  ]
+                }
+                """);
+        assertEquals(2, page.nextPage());
+        assertEquals(3, page.lastPage());
+        final ServerDetail server = page.items().get(0);
+        assertEquals(42L, server.getId());
+        assertEquals("agent-1", server.getName());
+        assertEquals("running", server.getStatus());
+        assertEquals("2026-01-01T10:00:00+00:00", server.getCreated());
+        assertEquals("hetzner-jenkins-plugin", server.getLabels().get("jenkins.io/managed-by"));
+        assertNull(server.getImage());
+        assertNull(server.getVolumes());
+    }
+
+    @Test
+    void testParseSnakeCaseFields() throws Exception {
+        final ServerDetail server = parse("""
+                {
+                  "servers": [
+                    {
+                      "id": 42,
+                      "server_type": {"id": 1, "name": "cx22", "cores": 2},
+                      "public_net": {"ipv4": {"id": 7, "ip": "1.2.3.4"}, "ipv6": {"id": 8, "ip": "2001:db8::/64"}},
+                      "private_net": [{"network": 3, "ip": "10.0.0.2", "alias_ips": []}]
+                    }
+                  ]
+                }
+                """).items().get(0);
+        assertNotNull(server.getServerType());
+        final JsonObject serialized = SharedApiClient.GSON.toJsonTree(server).getAsJsonObject();
+        assertEquals("cx22", serialized.getAsJsonObject("server_type").get("name").getAsString());
+        assertEquals("1.2.3.4", server.getPublicNet().getIpv4().getIp());
+        assertEquals("2001:db8::/64", server.getPublicNet().getIpv6().getIp());
+        assertEquals("10.0.0.2", server.getPrivateNet().get(0).getIp());
+
+        final PrimaryIpDetail ip = PagedListing.parsePage(new JsonReader(new StringReader("""
+                {
+                  "primary_ips": [
+                    {"id": 5, "ip": "1.2.3.4", "assignee_id": 42, "assignee_type": "server",
+                     "location": {"name": "fsn1"}, "dns_ptr": []}
+                  ]
+                }
+                """)), "primary_ips", PrimaryIpDetail.class, PagedListing.PRIMARY_IP_FIELDS).items().get(0);
+        assertEquals(5L, ip.getId());
+        assertEquals(42L, ip.getAssigneeId());
+        assertEquals("fsn1", ip.getLocation().getName());
+    }
+
+    @Test
+    void testLastPage() throws Exception {
+        final PagedListing.Page<ServerDetail> page = parse("""
+                {"servers": [], "meta": {"pagination": {"page": 3, "next_page": null, "last_page": 3}}}
+                """);
+        assertNull(page.nextPage());
+        assertEquals(0, page.items().size());
+    }
+
+    @Test
+    void testPagesAreFetchedInParallel() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            final AtomicInteger concurrent = new AtomicInteger();
+            final AtomicInteger maxConcurrent = new AtomicInteger();
+            // pages 2-5 only complete once 4 of them are in flight at the same time
+            final CountDownLatch allInFlight = new CountDownLatch(4);
+            final List<Integer> fetched = Collections.synchronizedList(new ArrayList<>());
+            final PagedListing.PageFetcher<ServerDetail> fetcher = number -> {
+                fetched.add(number);
+                if (number > 1) {
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    allInFlight.countDown();
+                    try {
+                        allInFlight.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    concurrent.decrementAndGet();
+                }
+                return page(number, 10);
+            };
+            final List<ServerDetail> servers = PagedListing.fetchAll(fetcher, executor, 4);
+            assertEquals(20, servers.size());
+            // order of pages is preserved
+            assertEquals(IntStream.rangeClosed(1, 10).boxed().flatMap(i -> IntStream.of(0, 1)
+                            .mapToObj(j -> i * 10L + j)).toList(),
+                    servers.stream().map(ServerDetail::getId).toList());
+            assertEquals(4, maxConcurrent.get());
+            assertEquals(10, fetched.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testListingWhichGrewIsFetchedCompletely() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            // first page reports 2 pages, but meanwhile listing grew to 3
+            final PagedListing.PageFetcher<ServerDetail> fetcher = number -> page(number, number == 1 ? 2 : 3);
+            assertEquals(6, PagedListing.fetchAll(fetcher, executor, 4).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testParallelFailureIsPropagated() {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            final PagedListing.PageFetcher<ServerDetail> fetcher = number -> {
+                if (number == 3) {
+                    throw new IOException("API failure");
+                }
+                return page(number, 5);
+            };
+            final IOException e = assertThrows(IOException.class, () -> PagedListing.fetchAll(fetcher, executor, 2));
+            assertTrue(e.getMessage().contains("API failure"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import hudson.XmlFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingTeardownsTest {
+
+    @Test
+    void testRoundTrip(@TempDir File rootDir) throws Exception {
+        final XmlFile file = PendingTeardowns.getFile(rootDir);
+        assertEquals(List.of(), PendingTeardowns.load(file));
+
+        final PendingTeardowns.Entry entry1 = new PendingTeardowns.Entry("hcloud-01", 1L, "agent-1");
+        final PendingTeardowns.Entry entry2 = new PendingTeardowns.Entry("hcloud-02", 2L, "agent-2");
+        PendingTeardowns.save(file, Set.of(entry1, entry2));
+        assertTrue(file.exists());
+        assertEquals(Set.of(entry1, entry2), Set.copyOf(PendingTeardowns.load(file)));
+
+        // nothing left to do
+        PendingTeardowns.save(file, Set.of());
+        assertFalse(file.exists());
+        assertEquals(List.of(), PendingTeardowns.load(file));
+    }
+}
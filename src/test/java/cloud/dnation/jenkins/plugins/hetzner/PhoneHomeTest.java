@@ -0,0 +1,100 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class PhoneHomeTest {
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+    }
+
+    private static String param(String url, String name) {
+        final String query = URI.create(url).getRawQuery();
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        throw new AssertionError("Missing " + name + " in " + url);
+    }
+
+    @Test
+    void testHookIsAppended() {
+        final PhoneHome.Registration registration = PhoneHome.register("agent-hook");
+        try {
+            final String root = "https://jenkins.example.com/";
+            final String empty = PhoneHome.withHook(null, registration, root);
+            assertTrue(empty.startsWith("#cloud-config\nphone_home:\n  url: \"https://jenkins.example.com/"
+                    + PhoneHomeAction.URL_NAME + "/?node=agent-hook&nonce="), empty);
+            final String appended = PhoneHome.withHook("#cloud-config\npackages:\n  - openjdk-21-jre", registration,
+                    root);
+            assertTrue(appended.startsWith("#cloud-config\npackages:\n  - openjdk-21-jre\nphone_home:\n"), appended);
+            // not touched if hook can't be added safely
+            assertEquals("#!/bin/sh\necho hi", PhoneHome.withHook("#!/bin/sh\necho hi", registration, root));
+            final String own = "#cloud-config\nphone_home:\n  url: http://example.com/\n";
+            assertEquals(own, PhoneHome.withHook(own, registration, root));
+        } finally {
+            PhoneHome.unregister(registration);
+        }
+    }
+
+    @Test
+    void testCallbackIsAcceptedOnce() throws Exception {
+        final PhoneHome.Registration registration = PhoneHome.register("agent-once");
+        final String url = registration.getCallbackUrl("http://localhost/");
+        final String nonce = param(url, "nonce");
+        final String sig = param(url, "sig");
+        assertFalse(PhoneHome.accept("agent-once", nonce, sig + "0"));
+        assertFalse(PhoneHome.accept("agent-other", nonce, sig));
+        assertFalse(registration.getArrival().isDone());
+        assertTrue(PhoneHome.accept("agent-once", nonce, sig));
+        assertTrue(registration.getArrival().isDone());
+        // replay
+        assertFalse(PhoneHome.accept("agent-once", nonce, sig));
+    }
+
+    @Test
+    void testEndpointDoesNotNeedCrumb() throws Exception {
+        final PhoneHome.Registration registration = PhoneHome.register("agent-http");
+        final String url = registration.getCallbackUrl(j.getURL().toString());
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            final WebRequest request = new WebRequest(new URL(url), HttpMethod.POST);
+            request.setRequestBody("instance_id=42");
+            assertEquals(204, wc.getPage(request).getWebResponse().getStatusCode());
+            registration.getArrival().get(5, TimeUnit.SECONDS);
+            assertEquals(404, wc.getPage(request).getWebResponse().getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.jenkins.plugins.hetzner.metrics.LatencyRecorder;
+import cloud.dnation.jenkins.plugins.hetzner.metrics.PluginMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProvisioningBatchTest {
+
+    @Test
+    void testCreateCallsAreBounded() {
+        final ProvisioningBatch batch = new ProvisioningBatch(3, System::nanoTime);
+        final List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        final List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(batch.create(() -> {
+                final CompletableFuture<Integer> call = new CompletableFuture<>();
+                calls.add(call);
+                return call;
+            }));
+        }
+        assertEquals(3, calls.size());
+        calls.get(0).complete(0);
+        assertEquals(0, results.get(0).join());
+        assertEquals(4, calls.size());
+        calls.get(1).completeExceptionally(new IllegalStateException("create failed"));
+        assertTrue(results.get(1).isCompletedExceptionally());
+        assertEquals(5, calls.size());
+        for (int i = 2; i < 10; i++) {
+            calls.get(i).complete(i);
+        }
+        assertEquals(10, calls.size());
+        for (int i = 2; i < 10; i++) {
+            assertEquals(i, results.get(i).join());
+        }
+    }
+
+    @Test
+    void testTimeToAllAgents() {
+        final LatencyRecorder first = PluginMetrics.latency("provision.batch.first");
+        final LatencyRecorder all = PluginMetrics.latency("provision.batch.all");
+        final long firstCount = first.getCount();
+        final long allCount = all.getCount();
+        final AtomicLong clock = new AtomicLong();
+        final ProvisioningBatch batch = new ProvisioningBatch(2, clock::get);
+        batch.add();
+        batch.add();
+        clock.set(TimeUnit.SECONDS.toNanos(10));
+        batch.completed(true);
+        assertEquals(firstCount + 1, first.getCount());
+        batch.add();
+        batch.seal();
+        clock.set(TimeUnit.SECONDS.toNanos(20));
+        batch.completed(false);
+        assertEquals(allCount, all.getCount());
+        batch.completed(true);
+        assertEquals(firstCount + 1, first.getCount());
+        assertEquals(allCount + 1, all.getCount());
+    }
+}
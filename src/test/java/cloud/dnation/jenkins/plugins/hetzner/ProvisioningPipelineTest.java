@@ -0,0 +1,51 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProvisioningPipelineTest {
+
+    @Test
+    void testWhenDoneCompletesOnceFutureIsDone() throws Exception {
+        final FutureTask<Void> connect = new FutureTask<>(() -> null);
+        final CompletableFuture<Void> done = ProvisioningPipeline.whenDone(connect);
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertFalse(done.isDone());
+        connect.run();
+        done.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testWhenDonePropagatesFailure() {
+        final FutureTask<Void> connect = new FutureTask<>(() -> {
+            throw new IllegalStateException("connection refused");
+        });
+        connect.run();
+        final ExecutionException e = assertThrows(ExecutionException.class,
+                () -> ProvisioningPipeline.whenDone(connect).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.HetznerApi;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestCoalescerTest {
+
+    @SuppressWarnings("unchecked")
+    private static Call<String> blockingCall(CountDownLatch latch, Response<String> response) throws Exception {
+        final Call<String> call = mock(Call.class);
+        when(call.execute()).thenAnswer(inv -> {
+            latch.await(10, TimeUnit.SECONDS);
+            return response;
+        });
+        return call;
+    }
+
+    private static CompletableFuture<Response<String>> executeAsync(Call<String> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.execute();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void testIdenticalCallsShareResponse() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer(Set.of());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Response<String> ok = Response.success("server");
+        final Call<String> leader = blockingCall(latch, ok);
+        final Call<String> follower = blockingCall(latch, ok);
+        final Call<String> other = blockingCall(latch, Response.success("other"));
+
+        final CompletableFuture<Response<String>> r1 = executeAsync(
+                coalescer.wrap("getServer", new Object[]{1L}, ApiPriority.POLL, leader));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> coalescer.getInFlight() == 1);
+        final CompletableFuture<Response<String>> r2 = executeAsync(
+                coalescer.wrap("getServer", new Object[]{1L}, ApiPriority.POLL, follower));
+        final CompletableFuture<Response<String>> r3 = executeAsync(
+                coalescer.wrap("getServer", new Object[]{2L}, ApiPriority.POLL, other));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> coalescer.getInFlight() == 2);
+        latch.countDown();
+
+        assertSame(ok, r1.get(5, TimeUnit.SECONDS));
+        assertSame(ok, r2.get(5, TimeUnit.SECONDS));
+        assertEquals("other", r3.get(5, TimeUnit.SECONDS).body());
+        verify(leader, times(1)).execute();
+        verify(follower, never()).execute();
+        verify(other, times(1)).execute();
+        assertEquals(0, coalescer.getInFlight());
+    }
+
+    @Test
+    void testFailedResponseIsNotShared() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer(Set.of());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Call<String> leader = blockingCall(latch, Response.error(500, ResponseBody.create("", null)));
+        final Call<String> follower = blockingCall(latch, Response.success("server"));
+
+        final CompletableFuture<Response<String>> r1 = executeAsync(
+                coalescer.wrap("getServer", new Object[]{1L}, ApiPriority.POLL, leader));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> coalescer.getInFlight() == 1);
+        final CompletableFuture<Response<String>> r2 = executeAsync(
+                coalescer.wrap("getServer", new Object[]{1L}, ApiPriority.POLL, follower));
+        // give follower chance to join in-flight call
+        TimeUnit.MILLISECONDS.sleep(200);
+        latch.countDown();
+
+        assertEquals(500, r1.get(5, TimeUnit.SECONDS).code());
+        assertEquals("server", r2.get(5, TimeUnit.SECONDS).body());
+    }
+
+    @Test
+    void testEndpointSelection() {
+        assertEquals(Set.of("getServer", "getAllServers"),
+                RequestCoalescer.parseEndpoints(" getServer , getAllServers,"));
+        final RequestCoalescer coalescer = new RequestCoalescer(Set.of());
+        assertTrue(coalescer.isCoalesced(apiMethod("getServer")));
+        assertFalse(coalescer.isCoalesced(apiMethod("deleteServer")));
+        final RequestCoalescer excluding = new RequestCoalescer(RequestCoalescer.parseEndpoints("getServer"));
+        assertFalse(excluding.isCoalesced(apiMethod("getServer")));
+    }
+
+    private static Method apiMethod(String name) {
+        return Arrays.stream(HetznerApi.class.getMethods())
+                .filter(m -> m.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
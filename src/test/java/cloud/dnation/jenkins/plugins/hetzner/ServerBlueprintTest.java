@@ -0,0 +1,108 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.CreateServerRequest;
+import cloud.dnation.jenkins.plugins.hetzner.LabelResolutionCache.ResourceType;
+import cloud.dnation.jenkins.plugins.hetzner.connect.BothV6;
+import cloud.dnation.jenkins.plugins.hetzner.connect.PublicOnly;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServerBlueprintTest {
+
+    private static HetznerServerTemplate template(String image) {
+        final HetznerServerTemplate template = mock(HetznerServerTemplate.class);
+        when(template.getName()).thenReturn("template-1");
+        when(template.getImage()).thenReturn(image);
+        when(template.getServerType()).thenReturn("cx22");
+        when(template.getLocation()).thenReturn("fsn1");
+        when(template.getConnectivity()).thenReturn(new PublicOnly());
+        when(template.getCloud()).thenReturn(mock(HetznerCloud.class));
+        return template;
+    }
+
+    @Test
+    void testLiteralReferences() throws Exception {
+        final HetznerServerTemplate template = template("123");
+        when(template.getVolumeIds()).thenReturn("1,2");
+        when(template.getFirewall()).thenReturn("10");
+        when(template.getPlacementGroup()).thenReturn("20");
+        when(template.getUserData()).thenReturn("#cloud-config");
+        final ServerBlueprint blueprint = ServerBlueprint.compile(template);
+        final CreateServerRequest req = blueprint.newRequest("agent-1", "key-1", (type, expr) -> {
+            throw new AssertionError("No label expression to resolve");
+        });
+        assertEquals("agent-1", req.getName());
+        assertEquals(List.of("key-1"), req.getSshKeys());
+        assertEquals("123", req.getImage());
+        assertEquals("cx22", req.getServerType());
+        assertEquals("fsn1", req.getLocation());
+        assertEquals(List.of(1L, 2L), req.getVolumes());
+        assertEquals(10L, req.getFirewalls().get(0).getFirewall());
+        assertEquals(20L, req.getPlacementGroup());
+        assertEquals("#cloud-config", req.getUserData());
+        assertTrue(req.getPublicNet().getEnableIpv4());
+        assertTrue(req.getPublicNet().getEnableIpv6());
+        assertNull(req.getNetworks());
+        assertTrue(blueprint.isPrimaryIpApplicable());
+        assertEquals(HetznerConstants.LABEL_VALUE_PLUGIN, req.getLabels().get(HetznerConstants.LABEL_MANAGED_BY));
+    }
+
+    @Test
+    void testLabelReferencesAreResolvedPerRequest() throws Exception {
+        final HetznerServerTemplate template = template("jenkins=true");
+        when(template.getConnectivity()).thenReturn(new BothV6());
+        when(template.getNetwork()).thenReturn("net=jenkins");
+        final ServerBlueprint blueprint = ServerBlueprint.compile(template);
+        final List<ResourceType> resolved = new ArrayList<>();
+        final LabelResolutionCache.Resolver resolver = (type, expr) -> {
+            resolved.add(type);
+            return 100 + resolved.size();
+        };
+        final CreateServerRequest req1 = blueprint.newRequest("agent-1", "key", resolver);
+        final CreateServerRequest req2 = blueprint.newRequest("agent-2", "key", resolver);
+        assertEquals(List.of(ResourceType.IMAGE, ResourceType.NETWORK, ResourceType.IMAGE, ResourceType.NETWORK),
+                resolved);
+        assertEquals("101", req1.getImage());
+        assertEquals(List.of(102L), req1.getNetworks());
+        assertEquals("103", req2.getImage());
+        assertFalse(req1.getPublicNet().getEnableIpv4());
+        assertTrue(req1.getPublicNet().getEnableIpv6());
+        assertFalse(blueprint.isPrimaryIpApplicable());
+        // requests must not share mutable state
+        assertNotSame(req1.getPublicNet(), req2.getPublicNet());
+        assertNotSame(req1.getLabels(), req2.getLabels());
+    }
+
+    @Test
+    void testInvalidTemplate() {
+        final HetznerServerTemplate template = template("123");
+        when(template.getVolumeIds()).thenReturn("not-a-number");
+        assertThrows(IllegalArgumentException.class, () -> ServerBlueprint.compile(template));
+    }
+}
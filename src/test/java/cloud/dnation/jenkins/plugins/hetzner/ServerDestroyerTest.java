@@ -0,0 +1,198 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.GetServerByIdResponse;
+import cloud.dnation.hetznerclient.HetznerApi;
+import cloud.dnation.hetznerclient.ServerDetail;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ServerDestroyerTest {
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+    private final HetznerApi api = mock(HetznerApi.class);
+    private final List<Long> fetchedActions = new CopyOnWriteArrayList<>();
+    private final ActionTracker tracker = new ActionTracker(ids -> {
+        fetchedActions.addAll(ids);
+        return ids.stream().map(id -> new ActionTracker.ActionStatus(id, "success", null, null)).toList();
+    }, executor, executor, 10);
+    private final List<Long> shutdownServers = new CopyOnWriteArrayList<>();
+    private final ServerDestroyer.Shutdown shutdown = id -> {
+        shutdownServers.add(id);
+        return null;
+    };
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Call<T> call(Response<T> response) throws Exception {
+        final Call<T> call = mock(Call.class);
+        when(call.execute()).thenReturn(response);
+        return call;
+    }
+
+    private static ServerDetail server(long id) {
+        final ServerDetail server = new ServerDetail();
+        server.setId(id);
+        server.setName("server-" + id);
+        return server;
+    }
+
+    private static Response<GetServerByIdResponse> serverInStatus(long id, String status) {
+        final ServerDetail server = server(id);
+        server.setStatus(status);
+        final GetServerByIdResponse body = new GetServerByIdResponse();
+        body.setServer(server);
+        return Response.success(body);
+    }
+
+    @Test
+    void testServerIsPoweredOffAndDeleted() throws Exception {
+        when(api.powerOffServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+        final Call<GetServerByIdResponse> running = call(serverInStatus(1, "running"));
+        final Call<GetServerByIdResponse> off = call(serverInStatus(1, "off"));
+        when(api.getServer(1L)).thenReturn(running, off);
+
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        final CompletableFuture<Void> future = destroyer.destroy(server(1), TeardownMode.POWER_OFF_AND_WAIT);
+        assertSame(future, destroyer.destroy(server(1), TeardownMode.POWER_OFF_AND_WAIT));
+        future.get(10, TimeUnit.SECONDS);
+        verify(api, times(1)).powerOffServer(1L);
+        verify(api, times(2)).getServer(1L);
+        verify(api, times(1)).deleteServer(1L);
+        assertEquals(0, destroyer.getInFlight());
+    }
+
+    @Test
+    void testPowerOffActionIsTracked() throws Exception {
+        when(api.powerOffServer(anyLong())).thenAnswer(inv -> call(Response.success(
+                Map.of("action", Map.of("id", 42, "status", "running")))));
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        destroyer.destroy(server(1), TeardownMode.POWER_OFF_AND_WAIT).get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(42L), fetchedActions);
+        verify(api, times(0)).getServer(anyLong());
+        verify(api, times(1)).deleteServer(1L);
+    }
+
+    @Test
+    void testNumberOfDestroysInFlightIsBounded() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        when(api.powerOffServer(anyLong())).thenAnswer(inv -> {
+            latch.await();
+            return call(Response.success(new Object()));
+        });
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+        when(api.getServer(anyLong())).thenAnswer(inv -> call(serverInStatus(inv.getArgument(0), "off")));
+
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            futures.add(destroyer.destroy(server(id), TeardownMode.POWER_OFF_AND_WAIT));
+        }
+        assertEquals(2, destroyer.getInFlight());
+        assertEquals(3, destroyer.getQueued());
+        assertEquals(ServerDestroyer.State.QUEUED, destroyer.getState(5));
+        assertFalse(futures.get(0).isDone());
+
+        latch.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> destroyer.getInFlight() == 0);
+        verify(api, times(5)).deleteServer(anyLong());
+    }
+
+    @Test
+    void testFailedPowerOffCompletesExceptionally() throws Exception {
+        when(api.powerOffServer(anyLong())).thenAnswer(inv -> call(Response.error(500, ResponseBody.create("", null))));
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        final CompletableFuture<Void> future = destroyer.destroy(server(1), TeardownMode.POWER_OFF_AND_WAIT);
+        await().atMost(5, TimeUnit.SECONDS).until(future::isCompletedExceptionally);
+        verify(api, times(0)).deleteServer(anyLong());
+        assertEquals(0, destroyer.getInFlight());
+    }
+
+    @Test
+    void testImmediateDeleteSkipsPowerOff() throws Exception {
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        destroyer.destroy(server(1), TeardownMode.DELETE_IMMEDIATELY).get(10, TimeUnit.SECONDS);
+        verify(api, times(0)).powerOffServer(anyLong());
+        verify(api, times(0)).getServer(anyLong());
+        verify(api, times(1)).deleteServer(1L);
+        assertEquals(List.of(), shutdownServers);
+    }
+
+    @Test
+    void testShutdownIsBoundedByGracePeriod() throws Exception {
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+        // server ignores ACPI shutdown
+        when(api.getServer(anyLong())).thenAnswer(inv -> call(serverInStatus(1, "running")));
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        destroyer.destroy(server(1), TeardownMode.SHUTDOWN_WITH_GRACE).get(10, TimeUnit.SECONDS);
+        assertEquals(List.of(1L), shutdownServers);
+        verify(api, times(0)).powerOffServer(anyLong());
+        // 50ms grace period with 10ms poll interval
+        verify(api, times(5)).getServer(1L);
+        verify(api, times(1)).deleteServer(1L);
+    }
+
+    @Test
+    void testShutdownCompletesOnceServerIsOff() throws Exception {
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.success(new Object())));
+        final Call<GetServerByIdResponse> off = call(serverInStatus(1, "off"));
+        when(api.getServer(1L)).thenReturn(off);
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 1000);
+        destroyer.destroy(server(1), TeardownMode.SHUTDOWN_WITH_GRACE).get(10, TimeUnit.SECONDS);
+        verify(api, times(1)).getServer(1L);
+        verify(api, times(1)).deleteServer(1L);
+    }
+
+    @Test
+    void testServerAlreadyGoneIsNotFailure() throws Exception {
+        when(api.deleteServer(anyLong())).thenAnswer(inv -> call(Response.error(404, ResponseBody.create("", null))));
+        final ServerDestroyer destroyer = new ServerDestroyer(p -> api, shutdown, tracker, executor, executor, 2, 10, 50);
+        destroyer.destroy(server(1), TeardownMode.DELETE_IMMEDIATELY).get(10, TimeUnit.SECONDS);
+        verify(api, times(1)).deleteServer(1L);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.ServerDetail;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerInventoryTest {
+
+    private static ServerDetail server(long id, String status) {
+        return new ServerDetail().id(id).name("server-" + id).status(status);
+    }
+
+    @Test
+    void testRefreshOnlyWhenStale() throws Exception {
+        final AtomicLong clock = new AtomicLong(1000);
+        final AtomicInteger calls = new AtomicInteger();
+        final ServerInventory inventory = new ServerInventory(() -> {
+            calls.incrementAndGet();
+            return List.of(server(1, "running"), server(2, "off"), server(3, "initializing"));
+        }, clock::get);
+        assertFalse(inventory.isFresh());
+        assertEquals(2, inventory.countRunnable());
+        assertEquals(3, inventory.getAll().size());
+        assertEquals(1, calls.get());
+        clock.addAndGet(ServerInventory.MAX_AGE_MILLIS);
+        assertFalse(inventory.isFresh());
+        inventory.getAll();
+        assertEquals(2, calls.get());
+        assertEquals("server-2", inventory.getById(2).map(ServerDetail::getName).orElseThrow());
+        assertEquals(3L, inventory.getByName("server-3").map(ServerDetail::getId).orElseThrow());
+    }
+
+    @Test
+    void testWriteThroughSurvivesOlderListing() throws Exception {
+        final AtomicLong clock = new AtomicLong(1000);
+        final AtomicBoolean createDuringListing = new AtomicBoolean(true);
+        final AtomicReference<ServerInventory> ref = new AtomicReference<>();
+        final ServerInventory inventory = new ServerInventory(() -> {
+            if (createDuringListing.get()) {
+                // server created while listing is in progress isn't part of listing
+                clock.incrementAndGet();
+                ref.get().put(server(2, "initializing"));
+            }
+            return List.of(server(1, "running"));
+        }, clock::get);
+        ref.set(inventory);
+        inventory.refresh();
+        assertEquals(2, inventory.size());
+        assertTrue(inventory.getById(2).isPresent());
+
+        // next listing still doesn't contain server 2, which means it's gone
+        createDuringListing.set(false);
+        clock.incrementAndGet();
+        inventory.refresh();
+        assertEquals(1, inventory.size());
+        assertFalse(inventory.getByName("server-2").isPresent());
+    }
+
+    @Test
+    void testRemove() throws Exception {
+        final ServerInventory inventory = new ServerInventory(() -> List.of(server(1, "running")));
+        inventory.refresh();
+        inventory.put(server(2, "starting"));
+        assertEquals(2, inventory.countRunnable());
+        inventory.remove(1);
+        assertEquals(1, inventory.countRunnable());
+        assertFalse(inventory.getByName("server-1").isPresent());
+    }
+
+    @Test
+    void testRemoveSurvivesOlderListing() throws Exception {
+        final AtomicLong clock = new AtomicLong(1000);
+        final AtomicBoolean removeDuringListing = new AtomicBoolean(false);
+        final AtomicReference<ServerInventory> ref = new AtomicReference<>();
+        final ServerInventory inventory = new ServerInventory(() -> {
+            if (removeDuringListing.get()) {
+                // server deleted while listing is in progress is still part of listing
+                clock.incrementAndGet();
+                ref.get().remove(2);
+            }
+            return List.of(server(1, "running"), server(2, "running"));
+        }, clock::get);
+        ref.set(inventory);
+        inventory.refresh();
+        assertEquals(2, inventory.countRunnable());
+
+        removeDuringListing.set(true);
+        clock.incrementAndGet();
+        inventory.refresh();
+        assertEquals(1, inventory.countRunnable());
+        assertFalse(inventory.getById(2).isPresent());
+        assertFalse(inventory.getByName("server-2").isPresent());
+
+        // listing which started after removal is authoritative again
+        removeDuringListing.set(false);
+        clock.incrementAndGet();
+        inventory.refresh();
+        assertEquals(2, inventory.countRunnable());
+    }
+}
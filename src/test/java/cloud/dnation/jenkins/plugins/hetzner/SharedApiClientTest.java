@@ -0,0 +1,43 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SharedApiClientTest {
+
+    @Test
+    void testClientIsSharedPerCredentials() {
+        final SharedApiClient client1 = SharedApiClient.forCredentialsId("creds-1");
+        assertSame(client1, SharedApiClient.forCredentialsId("creds-1"));
+        assertSame(client1.getApi(), SharedApiClient.forCredentialsId("creds-1").getApi());
+        assertNotSame(client1, SharedApiClient.forCredentialsId("creds-2"));
+    }
+
+    @Test
+    void testInvalidate() {
+        final SharedApiClient client1 = SharedApiClient.forCredentialsId("creds-3");
+        SharedApiClient.invalidate("creds-3");
+        final SharedApiClient client2 = SharedApiClient.forCredentialsId("creds-3");
+        assertNotSame(client1, client2);
+        // servers being destroyed are still tracked
+        assertSame(client1.getDestroyer(), client2.getDestroyer());
+        assertSame(client1.getActionTracker(), client2.getActionTracker());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import cloud.dnation.hetznerclient.SshKeyDetail;
+import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SshKeyRegistryTest {
+
+    private static BasicSSHUserPrivateKey privateKey(String id, String pem) {
+        final BasicSSHUserPrivateKey key = mock(BasicSSHUserPrivateKey.class);
+        when(key.getId()).thenReturn(id);
+        when(key.getPrivateKey()).thenReturn(pem);
+        return key;
+    }
+
+    @Test
+    void testConcurrentFirstUseRegistersOnce() throws Exception {
+        final BasicSSHUserPrivateKey key = privateKey("ssh-1", TestHelper.resourceAsString("id_rsa"));
+        final SshKeyDetail detail = new SshKeyDetail();
+        final AtomicInteger loads = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<SshKeyDetail>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> SshKeyRegistry.getOrRegister("api-1", key, () -> {
+                    loads.incrementAndGet();
+                    TimeUnit.MILLISECONDS.sleep(100);
+                    return detail;
+                })));
+            }
+            for (Future<SshKeyDetail> result : results) {
+                assertSame(detail, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidate() throws Exception {
+        final BasicSSHUserPrivateKey key = privateKey("ssh-2", TestHelper.resourceAsString("id_ed25519"));
+        final AtomicInteger loads = new AtomicInteger();
+        final SshKeyRegistry.Loader loader = () -> {
+            loads.incrementAndGet();
+            return new SshKeyDetail();
+        };
+        SshKeyRegistry.getOrRegister("api-2", key, loader);
+        SshKeyRegistry.getOrRegister("api-2", key, loader);
+        assertEquals(1, loads.get());
+        assertFalse(SshKeyRegistry.invalidate("api-3", "ssh-2"));
+        assertTrue(SshKeyRegistry.invalidate("api-2", "ssh-2"));
+        SshKeyRegistry.getOrRegister("api-2", key, loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testKeyChangesWithPrivateKey() {
+        assertNotEquals(
+                SshKeyRegistry.cacheKey("api", privateKey("ssh", TestHelper.resourceAsString("id_rsa"))),
+                SshKeyRegistry.cacheKey("api", privateKey("ssh", TestHelper.resourceAsString("id_ed25519"))));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.labels.LabelAtom;
+import hudson.model.labels.LabelExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Selection of template for provisioning, see {@link HetznerCloud#getTemplates(List, Label)}
+ * and {@link HetznerCloud#pickTemplate(List)}.
+ */
+@State(Scope.Benchmark)
+public class TemplateSelectionBenchmark {
+    @Param({"10", "100", "500"})
+    public int templateCount;
+
+    private List<HetznerServerTemplate> templates;
+    private Label atom;
+    private Label expression;
+    private List<HetznerServerTemplate> matching;
+
+    @Setup
+    public void setUp() {
+        templates = new ArrayList<>();
+        for (int i = 0; i < templateCount; i++) {
+            final HetznerServerTemplate template = mock(HetznerServerTemplate.class, withSettings().stubOnly());
+            when(template.getLabels()).thenReturn(Set.of(new LabelAtom("linux"),
+                    new LabelAtom("pool-" + i % 10), new LabelAtom("template-" + i)));
+            when(template.getMode()).thenReturn(i % 2 == 0 ? Node.Mode.NORMAL : Node.Mode.EXCLUSIVE);
+            templates.add(template);
+        }
+        atom = new LabelAtom("pool-3");
+        expression = new LabelExpression.And(new LabelAtom("linux"), new LabelAtom("pool-3"));
+        matching = HetznerCloud.getTemplates(templates, atom);
+    }
+
+    @Benchmark
+    public List<HetznerServerTemplate> getTemplatesByLabelAtom() {
+        return HetznerCloud.getTemplates(templates, atom);
+    }
+
+    @Benchmark
+    public List<HetznerServerTemplate> getTemplatesByLabelExpression() {
+        return HetznerCloud.getTemplates(templates, expression);
+    }
+
+    @Benchmark
+    public List<HetznerServerTemplate> getTemplatesWithoutLabel() {
+        return HetznerCloud.getTemplates(templates, null);
+    }
+
+    @Benchmark
+    public HetznerServerTemplate pickTemplate() {
+        return HetznerCloud.pickTemplate(matching);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner;
+
+import hudson.slaves.AbstractCloudComputer;
+import hudson.slaves.RetentionStrategy;
+import org.jenkinsci.plugins.cloudstats.ProvisioningActivity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+class WarmPoolTest {
+
+    @Test
+    void testTarget() {
+        final long now = TimeUnit.HOURS.toMillis(10);
+        assertEquals(0, WarmPool.target(0, 60, now, now));
+        assertEquals(3, WarmPool.target(3, 60, now, now));
+        assertEquals(3, WarmPool.target(3, 60, now - TimeUnit.MINUTES.toMillis(59), now));
+        // drained during quiet period
+        assertEquals(0, WarmPool.target(3, 60, now - TimeUnit.MINUTES.toMillis(61), now));
+    }
+
+    @Test
+    void testRetainedSelectionIsStable() {
+        assertEquals(Set.of("a", "b"), WarmPool.retained(List.of("c", "b", "a"), 2));
+        assertEquals(Set.of("a", "b"), WarmPool.retained(List.of("b", "a", "d", "c"), 2));
+        assertEquals(Set.of("x"), WarmPool.retained(List.of("x"), 2));
+        assertEquals(Set.of(), WarmPool.retained(List.of("x"), 0));
+    }
+
+    @Test
+    void testRetentionKeepsPooledAgents() {
+        final RetentionStrategy<AbstractCloudComputer> delegate = mock(RetentionStrategy.class);
+        when(delegate.check(any())).thenReturn(5L);
+        final WarmPool.Retention retention = new WarmPool.Retention(delegate);
+        final AbstractCloudComputer pooled = computer("cloud-1", "pooled");
+        final AbstractCloudComputer other = computer("cloud-1", "other");
+        WarmPool.state("cloud-1", "template-1").retained = Set.of("pooled");
+
+        assertEquals(1, retention.check(pooled));
+        verify(delegate, never()).check(pooled);
+        assertEquals(5, retention.check(other));
+        verify(delegate).check(other);
+
+        // once claimed by build, shutdown policy is in charge again
+        when(pooled.isIdle()).thenReturn(false);
+        assertEquals(5, retention.check(pooled));
+    }
+
+    private static AbstractCloudComputer computer(String cloudName, String nodeName) {
+        final HetznerServerAgent agent = mock(HetznerServerAgent.class);
+        when(agent.getCloudName()).thenReturn(cloudName);
+        when(agent.getNodeName()).thenReturn(nodeName);
+        when(agent.getId()).thenReturn(new ProvisioningActivity.Id(cloudName, "template-1", nodeName));
+        final AbstractCloudComputer computer = mock(AbstractCloudComputer.class);
+        when(computer.getNode()).thenReturn(agent);
+        when(computer.isIdle()).thenReturn(true);
+        return computer;
+    }
+}
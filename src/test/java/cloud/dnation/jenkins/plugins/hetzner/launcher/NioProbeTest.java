@@ -0,0 +1,137 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.launcher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NioProbeTest {
+    private ServerSocket server;
+    private Thread acceptor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (acceptor != null) {
+            acceptor.interrupt();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Start server which writes given greeting to every connection.
+     */
+    private InetSocketAddress serve(int port, String greeting) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept(); OutputStream out = socket.getOutputStream()) {
+                    out.write(greeting.getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                } catch (IOException e) {
+                    // closed
+                }
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    void testBannerProbeSucceeds() throws Exception {
+        final InetSocketAddress address = serve(0, "Welcome\r\nSSH-2.0-OpenSSH_9.6\r\n");
+        ReadinessProbes.awaitAll(ReadinessProbes.DEFAULT, address, Duration.ofSeconds(10))
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testProbeWaitsForPortToOpen() throws Exception {
+        final int port = freePort();
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        final var ready = ReadinessProbes.TCP.await(address, Duration.ofSeconds(20));
+        TimeUnit.SECONDS.sleep(1);
+        serve(port, "");
+        ready.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testClosedPortTimesOut() throws Exception {
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), freePort());
+        final ExecutionException e = assertThrows(ExecutionException.class,
+                () -> ReadinessProbes.TCP.await(address, Duration.ofSeconds(1)).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void testOtherServiceIsNotSsh() throws Exception {
+        final InetSocketAddress address = serve(0, "HTTP/1.1 400 Bad Request\r\n\r\n");
+        final ExecutionException e = assertThrows(ExecutionException.class,
+                () -> ReadinessProbes.SSH_BANNER.await(address, Duration.ofSeconds(2)).get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void testCancelStopsRunningProbe() {
+        final CompletableFuture<Void> first = new CompletableFuture<>();
+        final AtomicInteger started = new AtomicInteger();
+        final ReadinessProbe probe = new ReadinessProbe() {
+            @Override
+            public String getName() {
+                return "fake";
+            }
+
+            @Override
+            public CompletableFuture<Void> await(InetSocketAddress address, Duration timeout) {
+                return started.incrementAndGet() == 1 ? first : CompletableFuture.completedFuture(null);
+            }
+        };
+        final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 22);
+        final CompletableFuture<Void> all = ReadinessProbes.awaitAll(List.of(probe, probe), address,
+                Duration.ofSeconds(10));
+        // e.g. server called back before probes succeeded
+        all.cancel(false);
+        assertTrue(first.isCancelled());
+        assertEquals(1, started.get());
+    }
+}
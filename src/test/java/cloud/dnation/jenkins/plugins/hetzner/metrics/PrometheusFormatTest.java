@@ -0,0 +1,94 @@
+/*
+ *     Copyright 2026 https://dnation.cloud
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cloud.dnation.jenkins.plugins.hetzner.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrometheusFormatTest {
+
+    @Test
+    void testPercentiles() {
+        final LatencyRecorder recorder = new LatencyRecorder();
+        assertEquals(0, recorder.getPercentileMillis(0.5));
+        for (int i = 0; i < 90; i++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 10; i++) {
+            recorder.record(TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        assertEquals(5, recorder.getPercentileMillis(0.5));
+        assertEquals(5, recorder.getPercentileMillis(0.9));
+        assertEquals(250, recorder.getPercentileMillis(0.95));
+        recorder.record(TimeUnit.SECONDS.toNanos(60));
+        assertEquals(60_000, recorder.getPercentileMillis(1.0));
+    }
+
+    @Test
+    void testWrite() throws Exception {
+        PluginMetrics.counter("test.prom.calls").add(3);
+        PluginMetrics.gauge("test.prom.pending").inc();
+        PluginMetrics.probe("test.prom.remaining.my-token", () -> 42);
+        final LatencyRecorder latency = PluginMetrics.latency("test.prom.latency");
+        latency.record(TimeUnit.MILLISECONDS.toNanos(7));
+        latency.record(TimeUnit.MILLISECONDS.toNanos(40));
+
+        final StringWriter out = new StringWriter();
+        PrometheusFormat.write(out);
+        final String text = out.toString();
+        assertTrue(text.contains("# TYPE hetzner_test_prom_calls_total counter\nhetzner_test_prom_calls_total 3\n"));
+        assertTrue(text.contains("# TYPE hetzner_test_prom_pending gauge\nhetzner_test_prom_pending 1\n"));
+        assertTrue(text.contains("hetzner_test_prom_remaining_my_token 42\n"));
+        assertTrue(text.contains("# TYPE hetzner_test_prom_latency_seconds histogram\n"));
+        assertTrue(text.contains("hetzner_test_prom_latency_seconds_bucket{le=\"0.005\"} 0\n"));
+        assertTrue(text.contains("hetzner_test_prom_latency_seconds_bucket{le=\"0.01\"} 1\n"));
+        assertTrue(text.contains("hetzner_test_prom_latency_seconds_bucket{le=\"0.05\"} 2\n"));
+        assertTrue(text.contains("hetzner_test_prom_latency_seconds_bucket{le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("hetzner_test_prom_latency_seconds_sum 0.047000\n"));
+        assertTrue(text.contains("hetzner_test_prom_latency_seconds_count 2\n"));
+    }
+
+    @Test
+    void testLabels() throws Exception {
+        assertEquals(new PrometheusFormat.Series("api.requests", "endpoint=\"servers.actions.shutdown\",status=\"io\""),
+                PrometheusFormat.series("api.status.servers.actions.shutdown.io"));
+        assertEquals(new PrometheusFormat.Series("readiness.attempts", "probe=\"ssh\""),
+                PrometheusFormat.series("readiness.ssh.attempts"));
+        assertEquals(new PrometheusFormat.Series("destroy.duration", ""),
+                PrometheusFormat.series("destroy.duration"));
+
+        PluginMetrics.counter("api.status.testPromGet.200").add(2);
+        PluginMetrics.counter("api.status.testPromGet.404").inc();
+        PluginMetrics.counter("api.errors.testPromGet.not_found").inc();
+        PluginMetrics.latency("api.latency.testPromGet").record(TimeUnit.MILLISECONDS.toNanos(7));
+
+        final StringWriter out = new StringWriter();
+        PrometheusFormat.write(out);
+        final String text = out.toString();
+        assertEquals(1, text.split("# TYPE hetzner_api_requests_total counter\n", -1).length - 1);
+        assertTrue(text.contains("hetzner_api_requests_total{endpoint=\"testPromGet\",status=\"200\"} 2\n"));
+        assertTrue(text.contains("hetzner_api_requests_total{endpoint=\"testPromGet\",status=\"404\"} 1\n"));
+        assertTrue(text.contains("hetzner_api_errors_total{endpoint=\"testPromGet\",code=\"not_found\"} 1\n"));
+        assertTrue(text.contains("# TYPE hetzner_api_latency_seconds histogram\n"));
+        assertTrue(text.contains("hetzner_api_latency_seconds_bucket{endpoint=\"testPromGet\",le=\"0.01\"} 1\n"));
+        assertTrue(text.contains("hetzner_api_latency_seconds_count{endpoint=\"testPromGet\"} 1\n"));
+    }
+}
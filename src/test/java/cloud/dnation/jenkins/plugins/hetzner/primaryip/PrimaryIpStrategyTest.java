@@ -54,4 +54,13 @@ class PrimaryIpStrategyTest {
         ip.setAssigneeId(0L);
         assertFalse(isIpUsable(ip, server));
     }
+
+    @Test
+    void testIpReservation() {
+        assertTrue(PrimaryIpReservations.tryReserve(42L));
+        assertFalse(PrimaryIpReservations.tryReserve(42L));
+        PrimaryIpReservations.release(42L);
+        assertTrue(PrimaryIpReservations.tryReserve(42L));
+        PrimaryIpReservations.release(42L);
+    }
 }